@@ -0,0 +1,68 @@
+package io.github.emd4600.javafxribbon.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.emd4600.javafxribbon.RibbonButton;
+import io.github.emd4600.javafxribbon.TextUtils;
+import io.github.emd4600.javafxribbon.skin.ButtonTextHelper;
+import javafx.scene.layout.VBox;
+
+/**
+ * Measures {@link ButtonTextHelper#layoutButton} over a set of typical labels, with and without 
+ * the line layout and text width caches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ButtonLayoutBenchmark {
+	
+	/** How many labels are laid out in each invocation. */
+	private static final int BATCH = 100;
+	
+	@Param({"true", "false"})
+	public boolean cached;
+	
+	private RibbonButton button;
+	private VBox container;
+	private int labelIndex;
+	
+	@Setup
+	public void setup() {
+		FxPlatform.start();
+		FxPlatform.run(() -> {
+			button = new RibbonButton("Paste", null);
+			container = new VBox();
+		});
+	}
+
+	@Benchmark
+	@org.openjdk.jmh.annotations.OperationsPerInvocation(BATCH)
+	public VBox layoutButton() {
+		return FxPlatform.call(() -> {
+			for (int i = 0; i < BATCH; i++) {
+				if (!cached) {
+					ButtonTextHelper.clearLineLayoutCache();
+					TextUtils.clearTextWidthCache();
+				}
+				button.setText(RibbonFixtures.label(labelIndex++));
+				ButtonTextHelper.layoutButton(button, container, true);
+			}
+			return container;
+		});
+	}
+}
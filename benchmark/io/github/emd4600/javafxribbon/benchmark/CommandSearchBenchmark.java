@@ -0,0 +1,71 @@
+package io.github.emd4600.javafxribbon.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.emd4600.javafxribbon.RibbonButton;
+import io.github.emd4600.javafxribbon.RibbonSearchIndex;
+import io.github.emd4600.javafxribbon.RibbonSearchResult;
+import io.github.emd4600.javafxribbon.RibbonWindow;
+
+/**
+ * Measures the command search: typing a query one keystroke at a time, and updating the index when the text
+ * of a command changes. The <code>frmat</code> and <code>comnent</code> queries contain typos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandSearchBenchmark {
+	
+	@Param({"1000", "10000"})
+	public int commandCount;
+	
+	@Param({"paste", "format pai", "frmat", "comnent"})
+	public String query;
+	
+	private RibbonSearchIndex index;
+	private RibbonButton button;
+	private int keystroke;
+	
+	@Setup
+	public void setup() {
+		FxPlatform.start();
+		FxPlatform.run(() -> {
+			RibbonWindow window = RibbonFixtures.createSearchWindow(commandCount);
+			index = window.getRibbon().getSearchIndex();
+			button = RibbonFixtures.findNode(window, RibbonButton.class);
+		});
+	}
+
+	/**
+	 * Searches the query as it is typed: every call adds one more character, until it is complete.
+	 */
+	@Benchmark
+	public List<RibbonSearchResult> typeQuery() {
+		keystroke = keystroke % query.length() + 1;
+		return FxPlatform.call(() -> index.search(query.substring(0, keystroke), 8));
+	}
+	
+	@Benchmark
+	public int renameCommand() {
+		return FxPlatform.call(() -> {
+			button.setText(RibbonFixtures.label(++keystroke));
+			return index.size();
+		});
+	}
+}
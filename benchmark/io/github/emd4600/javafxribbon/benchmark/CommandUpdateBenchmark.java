@@ -0,0 +1,96 @@
+package io.github.emd4600.javafxribbon.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.emd4600.javafxribbon.Ribbon;
+import io.github.emd4600.javafxribbon.RibbonButton;
+import io.github.emd4600.javafxribbon.RibbonCommand;
+import io.github.emd4600.javafxribbon.RibbonGroup;
+import io.github.emd4600.javafxribbon.RibbonTab;
+import io.github.emd4600.javafxribbon.RibbonWindow;
+import javafx.scene.Node;
+
+/**
+ * Measures a change of the application state that enables or disables half of the buttons of every tab, followed
+ * by the CSS and layout pass. The <code>setDisable</code> mode disables every button directly, the
+ * <code>command</code> mode invalidates the commands, which only evaluates the ones of the selected tab.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandUpdateBenchmark {
+	
+	@Param({"setDisable", "command"})
+	public String mode;
+	
+	@Param({"5", "20"})
+	public int tabCount;
+	
+	private RibbonWindow window;
+	private Ribbon ribbon;
+	private final List<RibbonButton> buttons = new ArrayList<RibbonButton>();
+	/** The application state that decides which buttons are enabled. */
+	private boolean state;
+	
+	@Setup
+	public void setup() {
+		FxPlatform.start();
+		FxPlatform.run(() -> {
+			window = RibbonFixtures.createRibbonWindow(tabCount, 10, 10);
+			ribbon = window.getRibbon();
+			
+			int index = 0;
+			for (RibbonTab tab : ribbon.getTabs()) {
+				for (RibbonGroup group : tab.getGroups()) {
+					for (Node node : group.getNodes()) {
+						RibbonButton button = (RibbonButton) node;
+						buttons.add(button);
+						
+						if ("command".equals(mode)) {
+							boolean even = index % 2 == 0;
+							RibbonCommand command = new RibbonCommand(button.getText(), null);
+							command.setEnabledPredicate(() -> state == even);
+							command.bind(button);
+						}
+						index++;
+					}
+				}
+			}
+			RibbonFixtures.pulse(window);
+		});
+	}
+
+	@Benchmark
+	public boolean changeState() {
+		return FxPlatform.call(() -> {
+			state = !state;
+			if ("command".equals(mode)) {
+				RibbonCommand.invalidateAll();
+			}
+			else {
+				for (int i = 0; i < buttons.size(); i++) {
+					buttons.get(i).setDisable(state != (i % 2 == 0));
+				}
+			}
+			RibbonFixtures.pulse(window);
+			return state;
+		});
+	}
+}
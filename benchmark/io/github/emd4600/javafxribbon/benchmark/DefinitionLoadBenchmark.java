@@ -0,0 +1,87 @@
+package io.github.emd4600.javafxribbon.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.emd4600.javafxribbon.RibbonDefinition;
+import io.github.emd4600.javafxribbon.RibbonLoader;
+import io.github.emd4600.javafxribbon.RibbonWindow;
+import javafx.scene.Scene;
+import javafx.scene.layout.Pane;
+
+/**
+ * Measures the cold start of a ribbon window up to its first layout. The <code>code</code> mode creates every tab
+ * in Java code, the <code>definition</code> mode parses a definition with the same contents and only creates the
+ * controls of the selected tab.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DefinitionLoadBenchmark {
+	
+	@Param({"code", "definition"})
+	public String mode;
+	
+	@Param({"10", "30"})
+	public int tabCount;
+	
+	private byte[] definition;
+	
+	@Setup
+	public void setup() {
+		FxPlatform.start();
+		definition = RibbonFixtures.createDefinition(tabCount, 5, 8).getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public RibbonWindow coldStart() {
+		if ("code".equals(mode)) {
+			return FxPlatform.call(() -> {
+				RibbonWindow window = RibbonFixtures.createRibbonWindow(tabCount, 5, 8);
+				RibbonFixtures.pulse(window);
+				return window;
+			});
+		}
+		
+		RibbonLoader loader = new RibbonLoader();
+		RibbonDefinition parsed;
+		try {
+			// Applications can parse the definition in a background thread
+			parsed = loader.parse(new ByteArrayInputStream(definition), null);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return FxPlatform.call(() -> {
+			RibbonWindow window = new RibbonWindow();
+			window.getRibbon().setContentHeight(115);
+			loader.load(parsed, window.getRibbon());
+			window.setContent(new Pane());
+			new Scene(window, RibbonFixtures.SCENE_WIDTH, RibbonFixtures.SCENE_HEIGHT);
+			RibbonFixtures.pulse(window);
+			return window;
+		});
+	}
+	
+	@Benchmark
+	public RibbonDefinition parse() throws IOException {
+		return new RibbonLoader().parse(new ByteArrayInputStream(definition), null);
+	}
+}
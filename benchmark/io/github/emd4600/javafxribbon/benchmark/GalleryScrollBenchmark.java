@@ -0,0 +1,60 @@
+package io.github.emd4600.javafxribbon.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.emd4600.javafxribbon.RibbonGallery;
+import io.github.emd4600.javafxribbon.skin.GalleryPane;
+import javafx.scene.Parent;
+
+/**
+ * Measures scrolling a gallery one row at a time, followed by the layout of its items pane. Only the
+ * cells of the visible rows exist, so the cost should not depend on the number of items.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GalleryScrollBenchmark {
+	
+	@Param({"100", "1000", "10000"})
+	public int itemCount;
+	
+	private RibbonGallery gallery;
+	private GalleryPane itemsPane;
+	private Parent root;
+	
+	@Setup
+	public void setup() {
+		FxPlatform.start();
+		FxPlatform.run(() -> {
+			gallery = RibbonFixtures.createGalleryWindow(itemCount);
+			root = gallery.getScene().getRoot();
+			itemsPane = RibbonFixtures.findNode(gallery, GalleryPane.class);
+		});
+	}
+
+	@Benchmark
+	public int scrollOneRow() {
+		return FxPlatform.call(() -> {
+			int rowCount = Math.max(1, itemsPane.getTotalRows() - itemsPane.getVisibleRows() + 1);
+			int row = (gallery.getDisplayedRow() + 1) % rowCount;
+			gallery.setDisplayedRow(row);
+			RibbonFixtures.pulse(root);
+			return row;
+		});
+	}
+}
@@ -0,0 +1,114 @@
+package io.github.emd4600.javafxribbon.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.emd4600.javafxribbon.Ribbon;
+import io.github.emd4600.javafxribbon.Ribbon.RibbonState;
+import io.github.emd4600.javafxribbon.RibbonButton;
+import io.github.emd4600.javafxribbon.RibbonCustomMenu;
+import io.github.emd4600.javafxribbon.RibbonWindow;
+import javafx.scene.Node;
+import javafx.scene.layout.VBox;
+
+/**
+ * Measures opening and closing the ribbon dropdown and a custom menu, each followed by the CSS and layout pass.
+ * The <code>reattach</code> mode adds and removes the menu node from the window every time, which is what
+ * custom menus did before the overlay layer; the <code>overlay</code> mode uses the overlay layer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OverlayOpenBenchmark {
+	
+	@State(Scope.Benchmark)
+	public static class WindowState {
+		RibbonWindow window;
+		Ribbon ribbon;
+		
+		@Setup
+		public void setup() {
+			FxPlatform.start();
+			FxPlatform.run(() -> {
+				window = RibbonFixtures.createRibbonWindow(10, 5, 6);
+				ribbon = window.getRibbon();
+				ribbon.setRibbonState(RibbonState.MINIMIZED);
+				RibbonFixtures.pulse(window);
+			});
+		}
+	}
+	
+	@State(Scope.Benchmark)
+	public static class MenuState {
+		@Param({"reattach", "overlay"})
+		public String mode;
+		
+		/** The number of buttons in the custom menu. */
+		@Param({"12"})
+		public int menuItemCount;
+		
+		Node menuNode;
+		
+		@Setup
+		public void setup(WindowState state) {
+			FxPlatform.run(() -> {
+				RibbonCustomMenu menu = new RibbonCustomMenu(state.ribbon);
+				VBox items = (VBox) menu.getNode();
+				for (int i = 0; i < menuItemCount; i++) {
+					items.getChildren().add(new RibbonButton(RibbonFixtures.label(i), null));
+				}
+				menuNode = items;
+			});
+		}
+	}
+
+	@Benchmark
+	public boolean openCustomMenu(WindowState state, MenuState menu) {
+		return FxPlatform.call(() -> {
+			boolean overlay = "overlay".equals(menu.mode);
+			if (overlay) {
+				state.window.showOverlay(menu.menuNode);
+			} else {
+				state.window.getChildren().add(menu.menuNode);
+			}
+			RibbonFixtures.pulse(state.window);
+
+			if (overlay) {
+				state.window.hideOverlay(menu.menuNode);
+			} else {
+				state.window.getChildren().remove(menu.menuNode);
+			}
+			RibbonFixtures.pulse(state.window);
+			return overlay;
+		});
+	}
+
+	/**
+	 * Drops down the minimized ribbon and minimizes it again. Run it on the previous revisions to compare
+	 * with the content being added to and removed from the window every time.
+	 */
+	@Benchmark
+	public RibbonState openDropdown(WindowState state) {
+		return FxPlatform.call(() -> {
+			state.ribbon.setRibbonState(RibbonState.DROPDOWN);
+			RibbonFixtures.pulse(state.window);
+
+			state.ribbon.setRibbonState(RibbonState.MINIMIZED);
+			RibbonFixtures.pulse(state.window);
+			return state.ribbon.getRibbonState();
+		});
+	}
+}
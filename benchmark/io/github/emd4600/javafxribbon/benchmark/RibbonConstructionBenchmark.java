@@ -0,0 +1,56 @@
+package io.github.emd4600.javafxribbon.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.emd4600.javafxribbon.RibbonWindow;
+
+/**
+ * Measures how long it takes to build a ribbon window with its first CSS and layout pass.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RibbonConstructionBenchmark {
+	
+	@Param({"5", "20"})
+	public int tabCount;
+	
+	@Param({"4"})
+	public int groupCount;
+	
+	@Param({"6"})
+	public int buttonsPerGroup;
+	
+	/** Whether the groups of the tabs are only created when they are displayed. */
+	@Param({"false", "true"})
+	public boolean lazyGroups;
+	
+	@Setup
+	public void setup() {
+		FxPlatform.start();
+	}
+
+	@Benchmark
+	public RibbonWindow buildRibbonWindow() {
+		return FxPlatform.call(() -> {
+			RibbonWindow window = RibbonFixtures.createRibbonWindow(tabCount, groupCount, buttonsPerGroup, lazyGroups);
+			RibbonFixtures.pulse(window);
+			return window;
+		});
+	}
+}
@@ -0,0 +1,61 @@
+package io.github.emd4600.javafxribbon.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.emd4600.javafxribbon.Ribbon;
+import io.github.emd4600.javafxribbon.RibbonTab;
+import io.github.emd4600.javafxribbon.RibbonWindow;
+
+/**
+ * Measures showing and hiding a contextual tab. The cost should not grow with the number of tabs,
+ * as only the affected tab header is created or removed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TabHeadersBenchmark {
+	
+	@Param({"10", "30", "100"})
+	public int tabCount;
+	
+	private RibbonWindow window;
+	private Ribbon ribbon;
+	private RibbonTab contextualTab;
+	
+	@Setup
+	public void setup() {
+		FxPlatform.start();
+		FxPlatform.run(() -> {
+			window = RibbonFixtures.createRibbonWindow(tabCount, 1, 1);
+			ribbon = window.getRibbon();
+			contextualTab = RibbonFixtures.createTab(tabCount, 1, 1);
+			RibbonFixtures.pulse(window);
+		});
+	}
+
+	@Benchmark
+	public int toggleContextualTab() {
+		return FxPlatform.call(() -> {
+			ribbon.getTabs().add(contextualTab);
+			RibbonFixtures.pulse(window);
+			ribbon.getTabs().remove(contextualTab);
+			RibbonFixtures.pulse(window);
+			return ribbon.getTabs().size();
+		});
+	}
+}
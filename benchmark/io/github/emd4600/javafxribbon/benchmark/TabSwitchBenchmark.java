@@ -0,0 +1,62 @@
+package io.github.emd4600.javafxribbon.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.emd4600.javafxribbon.Ribbon;
+import io.github.emd4600.javafxribbon.RibbonWindow;
+
+/**
+ * Measures selecting the next tab with the selection model, followed by the CSS and layout pass
+ * that displays its content.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TabSwitchBenchmark {
+	
+	@Param({"20"})
+	public int tabCount;
+	
+	/** The ribbon content cache size, 0 disables it. */
+	@Param({"0", "20"})
+	public int contentCacheSize;
+	
+	private RibbonWindow window;
+	private Ribbon ribbon;
+	
+	@Setup
+	public void setup() {
+		FxPlatform.start();
+		FxPlatform.run(() -> {
+			window = RibbonFixtures.createRibbonWindow(tabCount, 5, 6);
+			ribbon = window.getRibbon();
+			ribbon.setContentCacheSize(contentCacheSize);
+			RibbonFixtures.pulse(window);
+		});
+	}
+
+	@Benchmark
+	public int selectNextTab() {
+		return FxPlatform.call(() -> {
+			int index = (ribbon.getSelectionModel().getSelectedIndex() + 1) % tabCount;
+			ribbon.getSelectionModel().select(index);
+			RibbonFixtures.pulse(window);
+			return index;
+		});
+	}
+}
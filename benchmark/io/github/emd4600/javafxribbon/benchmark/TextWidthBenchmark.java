@@ -0,0 +1,80 @@
+package io.github.emd4600.javafxribbon.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.emd4600.javafxribbon.TextUtils;
+import javafx.scene.text.Font;
+
+/**
+ * Compares cached and uncached text measurement for the words of typical ribbon labels.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextWidthBenchmark {
+	
+	private static final int WORD_COUNT = 128;
+	
+	private String[] words;
+	private Font font;
+	
+	@Setup
+	public void setup() {
+		FxPlatform.start();
+		
+		List<String> allWords = new ArrayList<String>();
+		for (String label : RibbonFixtures.LABELS) {
+			for (String word : label.split(" ")) {
+				allWords.add(word);
+			}
+			allWords.add(" ");
+		}
+		words = new String[WORD_COUNT];
+		for (int i = 0; i < WORD_COUNT; i++) {
+			words[i] = allWords.get(i % allWords.size());
+		}
+		
+		font = FxPlatform.call(() -> Font.getDefault());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(WORD_COUNT)
+	public double cached() {
+		return FxPlatform.call(() -> {
+			double total = 0;
+			for (String word : words) {
+				total += TextUtils.computeTextWidth(font, word, 0.0d);
+			}
+			return total;
+		});
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(WORD_COUNT)
+	public double uncached() {
+		return FxPlatform.call(() -> {
+			double total = 0;
+			for (String word : words) {
+				total += TextUtils.measureTextWidth(font, word, 0.0d);
+			}
+			return total;
+		});
+	}
+}
@@ -20,11 +20,15 @@
 package io.github.emd4600.javafxribbon;
 
 import io.github.emd4600.javafxribbon.skin.RibbonSkin;
+import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.ReadOnlyObjectProperty;
 import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.value.WritableValue;
 import javafx.collections.FXCollections;
@@ -35,6 +39,7 @@ import javafx.css.StyleableDoubleProperty;
 import javafx.css.StyleableProperty;
 import javafx.css.converter.SizeConverter;
 import javafx.scene.AccessibleAttribute;
+import javafx.scene.Node;
 import javafx.scene.control.Control;
 import javafx.scene.control.SingleSelectionModel;
 import javafx.scene.control.Skin;
@@ -51,6 +56,10 @@ public class Ribbon extends Control {
 	
 	public static final double NO_FIXED_HEIGHT = -1.0;
 	
+	public static final int NO_CONTENT_CACHE = 0;
+	
+	public static final double NO_PREWARM = 0.0;
+	
     private static final double DEFAULT_TAB_MIN_WIDTH = 0;
 
     private static final double DEFAULT_TAB_MAX_WIDTH = Double.MAX_VALUE;
@@ -79,6 +88,8 @@ public class Ribbon extends Control {
     	
     	setPrefWidth(Double.MAX_VALUE);
     	
+    	commandUpdater = new RibbonCommandUpdater(this);
+    	
 //    	ribbonStateProperty().addListener((obs, oldValue, newValue) -> {
 //    		System.out.println(newValue.toString());
 //    		
@@ -87,6 +98,17 @@ public class Ribbon extends Control {
     }
     
     
+    private final RibbonCommandUpdater commandUpdater;
+    
+    /**
+     * Evaluates now the out of date {@link RibbonCommand commands} of the controls in the selected tab.
+     * This is done automatically before every pulse, so it is only needed when their state must be
+     * up to date immediately.
+     */
+    public final void updateCommands() {
+    	commandUpdater.update();
+    }
+    
     private ReadOnlyObjectWrapper<RibbonWindow> ribbonWindow;
     
     final void setRibbonWindow(RibbonWindow value) {
@@ -175,6 +197,271 @@ public class Ribbon extends Control {
     	contentHeightProperty().set(value);
     }
     
+    private IntegerProperty contentCacheSize;
+    
+    /**
+     * The maximum number of tabs whose content is kept built and styled after the tab is deselected.
+     * Selecting one of those tabs again just swaps the displayed content, without having to create it and apply 
+     * the CSS again. When more tabs are visited, the least recently used ones are released.
+     * If the value is NO_CONTENT_CACHE (0), the content is created every time a tab is selected.
+     * @return Content cache size property
+     */
+    public final IntegerProperty contentCacheSizeProperty() {
+    	if (contentCacheSize == null) {
+    		contentCacheSize = new SimpleIntegerProperty(this, "contentCacheSize", NO_CONTENT_CACHE);
+    	}
+    	return contentCacheSize;
+    }
+    
+    /**
+     * Gets the maximum number of tabs whose content is kept built after the tab is deselected.
+     * @return Content cache size
+     */
+    public final int getContentCacheSize() {
+    	return contentCacheSize == null ? NO_CONTENT_CACHE : contentCacheSize.get();
+    }
+    
+    /**
+     * Sets the maximum number of tabs whose content is kept built after the tab is deselected.
+     * Use NO_CONTENT_CACHE (0) to disable the cache.
+     * @param value Content cache size
+     */
+    public final void setContentCacheSize(int value) {
+    	contentCacheSizeProperty().set(value);
+    }
+    
+    private DoubleProperty prewarmTimeBudget;
+    
+    /**
+     * The maximum time, in milliseconds, that can be spent on each frame building the content of the tabs
+     * that have not been selected yet. Once the window is shown, the content of those tabs is built and styled
+     * in the background, one frame at a time, so that selecting them for the first time is as fast as selecting
+     * a cached tab. At least one tab is built on each frame, even if it takes longer than the budget.
+     * <p>Pre-warming only works when the content cache is enabled, and never builds more tabs than the cache can hold.
+     * If the value is NO_PREWARM (0), tab content is only built when the tab is selected.</p>
+     * @return Pre-warm time budget property
+     * @see #contentCacheSizeProperty()
+     */
+    public final DoubleProperty prewarmTimeBudgetProperty() {
+    	if (prewarmTimeBudget == null) {
+    		prewarmTimeBudget = new SimpleDoubleProperty(this, "prewarmTimeBudget", NO_PREWARM);
+    	}
+    	return prewarmTimeBudget;
+    }
+    
+    /**
+     * Gets the maximum time, in milliseconds, that can be spent on each frame pre-warming tab content.
+     * @return Pre-warm time budget
+     */
+    public final double getPrewarmTimeBudget() {
+    	return prewarmTimeBudget == null ? NO_PREWARM : prewarmTimeBudget.get();
+    }
+    
+    /**
+     * Sets the maximum time, in milliseconds, that can be spent on each frame pre-warming tab content.
+     * Use NO_PREWARM (0) to disable pre-warming.
+     * @param value Pre-warm time budget
+     */
+    public final void setPrewarmTimeBudget(double value) {
+    	prewarmTimeBudgetProperty().set(value);
+    }
+    
+    private ObjectProperty<RibbonMetrics> metrics;
+    
+    /**
+     * The metrics where the time spent on the expensive ribbon operations is recorded. If the value is null,
+     * which is the default, nothing is recorded.
+     * @return Metrics property
+     * @see RibbonMetrics
+     */
+    public final ObjectProperty<RibbonMetrics> metricsProperty() {
+    	if (metrics == null) {
+    		metrics = new SimpleObjectProperty<RibbonMetrics>(this, "metrics");
+    	}
+    	return metrics;
+    }
+    
+    /**
+     * Gets the metrics where the time spent on the expensive ribbon operations is recorded, or null if disabled.
+     * @return Ribbon metrics
+     */
+    public final RibbonMetrics getMetrics() {
+    	return metrics == null ? null : metrics.get();
+    }
+    
+    /**
+     * Sets the metrics where the time spent on the expensive ribbon operations is recorded.
+     * Use null to disable recording.
+     * @param value Ribbon metrics
+     */
+    public final void setMetrics(RibbonMetrics value) {
+    	metricsProperty().set(value);
+    }
+    
+    private BooleanProperty keyTipsEnabled;
+    
+    /**
+     * <p>Whether the ribbon can be used with the keyboard through keytips. When enabled, pressing and releasing
+     * Alt shows a badge with keys over every tab header; typing them selects the tab and shows the keytips of its
+     * controls, which are activated in the same way. Escape goes back one level.</p>
+     * <p>Keytips are disabled by default, as they take the Alt key from the rest of the scene: the ribbon filters
+     * the key events of the whole scene and consumes the release of a bare Alt, and every key while the keytips are
+     * shown. A {@link javafx.scene.control.MenuBar} in the same scene is no longer focused with Alt, and mnemonics
+     * are not underlined when Alt is pressed alone, although Alt+letter still activates them. Enable them when the
+     * ribbon replaces the menu bar of the window.</p>
+     * <p>Keytips are generated from the texts, but they can be specified with {@link RibbonTab#setKeyTip(String)}
+     * and {@link #setKeyTip(Node, String)}.</p>
+     * @return Keytips enabled property
+     */
+    public final BooleanProperty keyTipsEnabledProperty() {
+    	if (keyTipsEnabled == null) {
+    		keyTipsEnabled = new SimpleBooleanProperty(this, "keyTipsEnabled", false);
+    	}
+    	return keyTipsEnabled;
+    }
+    
+    /**
+     * Gets whether the ribbon can be used with the keyboard through keytips.
+     * @return True if keytips are enabled
+     */
+    public final boolean isKeyTipsEnabled() {
+    	return keyTipsEnabled == null ? false : keyTipsEnabled.get();
+    }
+    
+    /**
+     * Sets whether the ribbon can be used with the keyboard through keytips.
+     * @param value True to enable keytips
+     */
+    public final void setKeyTipsEnabled(boolean value) {
+    	keyTipsEnabledProperty().set(value);
+    }
+    
+    private static final String KEY_TIP_KEY = "ribbon-key-tip";
+    
+    /**
+     * Sets the keys that activate a control of a ribbon group, or the program button, when the keytips are shown.
+     * If it is null, the keytip is generated from the control text. Letters are case insensitive.
+     * @param node The control.
+     * @param value Keytip
+     */
+    public static void setKeyTip(Node node, String value) {
+    	if (value == null) {
+    		node.getProperties().remove(KEY_TIP_KEY);
+    	}
+    	else {
+    		node.getProperties().put(KEY_TIP_KEY, value);
+    	}
+    }
+    
+    /**
+     * Gets the keys that activate a control when the keytips are shown, or null if they are generated from its text.
+     * @param node The control.
+     * @return Keytip
+     */
+    public static String getKeyTip(Node node) {
+    	return node.hasProperties() ? (String) node.getProperties().get(KEY_TIP_KEY) : null;
+    }
+    
+    /**
+     * Returns the ribbon that contains a node, or null if the node is not in a ribbon. Nodes displayed in a
+     * ribbon dropdown are found through the ribbon window. This walks all the parents of the node, so
+     * skins that need it often should keep the result.
+     * @param node A node in the ribbon, such as a button.
+     * @return The ribbon
+     */
+    public static Ribbon getRibbon(Node node) {
+    	for (Node parent = node; parent != null; parent = parent.getParent()) {
+    		if (parent instanceof Ribbon) {
+    			return (Ribbon) parent;
+    		}
+    		else if (parent instanceof RibbonWindow) {
+    			return ((RibbonWindow) parent).getRibbon();
+    		}
+    	}
+    	return null;
+    }
+    
+    private ObjectProperty<RibbonResizePolicy> resizePolicy;
+    
+    /**
+     * The policy that decides the tier of each group of the selected tab when the ribbon is resized, so that
+     * the groups fit in the ribbon width, for example {@link RibbonResizePolicy#REDUCE_FROM_RIGHT}. It is null
+     * by default, so existing ribbons keep their layout: the tiers are never changed automatically and can be set
+     * manually with {@link RibbonGroup#setTier(RibbonGroup.Tier)}. Once a policy is set, every group can be reduced
+     * through its {@link RibbonGroup#getTiers() tiers}, which by default collapse it into a single button.
+     * @return Resize policy property
+     * @see RibbonResizePolicy#REDUCE_FROM_RIGHT
+     */
+    public final ObjectProperty<RibbonResizePolicy> resizePolicyProperty() {
+    	if (resizePolicy == null) {
+    		resizePolicy = new SimpleObjectProperty<RibbonResizePolicy>(this, "resizePolicy");
+    	}
+    	return resizePolicy;
+    }
+    
+    /**
+     * Gets the policy that decides the tier of each group when the ribbon is resized, or null if disabled.
+     * @return Resize policy
+     */
+    public final RibbonResizePolicy getResizePolicy() {
+    	return resizePolicy == null ? null : resizePolicy.get();
+    }
+    
+    /**
+     * Sets the policy that decides the tier of each group when the ribbon is resized.
+     * Use null to disable automatic resizing.
+     * @param value Resize policy
+     */
+    public final void setResizePolicy(RibbonResizePolicy value) {
+    	resizePolicyProperty().set(value);
+    }
+    
+    private BooleanProperty searchBoxVisible;
+    
+    /**
+     * Whether a command search box ("Tell me what you want to do") is shown next to the tab headers. It finds
+     * the controls of every tab by their text or tooltip, including the tabs whose groups have not been created
+     * yet if they declare {@link RibbonTab#getSearchEntries() search entries}. It is hidden by default.
+     * @return Search box visible property
+     * @see #getSearchIndex()
+     */
+    public final BooleanProperty searchBoxVisibleProperty() {
+    	if (searchBoxVisible == null) {
+    		searchBoxVisible = new SimpleBooleanProperty(this, "searchBoxVisible", false);
+    	}
+    	return searchBoxVisible;
+    }
+    
+    /**
+     * Gets whether the command search box is shown next to the tab headers.
+     * @return True if the search box is visible
+     */
+    public final boolean isSearchBoxVisible() {
+    	return searchBoxVisible == null ? false : searchBoxVisible.get();
+    }
+    
+    /**
+     * Sets whether the command search box is shown next to the tab headers.
+     * @param value True to show the search box
+     */
+    public final void setSearchBoxVisible(boolean value) {
+    	searchBoxVisibleProperty().set(value);
+    }
+    
+    private RibbonSearchIndex searchIndex;
+    
+    /**
+     * Gets the index of the commands of this ribbon, used by the command search box. It is created the first time
+     * this method is called, and from then on it is kept updated with the tabs, groups and controls of the ribbon.
+     * @return Search index
+     */
+    public final RibbonSearchIndex getSearchIndex() {
+    	if (searchIndex == null) {
+    		searchIndex = new RibbonSearchIndex(this);
+    	}
+    	return searchIndex;
+    }
+    
     
     private ObjectProperty<SingleSelectionModel<RibbonTab>> selectionModel = new SimpleObjectProperty<SingleSelectionModel<RibbonTab>>(this, "selectionModel");
 
@@ -48,6 +48,15 @@ public class RibbonButton extends Button {
 		setPadding(new Insets(0));
 	}
 	
+	/**
+	 * Creates a button that displays and executes the command.
+	 * @param command The command, see {@link RibbonCommand#bind(javafx.scene.control.ButtonBase)}.
+	 */
+	public RibbonButton(RibbonCommand command) {
+		this(null, null);
+		command.bind(this);
+	}
+	
 	 /** {@inheritDoc} */
     @Override protected Skin<?> createDefaultSkin() {
         return new RibbonButtonSkin(this);
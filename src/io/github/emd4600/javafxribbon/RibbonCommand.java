@@ -0,0 +1,427 @@
+package io.github.emd4600.javafxribbon;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import javafx.application.Platform;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import javafx.event.ActionEvent;
+import javafx.event.EventHandler;
+import javafx.scene.Node;
+import javafx.scene.control.ButtonBase;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.Toggle;
+
+/**
+ * <p>An action of the application that can be executed from one or more ribbon controls. The controls bound with
+ * {@link #bind(ButtonBase)}, and the menu items and gallery items bound with {@link #bind(MenuItem)} and
+ * {@link #bind(RibbonGalleryItem)}, take the text, graphic and action of the command, and are disabled (or selected,
+ * if they are toggles) according to its predicates.</p>
+ * <p>The predicates are not evaluated when the state of the application changes: {@link #invalidate()} and
+ * {@link #invalidateAll()} only mark the commands as out of date. Before the next pulse, every ribbon evaluates the
+ * out of date commands of the controls in the groups of its selected tab (including the items of its menu buttons and
+ * galleries), once per command; the commands of the other tabs are evaluated when their tab is selected. This way, invalidating hundreds of commands on every change costs
+ * the same as invalidating one, and only the controls whose state really changes are updated.</p>
+ * <p>Commands must only be used in the JavaFX application thread.</p>
+ */
+public class RibbonCommand {
+
+	private static final String COMMAND_KEY = "ribbon-command";
+
+	/** Increased when all commands are invalidated, the commands evaluated in an older generation are out of date. */
+	private static long generation;
+	/** Increased on every invalidation, so the ribbons know they have to look for out of date commands. */
+	private static long modificationCount;
+	/** Requests the pulse in which the ribbons evaluate the commands; the tests replace it, as they do not start JavaFX. */
+	static Runnable pulseRequester = Platform::requestNextPulse;
+
+	/** The bound buttons, menu items and gallery items. */
+	private final List<Object> controls = new ArrayList<Object>(1);
+	/** The generation in which the predicates were last evaluated, or -1 if the command has been invalidated. */
+	private long evaluatedGeneration = -1;
+
+	public RibbonCommand() {
+		this(null, null);
+	}
+
+	public RibbonCommand(String text, EventHandler<ActionEvent> action) {
+		setText(text);
+		setOnAction(action);
+	}
+
+	private final StringProperty text = new SimpleStringProperty(this, "text");
+
+	/**
+	 * The text displayed by the controls of this command.
+	 * @return Text property
+	 */
+	public final StringProperty textProperty() {
+		return text;
+	}
+
+	public final String getText() {
+		return text.get();
+	}
+
+	public final void setText(String value) {
+		text.set(value);
+	}
+
+	private ObjectProperty<Supplier<Node>> graphicFactory;
+
+	/**
+	 * Creates the graphic of every control bound to this command, as a node cannot be displayed in more than
+	 * one place. The graphic of a control is only set when it is bound.
+	 * @return Graphic factory property
+	 */
+	public final ObjectProperty<Supplier<Node>> graphicFactoryProperty() {
+		if (graphicFactory == null) {
+			graphicFactory = new SimpleObjectProperty<Supplier<Node>>(this, "graphicFactory");
+		}
+		return graphicFactory;
+	}
+
+	public final Supplier<Node> getGraphicFactory() {
+		return graphicFactory == null ? null : graphicFactory.get();
+	}
+
+	public final void setGraphicFactory(Supplier<Node> value) {
+		graphicFactoryProperty().set(value);
+	}
+
+	private ObjectProperty<EventHandler<ActionEvent>> onAction;
+
+	/**
+	 * The action executed when one of the controls of this command is fired, if the command is enabled.
+	 * @return Action property
+	 */
+	public final ObjectProperty<EventHandler<ActionEvent>> onActionProperty() {
+		if (onAction == null) {
+			onAction = new SimpleObjectProperty<EventHandler<ActionEvent>>(this, "onAction");
+		}
+		return onAction;
+	}
+
+	public final EventHandler<ActionEvent> getOnAction() {
+		return onAction == null ? null : onAction.get();
+	}
+
+	public final void setOnAction(EventHandler<ActionEvent> value) {
+		onActionProperty().set(value);
+	}
+
+	private ObjectProperty<BooleanSupplier> enabledPredicate;
+
+	/**
+	 * Decides whether the command can be executed. If it is null, the command is always enabled.
+	 * Setting a new predicate invalidates the command.
+	 * @return Enabled predicate property
+	 */
+	public final ObjectProperty<BooleanSupplier> enabledPredicateProperty() {
+		if (enabledPredicate == null) {
+			enabledPredicate = new SimpleObjectProperty<BooleanSupplier>(this, "enabledPredicate") {
+				@Override protected void invalidated() {
+					invalidate();
+				}
+			};
+		}
+		return enabledPredicate;
+	}
+
+	public final BooleanSupplier getEnabledPredicate() {
+		return enabledPredicate == null ? null : enabledPredicate.get();
+	}
+
+	public final void setEnabledPredicate(BooleanSupplier value) {
+		enabledPredicateProperty().set(value);
+	}
+
+	private ObjectProperty<BooleanSupplier> selectedPredicate;
+
+	/**
+	 * Decides whether the bound toggle controls are selected. If it is null, the command never changes their selection.
+	 * Setting a new predicate invalidates the command.
+	 * @return Selected predicate property
+	 */
+	public final ObjectProperty<BooleanSupplier> selectedPredicateProperty() {
+		if (selectedPredicate == null) {
+			selectedPredicate = new SimpleObjectProperty<BooleanSupplier>(this, "selectedPredicate") {
+				@Override protected void invalidated() {
+					invalidate();
+				}
+			};
+		}
+		return selectedPredicate;
+	}
+
+	public final BooleanSupplier getSelectedPredicate() {
+		return selectedPredicate == null ? null : selectedPredicate.get();
+	}
+
+	public final void setSelectedPredicate(BooleanSupplier value) {
+		selectedPredicateProperty().set(value);
+	}
+
+	private final ReadOnlyBooleanWrapper disabled = new ReadOnlyBooleanWrapper(this, "disabled", false) {
+		@Override protected void invalidated() {
+			for (Object control : controls) {
+				setDisable(control, get());
+			}
+		}
+	};
+
+	/**
+	 * Whether the enabled predicate was false the last time it was evaluated.
+	 * @return Disabled property
+	 */
+	public final ReadOnlyBooleanProperty disabledProperty() {
+		return disabled.getReadOnlyProperty();
+	}
+
+	public final boolean isDisabled() {
+		return disabled.get();
+	}
+
+	private final ReadOnlyBooleanWrapper selected = new ReadOnlyBooleanWrapper(this, "selected", false);
+
+	/**
+	 * Whether the selected predicate was true the last time it was evaluated.
+	 * @return Selected property
+	 */
+	public final ReadOnlyBooleanProperty selectedProperty() {
+		return selected.getReadOnlyProperty();
+	}
+
+	public final boolean isSelected() {
+		return selected.get();
+	}
+
+	/**
+	 * Marks the state of this command as out of date, its predicates will be evaluated before the next pulse
+	 * if any of its controls is in the selected tab of a ribbon.
+	 */
+	public final void invalidate() {
+		if (evaluatedGeneration != -1) {
+			evaluatedGeneration = -1;
+			requestUpdate();
+		}
+	}
+
+	/**
+	 * Marks the state of all commands as out of date. This is usually called when the state of the application
+	 * changes, for example when the user selects something else in the document.
+	 */
+	public static void invalidateAll() {
+		generation++;
+		requestUpdate();
+	}
+
+	private static void requestUpdate() {
+		modificationCount++;
+		pulseRequester.run();
+	}
+
+	static long getModificationCount() {
+		return modificationCount;
+	}
+
+	/**
+	 * Evaluates the predicates if the command is out of date. This is called automatically by the ribbon for the
+	 * commands of its selected tab.
+	 */
+	public final void update() {
+		if (evaluatedGeneration == generation) return;
+		evaluatedGeneration = generation;
+
+		BooleanSupplier enabledPredicate = getEnabledPredicate();
+		disabled.set(enabledPredicate != null && !enabledPredicate.getAsBoolean());
+
+		BooleanSupplier selectedPredicate = getSelectedPredicate();
+		if (selectedPredicate != null) {
+			boolean value = selectedPredicate.getAsBoolean();
+			selected.set(value);
+			// Toggles also change their selection when they are fired, so check them even if the value is the same
+			for (Object control : controls) {
+				if (control instanceof Toggle && ((Toggle) control).isSelected() != value) {
+					((Toggle) control).setSelected(value);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Executes the action of the command if it is enabled. The predicates are evaluated first if the command is
+	 * out of date, and the command is invalidated afterwards, as the action usually changes its state.
+	 * @param event The event that triggered the action, or null.
+	 */
+	public void execute(ActionEvent event) {
+		update();
+		if (isDisabled()) return;
+
+		EventHandler<ActionEvent> action = getOnAction();
+		if (action != null) {
+			action.handle(event == null ? new ActionEvent(this, null) : event);
+		}
+		invalidate();
+	}
+
+	/**
+	 * Makes the control display this command: its text is bound to the command text, its graphic is created
+	 * with the graphic factory, firing it executes the command, and it is disabled or selected according to
+	 * the state of the command. The command is invalidated, so its state is updated once the control is displayed.
+	 * @param control The control, it must not be bound to another command.
+	 */
+	public void bind(ButtonBase control) {
+		if (getCommand(control) != null) {
+			throw new IllegalStateException("The control is already bound to a command");
+		}
+		control.getProperties().put(COMMAND_KEY, this);
+
+		control.textProperty().bind(text);
+		Supplier<Node> graphicFactory = getGraphicFactory();
+		if (graphicFactory != null) {
+			control.setGraphic(graphicFactory.get());
+		}
+		control.setOnAction(this::execute);
+		add(control);
+	}
+
+	/**
+	 * Makes the menu item display this command, like {@link #bind(ButtonBase)}. The state of the command is
+	 * updated with the other commands of the tab that contains the menu.
+	 * @param item The menu item, it must not be bound to another command.
+	 */
+	public void bind(MenuItem item) {
+		if (getCommand(item) != null) {
+			throw new IllegalStateException("The menu item is already bound to a command");
+		}
+		item.getProperties().put(COMMAND_KEY, this);
+
+		item.textProperty().bind(text);
+		Supplier<Node> graphicFactory = getGraphicFactory();
+		if (graphicFactory != null) {
+			item.setGraphic(graphicFactory.get());
+		}
+		item.setOnAction(this::execute);
+		add(item);
+	}
+
+	/**
+	 * Makes the gallery item display this command, like {@link #bind(ButtonBase)}. Clicking the item executes
+	 * the command instead of the {@link RibbonGallery#getOnItemAction() item action} of the gallery.
+	 * @param item The gallery item, it must not be bound to another command.
+	 */
+	public void bind(RibbonGalleryItem item) {
+		if (item.command != null) {
+			throw new IllegalStateException("The gallery item is already bound to a command");
+		}
+		item.command = this;
+
+		item.textProperty().bind(text);
+		Supplier<Node> graphicFactory = getGraphicFactory();
+		if (graphicFactory != null) {
+			item.setGraphic(graphicFactory.get());
+		}
+		add(item);
+	}
+
+	private void add(Object control) {
+		controls.add(control);
+
+		setDisable(control, isDisabled());
+		if (control instanceof Toggle && getSelectedPredicate() != null) {
+			((Toggle) control).setSelected(isSelected());
+		}
+
+		// The control might be displayed already
+		evaluatedGeneration = -1;
+		requestUpdate();
+	}
+
+	private static void setDisable(Object control, boolean value) {
+		if (control instanceof ButtonBase) {
+			((ButtonBase) control).setDisable(value);
+		}
+		else if (control instanceof MenuItem) {
+			((MenuItem) control).setDisable(value);
+		}
+		else {
+			((RibbonGalleryItem) control).setDisable(value);
+		}
+	}
+
+	/**
+	 * Removes the control from this command. It keeps its current text, graphic and state, but it no longer executes the command.
+	 * @param control A control bound to this command.
+	 */
+	public void unbind(ButtonBase control) {
+		if (getCommand(control) == this) {
+			control.getProperties().remove(COMMAND_KEY);
+			controls.remove(control);
+
+			control.textProperty().unbind();
+			control.setOnAction(null);
+		}
+	}
+
+	/**
+	 * Removes the menu item from this command, like {@link #unbind(ButtonBase)}.
+	 * @param item A menu item bound to this command.
+	 */
+	public void unbind(MenuItem item) {
+		if (getCommand(item) == this) {
+			item.getProperties().remove(COMMAND_KEY);
+			controls.remove(item);
+
+			item.textProperty().unbind();
+			item.setOnAction(null);
+		}
+	}
+
+	/**
+	 * Removes the gallery item from this command, like {@link #unbind(ButtonBase)}.
+	 * @param item A gallery item bound to this command.
+	 */
+	public void unbind(RibbonGalleryItem item) {
+		if (item.command == this) {
+			item.command = null;
+			controls.remove(item);
+
+			item.textProperty().unbind();
+		}
+	}
+
+	/**
+	 * Gets the command bound to a control, if any.
+	 * @param node The control.
+	 * @return Command, or null
+	 */
+	public static RibbonCommand getCommand(Node node) {
+		return node.hasProperties() ? (RibbonCommand) node.getProperties().get(COMMAND_KEY) : null;
+	}
+
+	/**
+	 * Gets the command bound to a menu item, if any.
+	 * @param item The menu item.
+	 * @return Command, or null
+	 */
+	public static RibbonCommand getCommand(MenuItem item) {
+		return (RibbonCommand) item.getProperties().get(COMMAND_KEY);
+	}
+
+	/**
+	 * Gets the command bound to a gallery item, if any.
+	 * @param item The gallery item.
+	 * @return Command, or null
+	 */
+	public static RibbonCommand getCommand(RibbonGalleryItem item) {
+		return item.command;
+	}
+}
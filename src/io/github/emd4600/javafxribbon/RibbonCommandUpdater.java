@@ -0,0 +1,111 @@
+package io.github.emd4600.javafxribbon;
+
+import java.util.List;
+
+import io.github.emd4600.javafxribbon.Ribbon.RibbonState;
+import io.github.emd4600.javafxribbon.RibbonMetrics.Operation;
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.control.Menu;
+import javafx.scene.control.MenuButton;
+import javafx.scene.control.MenuItem;
+
+/**
+ * Evaluates the out of date {@link RibbonCommand commands} of the selected tab of a ribbon before every pulse.
+ * The check is constant time when no command has been invalidated and the selected tab has not changed; otherwise,
+ * the controls of the selected tab, and the items of its menu buttons and galleries, are visited and each out of
+ * date command is evaluated once.
+ */
+final class RibbonCommandUpdater {
+	
+	private final Ribbon ribbon;
+	private final Runnable pulseListener = this::pulse;
+	private Scene scene;
+	
+	/** The command modification count when the selected tab was last updated. */
+	private long updatedModificationCount = -1;
+	/** Whether the selected tab or the ribbon state have changed, so the displayed commands might be others. */
+	private boolean displayChanged = true;
+	
+	RibbonCommandUpdater(Ribbon ribbon) {
+		this.ribbon = ribbon;
+		
+		ribbon.sceneProperty().addListener((obs, oldValue, newValue) -> setScene(newValue));
+		setScene(ribbon.getScene());
+		
+		// Hidden tabs catch up when they are displayed
+		ribbon.getSelectionModel().selectedItemProperty().addListener((obs, oldValue, newValue) -> requestUpdate());
+		ribbon.ribbonStateProperty().addListener((obs, oldValue, newValue) -> requestUpdate());
+	}
+	
+	private void setScene(Scene value) {
+		if (scene != null) {
+			scene.removePreLayoutPulseListener(pulseListener);
+		}
+		scene = value;
+		if (scene != null) {
+			scene.addPreLayoutPulseListener(pulseListener);
+			requestUpdate();
+		}
+	}
+	
+	private void requestUpdate() {
+		displayChanged = true;
+		Platform.requestNextPulse();
+	}
+	
+	private void pulse() {
+		if (displayChanged || updatedModificationCount != RibbonCommand.getModificationCount()) {
+			update();
+		}
+	}
+	
+	/**
+	 * Evaluates the out of date commands of the controls and items of the selected tab, unless the ribbon is minimized.
+	 */
+	void update() {
+		displayChanged = false;
+		updatedModificationCount = RibbonCommand.getModificationCount();
+		
+		RibbonTab tab = ribbon.getSelectionModel().getSelectedItem();
+		if (tab == null || ribbon.getRibbonState() == RibbonState.MINIMIZED) return;
+		
+		RibbonMetrics metrics = ribbon.getMetrics();
+		long start = metrics == null ? 0 : System.nanoTime();
+		
+		for (RibbonGroup group : tab.getGroups()) {
+			for (Node node : group.getNodes()) {
+				update(RibbonCommand.getCommand(node));
+				
+				if (node instanceof MenuButton) {
+					updateMenuItems(((MenuButton) node).getItems());
+				}
+				else if (node instanceof RibbonGallery) {
+					for (RibbonGalleryItem item : ((RibbonGallery) node).getItems()) {
+						update(RibbonCommand.getCommand(item));
+					}
+				}
+			}
+		}
+		
+		if (metrics != null) {
+			metrics.record(Operation.UPDATE_COMMANDS, System.nanoTime() - start);
+		}
+	}
+	
+	private static void updateMenuItems(List<MenuItem> items) {
+		for (MenuItem item : items) {
+			update(RibbonCommand.getCommand(item));
+			if (item instanceof Menu) {
+				updateMenuItems(((Menu) item).getItems());
+			}
+		}
+	}
+	
+	private static void update(RibbonCommand command) {
+		if (command != null) {
+			command.update();
+		}
+	}
+}
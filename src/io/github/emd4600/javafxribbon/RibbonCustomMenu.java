@@ -58,10 +58,13 @@ public class RibbonCustomMenu extends RibbonMenu {
 		return node;
 	}
 
+	/**
+	 * Shows the node in the overlay layer of the ribbon window. The node stays in the layer after the menu 
+	 * is hidden, so showing it again is cheap.
+	 */
 	@Override
 	public void show(Node caller, double screenX, double screenY) {
 		
-		ribbon.getRibbonWindow().getChildren().add(node);
 		StackPane.setAlignment(node, Pos.TOP_LEFT);
 		
 		Point2D coords = caller.screenToLocal(screenX, screenY);
@@ -69,16 +72,29 @@ public class RibbonCustomMenu extends RibbonMenu {
 		node.setTranslateX(coords.getX());
 		node.setTranslateY(coords.getY());
 		
+		ribbon.getRibbonWindow().showOverlay(node);
+		
 		isShowing = true;
 	}
 
 	@Override
 	public void hide() {
 		if (ribbon != null && node != null) {
-			ribbon.getRibbonWindow().getChildren().remove(node);
+			ribbon.getRibbonWindow().hideOverlay(node);
 		}
 		isShowing = false;
 	}
+	
+	/**
+	 * Hides the menu and removes its node from the overlay layer of the ribbon window. Use it when the menu
+	 * is no longer going to be used.
+	 */
+	public void dispose() {
+		hide();
+		if (ribbon != null && node != null) {
+			ribbon.getRibbonWindow().removeOverlay(node);
+		}
+	}
 
 	@Override
 	public boolean isShowing() {
@@ -0,0 +1,194 @@
+package io.github.emd4600.javafxribbon;
+
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>The contents of a ribbon read from a definition file by {@link RibbonLoader}: its tabs, groups, buttons, menus
+ * and galleries. It is a compact tree of {@link Element elements} that only keeps their names and attributes,
+ * so a large ribbon can be kept in memory while only the tabs that are displayed are turned into controls.</p>
+ * <p>A definition looks like this:</p>
+ * <pre>
+ * &lt;ribbon&gt;
+ *   &lt;tab text="Home" keyTip="H"&gt;
+ *     &lt;group text="Clipboard"&gt;
+ *       &lt;button text="Paste" icon="icons/paste.png" command="paste" tooltip="Paste the clipboard contents"/&gt;
+ *       &lt;menuButton text="Paste Special"&gt;
+ *         &lt;item text="Keep Text Only" command="pasteText"/&gt;
+ *         &lt;separator/&gt;
+ *         &lt;item text="Paste Link" command="pasteLink"/&gt;
+ *       &lt;/menuButton&gt;
+ *     &lt;/group&gt;
+ *     &lt;group text="Styles"&gt;
+ *       &lt;gallery command="applyStyle" prefWidth="300"&gt;
+ *         &lt;item text="Normal" description="The default paragraph style"/&gt;
+ *       &lt;/gallery&gt;
+ *     &lt;/group&gt;
+ *   &lt;/tab&gt;
+ * &lt;/ribbon&gt;
+ * </pre>
+ * <p>Icons are relative to the URL of the definition. Commands are found by their id with the function given
+ * to the loader. Buttons, menu items and gallery items with a command display the text of the command, if it has
+ * one, instead of their <code>text</code> attribute. A gallery item with its own command executes it instead of
+ * the command of the gallery. Menu buttons cannot have a command, as they only open their menu; the loader
+ * rejects definitions where they have one.</p>
+ */
+public final class RibbonDefinition {
+
+	/**
+	 * The kinds of elements of a definition, with the name of their XML element.
+	 */
+	public static enum Kind {
+		RIBBON("ribbon"),
+		TAB("tab"),
+		GROUP("group"),
+		BUTTON("button"),
+		MENU_BUTTON("menuButton"),
+		GALLERY("gallery"),
+		/** An item of a menu button or of a gallery. */
+		ITEM("item"),
+		/** A separator between the items of a menu button. */
+		SEPARATOR("separator");
+
+		private final String elementName;
+
+		private Kind(String elementName) {
+			this.elementName = elementName;
+		}
+
+		/**
+		 * Gets the name of the XML element of this kind.
+		 * @return Element name
+		 */
+		public String getElementName() {
+			return elementName;
+		}
+
+		/**
+		 * Whether elements of this kind can contain elements of the other kind.
+		 */
+		boolean canContain(Kind kind) {
+			switch (this) {
+			case RIBBON: return kind == TAB;
+			case TAB: return kind == GROUP;
+			case GROUP: return kind == BUTTON || kind == MENU_BUTTON || kind == GALLERY;
+			case MENU_BUTTON: return kind == ITEM || kind == SEPARATOR;
+			case GALLERY: return kind == ITEM;
+			default: return false;
+			}
+		}
+
+		static Kind fromElementName(String name) {
+			for (Kind kind : values()) {
+				if (kind.elementName.equals(name)) {
+					return kind;
+				}
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * An element of the definition. Attributes are kept as a flat array of name and value pairs, and children
+	 * as an array, both trimmed to their size.
+	 */
+	public static final class Element {
+		private static final String[] NO_ATTRIBUTES = new String[0];
+		private static final Element[] NO_CHILDREN = new Element[0];
+
+		private final Kind kind;
+		private final String[] attributes;
+		private final Element[] children;
+
+		Element(Kind kind, String[] attributes, Element[] children) {
+			this.kind = kind;
+			this.attributes = attributes.length == 0 ? NO_ATTRIBUTES : attributes;
+			this.children = children.length == 0 ? NO_CHILDREN : children;
+		}
+
+		/**
+		 * Gets the kind of the element.
+		 * @return Kind
+		 */
+		public Kind getKind() {
+			return kind;
+		}
+
+		/**
+		 * Gets the value of an attribute of the element.
+		 * @param name The name of the attribute.
+		 * @return The value, or null if the element does not have it.
+		 */
+		public String getAttribute(String name) {
+			for (int i = 0; i < attributes.length; i += 2) {
+				if (attributes[i].equals(name)) {
+					return attributes[i + 1];
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Gets the elements contained in this one.
+		 * @return An unmodifiable list of the children
+		 */
+		public List<Element> getChildren() {
+			return children.length == 0 ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(children));
+		}
+
+		Element[] getChildrenArray() {
+			return children;
+		}
+
+		/**
+		 * Counts this element and all its descendants.
+		 */
+		int countElements() {
+			int count = 1;
+			for (Element child : children) {
+				count += child.countElements();
+			}
+			return count;
+		}
+
+		@Override
+		public String toString() {
+			return kind.getElementName() + Arrays.toString(attributes);
+		}
+	}
+
+	private final Element root;
+	private final URL baseURL;
+
+	RibbonDefinition(Element root, URL baseURL) {
+		this.root = root;
+		this.baseURL = baseURL;
+	}
+
+	/**
+	 * Gets the tab elements of the definition.
+	 * @return Tabs
+	 */
+	public List<Element> getTabs() {
+		return root.getChildren();
+	}
+
+	/**
+	 * Gets the URL icons are relative to, usually the URL of the definition file. It is null if the definition
+	 * was read from a stream without a base URL; then, icons must be absolute URLs.
+	 * @return Base URL
+	 */
+	public URL getBaseURL() {
+		return baseURL;
+	}
+
+	/**
+	 * Counts the elements of the definition, including the root ribbon element.
+	 * @return Element count
+	 */
+	public int getElementCount() {
+		return root.countElements();
+	}
+}
@@ -1,18 +1,24 @@
 package io.github.emd4600.javafxribbon;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Consumer;
 
 import io.github.emd4600.javafxribbon.skin.RibbonGallerySkin;
 import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.scene.control.Control;
 import javafx.scene.control.Skin;
+import javafx.util.Callback;
+import javafx.util.Duration;
 
 public class RibbonGallery extends Control {
 
@@ -20,12 +26,18 @@ public class RibbonGallery extends Control {
 	
 	public static final String DEFAULT_STYLE_CLASS = "ribbon-gallery";
 	
+	public static final double NO_FIXED_TILE_SIZE = -1.0;
+	
 	private final ObjectProperty<GalleryItemDisplay> displayPriority = new SimpleObjectProperty<>(GalleryItemDisplay.TEXT_PRIORITY);
 	private final Ribbon ribbon;
 	private final ObservableList<RibbonGalleryItem> items = FXCollections.observableArrayList();
 	private final IntegerProperty displayedRow = new SimpleIntegerProperty(0);
 	private final BooleanProperty showingPopup = new SimpleBooleanProperty(false);
 	private final IntegerProperty columnCount = new SimpleIntegerProperty(5);
+	private final ObjectProperty<Callback<RibbonGallery, RibbonGalleryCell>> cellFactory = new SimpleObjectProperty<>();
+	private final DoubleProperty fixedTileWidth = new SimpleDoubleProperty(NO_FIXED_TILE_SIZE);
+	private final DoubleProperty fixedTileHeight = new SimpleDoubleProperty(NO_FIXED_TILE_SIZE);
+	private final ObjectProperty<Duration> popupReleaseDelay = new SimpleObjectProperty<>(Duration.seconds(30));
 	
 	private Consumer<RibbonGalleryItem> onItemAction;
 	
@@ -34,6 +46,8 @@ public class RibbonGallery extends Control {
 		getStyleClass().add(DEFAULT_STYLE_CLASS);
 		
 		this.ribbon = ribbon;
+		
+		displayedRow.addListener((obs, oldValue, newValue) -> RibbonPulseProfiler.markTrigger(ribbon, RibbonPulseProfiler.Trigger.GALLERY_SCROLL));
 	}
 	
 	public Ribbon getRibbon() {
@@ -52,6 +66,18 @@ public class RibbonGallery extends Control {
 		return items;
 	}
 	
+	/**
+	 * Applies many changes to the gallery items at once. The changes are made on a copy of the items that then
+	 * replaces the gallery items in a single change, so the gallery is only updated and measured once instead
+	 * of once per modification.
+	 * @param updater A function that modifies the given list of items.
+	 */
+	public final void updateItems(Consumer<List<RibbonGalleryItem>> updater) {
+		List<RibbonGalleryItem> copy = new ArrayList<>(items);
+		updater.accept(copy);
+		items.setAll(copy);
+	}
+	
 	public final ObjectProperty<GalleryItemDisplay> displayPriorityProperty() {
 		return displayPriority;
 	}
@@ -100,6 +126,76 @@ public class RibbonGallery extends Control {
 		columnCount.set(value);
 	}
 	
+	/**
+	 * The factory used to create the cells that display the gallery items. Cells are reused to display different
+	 * items, so only a few of them are created regardless of the number of items. If it is null, 
+	 * {@link RibbonGalleryCell} is used.
+	 * @return Cell factory property
+	 */
+	public final ObjectProperty<Callback<RibbonGallery, RibbonGalleryCell>> cellFactoryProperty() {
+		return cellFactory;
+	}
+	
+	public final Callback<RibbonGallery, RibbonGalleryCell> getCellFactory() {
+		return cellFactory.get();
+	}
+	
+	public final void setCellFactory(Callback<RibbonGallery, RibbonGalleryCell> value) {
+		cellFactory.set(value);
+	}
+	
+	/**
+	 * An optional fixed width for the item cells. If the value is NO_FIXED_TILE_SIZE (-1), the width is the
+	 * maximum preferred width of all the items, which requires measuring every item when they change.
+	 * @return Fixed tile width property
+	 */
+	public final DoubleProperty fixedTileWidthProperty() {
+		return fixedTileWidth;
+	}
+	
+	public final double getFixedTileWidth() {
+		return fixedTileWidth.get();
+	}
+	
+	public final void setFixedTileWidth(double value) {
+		fixedTileWidth.set(value);
+	}
+	
+	/**
+	 * An optional fixed height for the item cells. If the value is NO_FIXED_TILE_SIZE (-1), the height is the
+	 * maximum preferred height of all the items, which requires measuring every item when they change.
+	 * @return Fixed tile height property
+	 */
+	public final DoubleProperty fixedTileHeightProperty() {
+		return fixedTileHeight;
+	}
+	
+	public final double getFixedTileHeight() {
+		return fixedTileHeight.get();
+	}
+	
+	public final void setFixedTileHeight(double value) {
+		fixedTileHeight.set(value);
+	}
+	
+	/**
+	 * The content of the expanded popup is only created the first time it is shown. This is the time
+	 * the popup must stay hidden before its content is released; if it is {@link Duration#INDEFINITE},
+	 * the content is kept until the gallery is removed.
+	 * @return Popup release delay property
+	 */
+	public final ObjectProperty<Duration> popupReleaseDelayProperty() {
+		return popupReleaseDelay;
+	}
+	
+	public final Duration getPopupReleaseDelay() {
+		return popupReleaseDelay.get();
+	}
+	
+	public final void setPopupReleaseDelay(Duration value) {
+		popupReleaseDelay.set(value);
+	}
+	
 	/** {@inheritDoc} */
     @Override protected Skin<?> createDefaultSkin() {
         return new RibbonGallerySkin(this);
@@ -0,0 +1,138 @@
+package io.github.emd4600.javafxribbon;
+
+import io.github.emd4600.javafxribbon.RibbonGallery.GalleryItemDisplay;
+import javafx.geometry.Pos;
+import javafx.scene.control.Button;
+import javafx.scene.control.ContentDisplay;
+import javafx.scene.control.Tooltip;
+import javafx.scene.text.TextAlignment;
+
+/**
+ * <p>The button used to display a {@link RibbonGalleryItem} inside a {@link RibbonGallery}.</p>
+ * <p>Galleries only create cells for the items that are visible, and reuse them when the displayed items
+ * change: a cell can display many different items during its lifetime. Every time the displayed item changes,
+ * {@link #updateItem(RibbonGalleryItem, boolean)} is called. Custom cells can be provided with
+ * {@link RibbonGallery#setCellFactory(javafx.util.Callback)}.</p>
+ */
+public class RibbonGalleryCell extends Button {
+
+	public static final String DEFAULT_STYLE_CLASS = "gallery-item";
+
+	private RibbonGallery gallery;
+	private RibbonGalleryItem item;
+	private int index = -1;
+
+	private Tooltip tooltip;
+
+	public RibbonGalleryCell() {
+		super();
+		getStyleClass().add(DEFAULT_STYLE_CLASS);
+
+		setMinWidth(USE_PREF_SIZE);
+		setTextAlignment(TextAlignment.LEFT);
+		setAlignment(Pos.CENTER_LEFT);
+	}
+
+	/**
+	 * Gets the gallery this cell belongs to.
+	 * @return Ribbon gallery
+	 */
+	public final RibbonGallery getGallery() {
+		return gallery;
+	}
+
+	/**
+	 * Sets the gallery this cell belongs to. This is called by the gallery skin, it is not meant to be
+	 * called by the user.
+	 * @param gallery Ribbon gallery
+	 */
+	public void updateGallery(RibbonGallery gallery) {
+		this.gallery = gallery;
+	}
+
+	/**
+	 * Gets the item that is being displayed by this cell, or null if the cell is empty.
+	 * @return Gallery item
+	 */
+	public final RibbonGalleryItem getItem() {
+		return item;
+	}
+
+	/**
+	 * Gets the index of the displayed item in the gallery items, or -1 if the cell is empty.
+	 * @return Item index
+	 */
+	public final int getIndex() {
+		return index;
+	}
+
+	/**
+	 * Makes this cell display the gallery item at the specified index. This is called by the gallery skin,
+	 * it is not meant to be called by the user. If the item at that index is the one already displayed
+	 * (for example, because items were inserted before it), only the index is updated.
+	 * @param index The index of the item in the gallery items, or -1 to make the cell empty.
+	 */
+	public void updateIndex(int index) {
+		if (gallery == null || index < 0 || index >= gallery.getItems().size()) {
+			this.index = -1;
+			if (item != null) {
+				this.item = null;
+				updateItem(null, true);
+			}
+		}
+		else {
+			this.index = index;
+			RibbonGalleryItem newItem = gallery.getItems().get(index);
+			if (newItem != item) {
+				this.item = newItem;
+				updateItem(item, false);
+			}
+		}
+	}
+	
+	/**
+	 * Forces the cell to update the visuals of the item it displays, even if the item has not changed.
+	 */
+	public void refresh() {
+		int index = this.index;
+		updateIndex(-1);
+		updateIndex(index);
+	}
+
+	/**
+	 * Called every time the displayed item changes, it must update the visuals of this cell.
+	 * Subclasses that override this method should call the super implementation.
+	 * @param item The displayed item, or null if the cell is empty.
+	 * @param empty Whether the cell is empty.
+	 */
+	protected void updateItem(RibbonGalleryItem item, boolean empty) {
+		if (empty || item == null) {
+			setText(null);
+			setGraphic(null);
+			setTooltip(null);
+			setDisable(false);
+			return;
+		}
+
+		setText(item.getText());
+		setGraphic(item.getGraphic());
+		setDisable(item.isDisable());
+
+		if (item.getGraphic() != null && gallery != null && gallery.getDisplayPriority() == GalleryItemDisplay.GRAPHIC_PRIORITY) {
+			setContentDisplay(ContentDisplay.CENTER);
+		} else {
+			setContentDisplay(ContentDisplay.LEFT);
+		}
+
+		if (item.getDescription() != null) {
+			// Reuse the same tooltip for every item this cell displays
+			if (tooltip == null) {
+				tooltip = new Tooltip();
+			}
+			tooltip.setText(item.getDescription());
+			setTooltip(tooltip);
+		} else {
+			setTooltip(null);
+		}
+	}
+}
@@ -1,6 +1,8 @@
 package io.github.emd4600.javafxribbon;
 
+import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
@@ -11,7 +13,10 @@ public class RibbonGalleryItem {
 	private final StringProperty text = new SimpleStringProperty();
 	private final StringProperty description = new SimpleStringProperty();
 	private final ObjectProperty<Node> graphic = new SimpleObjectProperty<>();
+	private final BooleanProperty disable = new SimpleBooleanProperty();
 	private Object userData;
+	/** The command bound to this item, if any. */
+	RibbonCommand command;
 	
 	public final StringProperty textProperty() {
 		return text;
@@ -50,6 +55,22 @@ public class RibbonGalleryItem {
 		graphic.set(value);
 	}
 	
+	/**
+	 * Whether the item cannot be clicked. It is set by the {@link RibbonCommand command} bound to the item.
+	 * @return Disable property
+	 */
+	public final BooleanProperty disableProperty() {
+		return disable;
+	}
+	
+	public final boolean isDisable() {
+		return disable.get();
+	}
+	
+	public final void setDisable(boolean value) {
+		disable.set(value);
+	}
+	
 	public Object getUserData() {
 		return userData;
 	}
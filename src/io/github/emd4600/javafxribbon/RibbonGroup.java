@@ -21,9 +21,12 @@ package io.github.emd4600.javafxribbon;
 
 import io.github.emd4600.javafxribbon.skin.RibbonGroupSkin;
 import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.css.PseudoClass;
 import javafx.scene.Node;
 import javafx.scene.control.Labeled;
 import javafx.scene.control.Skin;
@@ -31,10 +34,29 @@ import javafx.scene.text.TextAlignment;
 
 public class RibbonGroup extends Labeled {
 	
+	/**
+	 * The sizes a ribbon group can be displayed with, from the largest to the smallest. When there is not
+	 * enough space for all the groups, the ribbon reduces some of them to smaller tiers.
+	 */
+	public static enum Tier {
+		/** The controls are displayed with their normal size, with the text under the graphic. */
+		LARGE,
+		/** Ribbon buttons are stacked in columns, with the text at the right of the graphic. */
+		MEDIUM,
+		/** Ribbon buttons are stacked in columns, and only display their graphic. */
+		SMALL,
+		/** The group is displayed as a single button that shows the controls in a popup. */
+		COLLAPSED
+	}
+	
 	public static final String DEFAULT_STYLE_CLASS = "ribbon-group";
 	
 	private static final double DEFAULT_SPACING = 5.0;
 	
+	private static final PseudoClass PSEUDO_CLASS_MEDIUM = PseudoClass.getPseudoClass("medium");
+	private static final PseudoClass PSEUDO_CLASS_SMALL = PseudoClass.getPseudoClass("small");
+	private static final PseudoClass PSEUDO_CLASS_COLLAPSED = PseudoClass.getPseudoClass("collapsed");
+	
 	public RibbonGroup() {
 		this(null);
 	}
@@ -47,6 +69,8 @@ public class RibbonGroup extends Labeled {
 		getNodes().addAll(nodes);
 		
 		setTextAlignment(TextAlignment.CENTER);
+		
+		tiers.addAll(Tier.LARGE, Tier.COLLAPSED);
 	}
 	
 	private final ObservableList<Node> nodes = FXCollections.observableArrayList();
@@ -84,6 +108,67 @@ public class RibbonGroup extends Labeled {
 		this.spacing.set(spacing);
 	}
 	
+	private final ObservableList<Tier> tiers = FXCollections.observableArrayList();
+	
+	/**
+	 * The tiers this group can be reduced to when there is not enough space, from the largest to the smallest.
+	 * By default, a group can only be displayed large or collapsed. If the list is empty, the group is always large.
+	 * The tiers are only used if the ribbon has a {@link Ribbon#resizePolicyProperty() resize policy}.
+	 * @return Reduction tiers
+	 */
+	public final ObservableList<Tier> getTiers() {
+		return tiers;
+	}
+	
+	private final ObjectProperty<Tier> tier = new SimpleObjectProperty<Tier>(this, "tier", Tier.LARGE) {
+		@Override protected void invalidated() {
+			Tier value = get();
+			pseudoClassStateChanged(PSEUDO_CLASS_MEDIUM, value == Tier.MEDIUM);
+			pseudoClassStateChanged(PSEUDO_CLASS_SMALL, value == Tier.SMALL);
+			pseudoClassStateChanged(PSEUDO_CLASS_COLLAPSED, value == Tier.COLLAPSED);
+		}
+	};
+	
+	/**
+	 * The tier this group is currently displayed with. It is set by the ribbon {@link RibbonResizePolicy}
+	 * every time the ribbon is resized.
+	 * @return Tier property
+	 */
+	public final ObjectProperty<Tier> tierProperty() {
+		return tier;
+	}
+	
+	/**
+	 * Gets the tier this group is currently displayed with.
+	 * @return Tier
+	 */
+	public final Tier getTier() {
+		return tier.get();
+	}
+	
+	/**
+	 * Sets the tier this group is displayed with.
+	 * @param value Tier
+	 */
+	public final void setTier(Tier value) {
+		tier.set(value == null ? Tier.LARGE : value);
+	}
+	
+	/**
+	 * Gets the width this group would have if it were displayed with the specified tier. The widths are computed
+	 * by the skin from the texts and graphics of the controls, and cached until the controls change, 
+	 * so this can be called on every layout.
+	 * @param tier The tier.
+	 * @return The preferred width of the group in that tier.
+	 */
+	public double getTierWidth(Tier tier) {
+		Skin<?> skin = getSkin();
+		if (skin instanceof RibbonGroupSkin) {
+			return ((RibbonGroupSkin) skin).getTierWidth(tier);
+		}
+		return prefWidth(-1);
+	}
+	
 	/** {@inheritDoc} */
     @Override protected Skin<?> createDefaultSkin() {
         return new RibbonGroupSkin(this);
@@ -0,0 +1,301 @@
+package io.github.emd4600.javafxribbon;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javafx.application.Platform;
+import javafx.scene.control.Labeled;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+
+/**
+ * <p>Loads the icons of ribbon controls in a background executor, so that the first frame of the ribbon
+ * does not wait for images to be decoded. Until an icon is ready, the controls display a placeholder image
+ * (transparent by default) of the requested size, so the layout does not change once the icon is loaded.</p>
+ * <p>Decoded images are cached by URL and requested size, so every control that uses the same icon shares it.
+ * The cache only keeps weak references to the images: an image stays cached while some control displays it, and
+ * is released once no window uses it. The default loader, returned by {@link #getDefault()}, is shared by the 
+ * whole application and is also used for the built-in ribbon images, so all the ribbon windows share one decoded copy
+ * of them. Images decoded by the application can be added with {@link #registerImage(String, Image)}.</p>
+ */
+public class RibbonIconLoader {
+	
+	private static RibbonIconLoader defaultLoader;
+	
+	private static final class IconKey {
+		private final String url;
+		private final double width;
+		private final double height;
+		
+		IconKey(String url, double width, double height) {
+			this.url = url;
+			this.width = width;
+			this.height = height;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) return true;
+			if (!(obj instanceof IconKey)) return false;
+			IconKey other = (IconKey) obj;
+			return url.equals(other.url) && width == other.width && height == other.height;
+		}
+		
+		@Override
+		public int hashCode() {
+			return Objects.hash(url, width, height);
+		}
+	}
+	
+	/**
+	 * A cached image. While the image is being decoded the entry keeps the future; once decoded, only a weak
+	 * reference to the image is kept.
+	 */
+	private static final class IconEntry extends WeakReference<Image> {
+		private final IconKey key;
+		private volatile CompletableFuture<Image> future;
+		
+		IconEntry(IconKey key, CompletableFuture<Image> future, ReferenceQueue<Image> queue) {
+			super(null, queue);
+			this.key = key;
+			this.future = future;
+		}
+		
+		IconEntry(IconKey key, Image image, ReferenceQueue<Image> queue) {
+			super(image, queue);
+			this.key = key;
+		}
+		
+		/**
+		 * Returns the future of the image, or null if the image has been released.
+		 */
+		CompletableFuture<Image> getFuture() {
+			CompletableFuture<Image> pending = future;
+			if (pending != null) {
+				return pending;
+			}
+			Image image = get();
+			return image == null ? null : CompletableFuture.completedFuture(image);
+		}
+	}
+	
+	private final Executor executor;
+	private final Map<IconKey, IconEntry> cache = new ConcurrentHashMap<IconKey, IconEntry>();
+	/** Entries whose images have been released are enqueued here, so they are removed from the cache. */
+	private final ReferenceQueue<Image> releasedImages = new ReferenceQueue<Image>();
+	
+	private Image placeholder;
+	
+	/**
+	 * Creates a loader that decodes images in a pool of daemon threads.
+	 */
+	public RibbonIconLoader() {
+		this(createDefaultExecutor());
+	}
+	
+	/**
+	 * Creates a loader that decodes images in the specified executor.
+	 * @param executor The executor where images are decoded; it must not be the JavaFX thread.
+	 */
+	public RibbonIconLoader(Executor executor) {
+		this.executor = Objects.requireNonNull(executor);
+	}
+	
+	private static ExecutorService createDefaultExecutor() {
+		AtomicInteger count = new AtomicInteger();
+		int threads = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1));
+		return Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "ribbon-icon-loader-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	/**
+	 * Gets the loader shared by the whole application, which is also used for the built-in ribbon images.
+	 * @return The default icon loader
+	 */
+	public static synchronized RibbonIconLoader getDefault() {
+		if (defaultLoader == null) {
+			defaultLoader = new RibbonIconLoader();
+		}
+		return defaultLoader;
+	}
+	
+	/**
+	 * Gets the image that is displayed while icons are being loaded, or null if nothing is displayed.
+	 * @return Placeholder image
+	 */
+	public Image getPlaceholder() {
+		return placeholder;
+	}
+	
+	/**
+	 * Sets the image that is displayed while icons are being loaded. It is resized to the requested icon size.
+	 * @param placeholder Placeholder image, or null to display nothing.
+	 */
+	public void setPlaceholder(Image placeholder) {
+		this.placeholder = placeholder;
+	}
+	
+	/**
+	 * Loads an image in the background, or returns the cached one if it has already been requested with the same size. 
+	 * The future fails if the image cannot be loaded; failed images are not cached, so they can be requested again.
+	 * @param url The URL of the image, such as the external form of a class resource.
+	 * @param width The width the image is scaled to, or 0 to use the image width.
+	 * @param height The height the image is scaled to, or 0 to use the image height.
+	 * @return A future that completes with the decoded image.
+	 */
+	public CompletableFuture<Image> load(String url, double width, double height) {
+		purgeReleasedImages();
+		
+		IconKey key = new IconKey(url, width, height);
+		while (true) {
+			IconEntry entry = cache.get(key);
+			if (entry != null) {
+				CompletableFuture<Image> future = entry.getFuture();
+				if (future != null) {
+					return future;
+				}
+				// The image was released, decode it again
+				cache.remove(key, entry);
+			}
+			
+			CompletableFuture<Image> future = new CompletableFuture<Image>();
+			IconEntry newEntry = new IconEntry(key, future, releasedImages);
+			if (cache.putIfAbsent(key, newEntry) == null) {
+				executor.execute(() -> decode(newEntry, future));
+				return future;
+			}
+		}
+	}
+	
+	private void decode(IconEntry entry, CompletableFuture<Image> future) {
+		IconKey key = entry.key;
+		try {
+			Image image = new Image(key.url, key.width, key.height, true, true, false);
+			if (image.isError()) {
+				throw image.getException() != null ? image.getException() : new IllegalArgumentException("Cannot load " + key.url);
+			}
+			// From now on, only keep a weak reference to the image
+			cache.replace(key, entry, new IconEntry(key, image, releasedImages));
+			future.complete(image);
+		} 
+		catch (Exception e) {
+			cache.remove(key, entry);
+			future.completeExceptionally(e);
+		}
+	}
+	
+	private void purgeReleasedImages() {
+		IconEntry entry;
+		while ((entry = (IconEntry) releasedImages.poll()) != null) {
+			cache.remove(entry.key, entry);
+		}
+	}
+	
+	/**
+	 * Gets an image from the cache, decoding it in the calling thread if it is not cached. If the image is being
+	 * decoded in the background, this waits for it. Use this for images that are needed immediately.
+	 * @param url The URL of the image.
+	 * @param width The width the image is scaled to, or 0 to use the image width.
+	 * @param height The height the image is scaled to, or 0 to use the image height.
+	 * @return The image, which might be an image with errors if it cannot be loaded.
+	 */
+	public Image getImage(String url, double width, double height) {
+		purgeReleasedImages();
+		
+		IconKey key = new IconKey(url, width, height);
+		IconEntry entry = cache.get(key);
+		CompletableFuture<Image> future = entry == null ? null : entry.getFuture();
+		if (future != null) {
+			try {
+				return future.join();
+			} catch (Exception e) {
+				// Try to load it again below, so the image with errors is returned
+			}
+		}
+		
+		Image image = new Image(url, width, height, true, true, false);
+		if (!image.isError()) {
+			cache.put(key, new IconEntry(key, image, releasedImages));
+		}
+		return image;
+	}
+	
+	/**
+	 * Adds an image decoded by the application to the cache, so that loading the same URL with the image requested
+	 * size returns it instead of decoding it again. The image is only kept while it is in use.
+	 * @param url The URL used to load the image.
+	 * @param image The decoded image.
+	 */
+	public void registerImage(String url, Image image) {
+		purgeReleasedImages();
+		
+		IconKey key = new IconKey(url, image.getRequestedWidth(), image.getRequestedHeight());
+		cache.put(key, new IconEntry(key, image, releasedImages));
+	}
+	
+	/**
+	 * Creates an image view that displays the placeholder until the image is loaded. If the image is already
+	 * in the cache, it is displayed immediately. Must be called from the JavaFX thread.
+	 * @param url The URL of the image.
+	 * @param width The width of the icon, or 0 to use the image width.
+	 * @param height The height of the icon, or 0 to use the image height.
+	 * @return The image view
+	 */
+	public ImageView createImageView(String url, double width, double height) {
+		ImageView view = new ImageView();
+		view.setPreserveRatio(true);
+		view.setFitWidth(width);
+		view.setFitHeight(height);
+		
+		CompletableFuture<Image> future = load(url, width, height);
+		Image image = future.getNow(null);
+		if (image != null) {
+			view.setImage(image);
+		}
+		else {
+			view.setImage(placeholder);
+			future.thenAcceptAsync(view::setImage, Platform::runLater);
+		}
+		return view;
+	}
+	
+	/**
+	 * Sets the graphic of a control, such as a {@link RibbonButton}, to an icon that is loaded in the background.
+	 * @param labeled The control.
+	 * @param url The URL of the image.
+	 * @param width The width of the icon, or 0 to use the image width.
+	 * @param height The height of the icon, or 0 to use the image height.
+	 */
+	public void loadGraphic(Labeled labeled, String url, double width, double height) {
+		labeled.setGraphic(createImageView(url, width, height));
+	}
+	
+	/**
+	 * Sets the graphic of a gallery item to an icon that is loaded in the background.
+	 * @param item The gallery item.
+	 * @param url The URL of the image.
+	 * @param width The width of the icon, or 0 to use the image width.
+	 * @param height The height of the icon, or 0 to use the image height.
+	 */
+	public void loadGraphic(RibbonGalleryItem item, String url, double width, double height) {
+		item.setGraphic(createImageView(url, width, height));
+	}
+	
+	/**
+	 * Removes all the images from the cache. Controls that already display them are not affected.
+	 */
+	public void clearCache() {
+		cache.clear();
+	}
+}
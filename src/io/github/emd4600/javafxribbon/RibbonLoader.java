@@ -0,0 +1,492 @@
+package io.github.emd4600.javafxribbon;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import io.github.emd4600.javafxribbon.RibbonDefinition.Element;
+import io.github.emd4600.javafxribbon.RibbonDefinition.Kind;
+import io.github.emd4600.javafxribbon.RibbonMetrics.Operation;
+import javafx.event.ActionEvent;
+import javafx.scene.Node;
+import javafx.scene.control.ButtonBase;
+import javafx.scene.control.Control;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.SeparatorMenuItem;
+import javafx.scene.control.Tooltip;
+
+/**
+ * <p>Reads {@link RibbonDefinition ribbon definitions} and adds their tabs to a ribbon. The definition is read
+ * with a streaming XML parser into a compact tree, without creating any control. Then, {@link #load(RibbonDefinition, Ribbon)}
+ * adds a tab for every tab element with a {@link RibbonTab#setGroupsFactory(java.util.function.Supplier) groups factory},
+ * so the controls of a tab are only created when it is displayed; usually only the selected tab is created when
+ * the window is shown. The commands of the other tabs can still be found with the command search, as their
+ * texts are added to the {@link RibbonTab#getSearchEntries() search entries} of the tabs.</p>
+ * <p>The loader measures how long it takes to parse the definitions and to create the controls of the tabs;
+ * the times are also recorded in the {@link Ribbon#getMetrics() metrics} of the ribbon, if any.</p>
+ * <p>Definitions can be parsed in any thread, but they must be loaded in the JavaFX application thread.</p>
+ */
+public class RibbonLoader {
+
+	/** The default size of the icons of buttons and gallery items. */
+	public static final double DEFAULT_ICON_SIZE = 32;
+	/** The default size of the icons of menu items. */
+	public static final double DEFAULT_SMALL_ICON_SIZE = 16;
+
+	private final Function<String, RibbonCommand> commands;
+	private RibbonIconLoader iconLoader = RibbonIconLoader.getDefault();
+	private double iconSize = DEFAULT_ICON_SIZE;
+	private double smallIconSize = DEFAULT_SMALL_ICON_SIZE;
+
+	private XMLInputFactory inputFactory;
+
+	private volatile long parseTime;
+	private volatile int parsedElementCount;
+	private long materializationTime;
+	private int materializedTabCount;
+
+	public RibbonLoader() {
+		this(null);
+	}
+
+	/**
+	 * @param commands Finds the command with the id given in the <code>command</code> attribute of buttons,
+	 * items and galleries. It can be null, or return null, if the element has no action.
+	 */
+	public RibbonLoader(Function<String, RibbonCommand> commands) {
+		this.commands = commands;
+	}
+
+	public RibbonIconLoader getIconLoader() {
+		return iconLoader;
+	}
+
+	/**
+	 * Sets the loader used to load the icons of the definition in the background.
+	 * @param iconLoader Icon loader
+	 */
+	public void setIconLoader(RibbonIconLoader iconLoader) {
+		this.iconLoader = iconLoader;
+	}
+
+	public double getIconSize() {
+		return iconSize;
+	}
+
+	/**
+	 * Sets the size of the icons of buttons and gallery items.
+	 * @param iconSize Icon size
+	 */
+	public void setIconSize(double iconSize) {
+		this.iconSize = iconSize;
+	}
+
+	public double getSmallIconSize() {
+		return smallIconSize;
+	}
+
+	/**
+	 * Sets the size of the icons of menu items.
+	 * @param smallIconSize Icon size
+	 */
+	public void setSmallIconSize(double smallIconSize) {
+		this.smallIconSize = smallIconSize;
+	}
+
+	/**
+	 * Parses the definition and adds its tabs to the ribbon, see {@link #parse(URL)} and {@link #load(RibbonDefinition, Ribbon)}.
+	 * @param url The URL of the definition file, icons are relative to it.
+	 * @param ribbon The ribbon.
+	 * @return The tabs added to the ribbon
+	 * @throws IOException If the file cannot be read or it is not a valid definition.
+	 */
+	public List<RibbonTab> load(URL url, Ribbon ribbon) throws IOException {
+		RibbonDefinition definition = parse(url);
+
+		RibbonMetrics metrics = ribbon.getMetrics();
+		if (metrics != null) {
+			metrics.record(Operation.PARSE_DEFINITION, parseTime);
+		}
+		return load(definition, ribbon);
+	}
+
+	/**
+	 * Reads a ribbon definition.
+	 * @param url The URL of the definition file, icons are relative to it.
+	 * @return The definition
+	 * @throws IOException If the file cannot be read or it is not a valid definition.
+	 */
+	public RibbonDefinition parse(URL url) throws IOException {
+		try (InputStream stream = url.openStream()) {
+			return parse(stream, url);
+		}
+	}
+
+	/**
+	 * Reads a ribbon definition. The stream is not closed.
+	 * @param stream The stream that contains the definition.
+	 * @param baseURL The URL that icons are relative to, or null if they are absolute.
+	 * @return The definition
+	 * @throws IOException If the stream cannot be read or it is not a valid definition.
+	 */
+	public RibbonDefinition parse(InputStream stream, URL baseURL) throws IOException {
+		long start = System.nanoTime();
+
+		Element root;
+		try {
+			XMLStreamReader reader = getInputFactory().createXMLStreamReader(stream);
+			try {
+				root = readDefinition(reader);
+			}
+			finally {
+				reader.close();
+			}
+		}
+		catch (XMLStreamException e) {
+			throw new IOException("Invalid ribbon definition: " + e.getMessage(), e);
+		}
+
+		RibbonDefinition definition = new RibbonDefinition(root, baseURL);
+		parseTime = System.nanoTime() - start;
+		parsedElementCount = definition.getElementCount();
+		return definition;
+	}
+
+	private synchronized XMLInputFactory getInputFactory() {
+		if (inputFactory == null) {
+			inputFactory = XMLInputFactory.newFactory();
+			// Definitions do not need them, and they could read other files
+			inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+			inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		}
+		return inputFactory;
+	}
+
+	/** Collects the attributes and children of an element until it is closed. */
+	private static final class ElementBuilder {
+		final Kind kind;
+		final String[] attributes;
+		final List<Element> children = new ArrayList<Element>();
+
+		ElementBuilder(Kind kind, String[] attributes) {
+			this.kind = kind;
+			this.attributes = attributes;
+		}
+
+		Element build() {
+			return new Element(kind, attributes, children.toArray(new Element[children.size()]));
+		}
+	}
+
+	private static Element readDefinition(XMLStreamReader reader) throws XMLStreamException {
+		// The same names, icons and commands appear many times, keep a single copy
+		Map<String, String> strings = new HashMap<String, String>();
+		Deque<ElementBuilder> stack = new ArrayDeque<ElementBuilder>();
+		Element root = null;
+
+		while (reader.hasNext()) {
+			int event = reader.next();
+
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				String name = reader.getLocalName();
+				Kind kind = Kind.fromElementName(name);
+				if (kind == null) {
+					throw new XMLStreamException("Unknown element <" + name + ">", reader.getLocation());
+				}
+				if (stack.isEmpty() ? kind != Kind.RIBBON : !stack.peek().kind.canContain(kind)) {
+					throw new XMLStreamException(stack.isEmpty() ? "The root element must be <ribbon>" :
+						"<" + name + "> cannot be inside <" + stack.peek().kind.getElementName() + ">", reader.getLocation());
+				}
+
+				String[] attributes = new String[reader.getAttributeCount() * 2];
+				for (int i = 0; i < reader.getAttributeCount(); i++) {
+					String attributeName = reader.getAttributeLocalName(i);
+					String value = reader.getAttributeValue(i);
+					if (attributeName.equals("prefWidth")) {
+						try {
+							Double.parseDouble(value);
+						} catch (NumberFormatException e) {
+							throw new XMLStreamException("Invalid prefWidth '" + value + "'", reader.getLocation());
+						}
+					}
+					else if (attributeName.equals("command") && kind == Kind.MENU_BUTTON) {
+						throw new XMLStreamException("<menuButton> cannot have a command, only its items can", reader.getLocation());
+					}
+					attributes[i * 2] = strings.computeIfAbsent(attributeName, Function.identity());
+					attributes[i * 2 + 1] = strings.computeIfAbsent(value, Function.identity());
+				}
+				stack.push(new ElementBuilder(kind, attributes));
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT) {
+				Element element = stack.pop().build();
+				if (stack.isEmpty()) {
+					root = element;
+				} else {
+					stack.peek().children.add(element);
+				}
+			}
+		}
+
+		if (root == null) {
+			throw new XMLStreamException("The definition has no <ribbon> element");
+		}
+		return root;
+	}
+
+	/**
+	 * Adds the tabs of the definition to the ribbon. Their controls are created the first time they are displayed.
+	 * @param definition The definition.
+	 * @param ribbon The ribbon.
+	 * @return The tabs added to the ribbon
+	 */
+	public List<RibbonTab> load(RibbonDefinition definition, Ribbon ribbon) {
+		List<RibbonTab> tabs = new ArrayList<RibbonTab>(definition.getTabs().size());
+		for (Element element : definition.getTabs()) {
+			RibbonTab tab = new RibbonTab(element.getAttribute("text"), () -> createGroups(definition, element, ribbon));
+
+			String keyTip = element.getAttribute("keyTip");
+			if (keyTip != null) {
+				tab.setKeyTip(keyTip);
+			}
+			tab.getSearchEntries().setAll(createSearchEntries(element));
+			tabs.add(tab);
+		}
+
+		ribbon.getTabs().addAll(tabs);
+		return tabs;
+	}
+
+	private List<RibbonSearchEntry> createSearchEntries(Element tab) {
+		List<RibbonSearchEntry> entries = new ArrayList<RibbonSearchEntry>();
+		for (Element group : tab.getChildrenArray()) {
+			String groupText = group.getAttribute("text");
+
+			for (Element element : group.getChildrenArray()) {
+				if (element.getKind() != Kind.GALLERY) {
+					addSearchEntry(entries, element, element.getAttribute("tooltip"), groupText);
+				}
+				for (Element item : element.getChildrenArray()) {
+					addSearchEntry(entries, item, item.getAttribute("description"), groupText);
+				}
+			}
+		}
+		return entries;
+	}
+
+	private void addSearchEntry(List<RibbonSearchEntry> entries, Element element, String description, String groupText) {
+		String text = getText(element);
+		if (text != null) {
+			entries.add(new RibbonSearchEntry(text, description, groupText));
+		}
+	}
+
+	/**
+	 * The text of an element, which is the text of its command if it has one. It is used both for the search
+	 * entries and for the controls, so that the search index can find the controls once they are created.
+	 */
+	private String getText(Element element) {
+		RibbonCommand command = getCommand(element);
+		if (command != null && command.getText() != null) {
+			return command.getText();
+		}
+		return element.getAttribute("text");
+	}
+
+	private RibbonCommand getCommand(Element element) {
+		String id = element.getAttribute("command");
+		return id == null || commands == null ? null : commands.apply(id);
+	}
+
+	private List<RibbonGroup> createGroups(RibbonDefinition definition, Element tab, Ribbon ribbon) {
+		long start = System.nanoTime();
+
+		List<RibbonGroup> groups = new ArrayList<RibbonGroup>(tab.getChildrenArray().length);
+		for (Element groupElement : tab.getChildrenArray()) {
+			RibbonGroup group = new RibbonGroup(groupElement.getAttribute("text"));
+			for (Element element : groupElement.getChildrenArray()) {
+				group.getNodes().add(createNode(definition, element, ribbon));
+			}
+			groups.add(group);
+		}
+
+		long time = System.nanoTime() - start;
+		materializationTime += time;
+		materializedTabCount++;
+
+		RibbonMetrics metrics = ribbon.getMetrics();
+		if (metrics != null) {
+			metrics.record(Operation.MATERIALIZE_TAB, time);
+		}
+		return groups;
+	}
+
+	private Node createNode(RibbonDefinition definition, Element element, Ribbon ribbon) {
+		RibbonCommand command = getCommand(element);
+
+		if (element.getKind() == Kind.GALLERY) {
+			RibbonGallery gallery = new RibbonGallery(ribbon);
+			String prefWidth = element.getAttribute("prefWidth");
+			if (prefWidth != null) {
+				gallery.setPrefWidth(Double.parseDouble(prefWidth));
+			}
+
+			List<RibbonGalleryItem> items = new ArrayList<RibbonGalleryItem>(element.getChildrenArray().length);
+			for (Element itemElement : element.getChildrenArray()) {
+				RibbonGalleryItem item = new RibbonGalleryItem();
+				item.setText(getText(itemElement));
+				item.setDescription(itemElement.getAttribute("description"));
+				item.setUserData(itemElement.getAttribute("id"));
+
+				String icon = resolveIcon(definition, itemElement);
+				if (icon != null) {
+					iconLoader.loadGraphic(item, icon, iconSize, iconSize);
+				}
+				// Items with their own command execute it instead of the command of the gallery
+				RibbonCommand itemCommand = getCommand(itemElement);
+				if (itemCommand != null) {
+					if (itemCommand.getText() == null) {
+						itemCommand.setText(item.getText());
+					}
+					itemCommand.bind(item);
+				}
+				items.add(item);
+			}
+			gallery.getItems().setAll(items);
+
+			if (command != null) {
+				gallery.setOnItemAction(item -> command.execute(new ActionEvent(item, null)));
+			}
+			setCommonProperties(gallery, element);
+			return gallery;
+		}
+
+		RibbonButton button = null;
+		RibbonMenuButton menuButton = null;
+		if (element.getKind() == Kind.MENU_BUTTON) {
+			menuButton = new RibbonMenuButton(getText(element));
+			for (Element itemElement : element.getChildrenArray()) {
+				menuButton.getItems().add(createMenuItem(definition, itemElement));
+			}
+		}
+		else {
+			button = new RibbonButton(getText(element), null);
+			if (command != null) {
+				if (command.getText() == null) {
+					command.setText(button.getText());
+				}
+				command.bind(button);
+			}
+		}
+
+		ButtonBase control = button != null ? button : menuButton;
+		String icon = resolveIcon(definition, element);
+		if (icon != null) {
+			iconLoader.loadGraphic(control, icon, iconSize, iconSize);
+		}
+		setCommonProperties(control, element);
+		return control;
+	}
+
+	private MenuItem createMenuItem(RibbonDefinition definition, Element element) {
+		if (element.getKind() == Kind.SEPARATOR) {
+			return new SeparatorMenuItem();
+		}
+
+		MenuItem item = new MenuItem(getText(element));
+		RibbonCommand command = getCommand(element);
+		if (command != null) {
+			if (command.getText() == null) {
+				command.setText(item.getText());
+			}
+			command.bind(item);
+		}
+
+		String icon = resolveIcon(definition, element);
+		if (icon != null) {
+			item.setGraphic(iconLoader.createImageView(icon, smallIconSize, smallIconSize));
+		}
+		return item;
+	}
+
+	private static void setCommonProperties(Control control, Element element) {
+		String tooltip = element.getAttribute("tooltip");
+		if (tooltip != null) {
+			control.setTooltip(new Tooltip(tooltip));
+		}
+		String keyTip = element.getAttribute("keyTip");
+		if (keyTip != null) {
+			Ribbon.setKeyTip(control, keyTip);
+		}
+		String id = element.getAttribute("id");
+		if (id != null) {
+			control.setId(id);
+		}
+	}
+
+	private static String resolveIcon(RibbonDefinition definition, Element element) {
+		String icon = element.getAttribute("icon");
+		if (icon == null || definition.getBaseURL() == null) {
+			return icon;
+		}
+		try {
+			return new URL(definition.getBaseURL(), icon).toExternalForm();
+		} catch (MalformedURLException e) {
+			// Let the icon loader report it
+			return icon;
+		}
+	}
+
+	/**
+	 * Gets how long the last definition took to be parsed, in nanoseconds.
+	 * @return Parse time
+	 */
+	public long getParseTime() {
+		return parseTime;
+	}
+
+	/**
+	 * Gets the number of elements of the last parsed definition.
+	 * @return Element count
+	 */
+	public int getParsedElementCount() {
+		return parsedElementCount;
+	}
+
+	/**
+	 * Gets how long the controls of all the tabs created so far took to be created, in nanoseconds.
+	 * @return Materialization time
+	 */
+	public long getMaterializationTime() {
+		return materializationTime;
+	}
+
+	/**
+	 * Gets the number of tabs whose controls have been created.
+	 * @return Materialized tab count
+	 */
+	public int getMaterializedTabCount() {
+		return materializedTabCount;
+	}
+
+	/**
+	 * Describes the parse and materialization times, for logging.
+	 * @return Report
+	 */
+	public String getReport() {
+		return String.format("Parsed %d elements in %.3f ms, created %d tabs in %.3f ms",
+				parsedElementCount, parseTime / 1e6, materializedTabCount, materializationTime / 1e6);
+	}
+}
@@ -0,0 +1,312 @@
+package io.github.emd4600.javafxribbon;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+
+/**
+ * <p>Records how long the expensive ribbon operations take and how often they run, so that the cost of the
+ * user interface can be watched without attaching a profiler. Metrics are only recorded when an instance
+ * is set with {@link Ribbon#setMetrics(RibbonMetrics)}; they can be observed with listeners, or exposed
+ * through JMX with {@link #registerMBean()}.</p>
+ * <p>The times and counts can be read from any thread. Node counts walk the scene graph, so they must be
+ * read from the JavaFX thread (the MBean does that automatically).</p>
+ */
+public class RibbonMetrics {
+	
+	/**
+	 * The operations whose time is recorded.
+	 */
+	public static enum Operation {
+		/** Displaying the content of the selected tab. */
+		SET_CONTENT,
+		/** Creating all the tab headers. */
+		CONSTRUCT_TABS_PANE,
+		/** Adding, removing and moving the tab headers after the tabs of the ribbon change. */
+		UPDATE_TAB_HEADERS,
+		/** Splitting the text of a ribbon button into lines and creating its labels. */
+		LAYOUT_BUTTON,
+		/** Laying out the items of a gallery. */
+		GALLERY_LAYOUT,
+		/** Searching the commands typed in the command search box and updating the results. */
+		COMMAND_SEARCH,
+		/** Evaluating the out of date commands of the selected tab. */
+		UPDATE_COMMANDS,
+		/** Parsing a ribbon definition file with {@link RibbonLoader}. */
+		PARSE_DEFINITION,
+		/** Creating the controls of a tab loaded from a ribbon definition. */
+		MATERIALIZE_TAB
+	}
+	
+	/**
+	 * Receives every recorded operation. Listeners are called in the JavaFX thread, right after the 
+	 * operation finishes, so they should be fast.
+	 */
+	@FunctionalInterface
+	public static interface Listener {
+		/**
+		 * @param operation The operation that was executed.
+		 * @param nanos The time it took, in nanoseconds.
+		 */
+		public void operationRecorded(Operation operation, long nanos);
+	}
+	
+	private static final class OperationStats {
+		final AtomicLong count = new AtomicLong();
+		final AtomicLong totalNanos = new AtomicLong();
+		final AtomicLong maxNanos = new AtomicLong();
+		
+		void record(long nanos) {
+			count.incrementAndGet();
+			totalNanos.addAndGet(nanos);
+			maxNanos.accumulateAndGet(nanos, Math::max);
+		}
+		
+		void reset() {
+			count.set(0);
+			totalNanos.set(0);
+			maxNanos.set(0);
+		}
+	}
+	
+	private final Ribbon ribbon;
+	private final OperationStats[] stats = new OperationStats[Operation.values().length];
+	private final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+	
+	private ObjectName registeredName;
+	
+	/**
+	 * Creates the metrics of a ribbon. They are not recorded until the metrics are set in the ribbon.
+	 * @param ribbon The ribbon whose tabs are inspected for node counts.
+	 */
+	public RibbonMetrics(Ribbon ribbon) {
+		this.ribbon = ribbon;
+		for (int i = 0; i < stats.length; i++) {
+			stats[i] = new OperationStats();
+		}
+	}
+	
+	public final Ribbon getRibbon() {
+		return ribbon;
+	}
+	
+	/**
+	 * Returns the metrics of the ribbon that contains a node, or null if the node is not in a ribbon 
+	 * or metrics are disabled. Nodes displayed in a ribbon dropdown are found through the ribbon window.
+	 * @param node A node in the ribbon, such as a button.
+	 * @return The ribbon metrics
+	 */
+	public static RibbonMetrics of(Node node) {
+		Ribbon ribbon = Ribbon.getRibbon(node);
+		return ribbon == null ? null : ribbon.getMetrics();
+	}
+	
+	/**
+	 * Records an execution of an operation and notifies the listeners.
+	 * @param operation The operation that was executed.
+	 * @param nanos The time it took, in nanoseconds.
+	 */
+	public void record(Operation operation, long nanos) {
+		stats[operation.ordinal()].record(nanos);
+		for (Listener listener : listeners) {
+			listener.operationRecorded(operation, nanos);
+		}
+	}
+	
+	public void addListener(Listener listener) {
+		listeners.add(listener);
+	}
+	
+	public void removeListener(Listener listener) {
+		listeners.remove(listener);
+	}
+	
+	/**
+	 * Gets how many times an operation has been executed since the metrics were created or reset.
+	 */
+	public long getCount(Operation operation) {
+		return stats[operation.ordinal()].count.get();
+	}
+	
+	/**
+	 * Gets the total time spent on an operation, in milliseconds.
+	 */
+	public double getTotalTime(Operation operation) {
+		return stats[operation.ordinal()].totalNanos.get() / 1e6;
+	}
+	
+	/**
+	 * Gets the longest time an execution of an operation took, in milliseconds.
+	 */
+	public double getMaxTime(Operation operation) {
+		return stats[operation.ordinal()].maxNanos.get() / 1e6;
+	}
+	
+	/**
+	 * Gets the average time an execution of an operation takes, in milliseconds, or 0 if it has never been executed.
+	 */
+	public double getAverageTime(Operation operation) {
+		long count = getCount(operation);
+		return count == 0 ? 0.0 : getTotalTime(operation) / count;
+	}
+	
+	/**
+	 * Clears the recorded times and counts.
+	 */
+	public void reset() {
+		for (OperationStats stat : stats) {
+			stat.reset();
+		}
+	}
+	
+	/**
+	 * Counts the nodes in a scene graph, including the root. Must be called from the JavaFX thread.
+	 */
+	public static int countNodes(Node node) {
+		int count = 1;
+		if (node instanceof Parent) {
+			for (Node child : ((Parent) node).getChildrenUnmodifiable()) {
+				count += countNodes(child);
+			}
+		}
+		return count;
+	}
+	
+	/**
+	 * Gets how many nodes the groups of a tab currently hold. Tabs whose content has never been displayed
+	 * have no skins, so they hold less nodes. Must be called from the JavaFX thread.
+	 */
+	public int getNodeCount(RibbonTab tab) {
+		int count = 0;
+		for (RibbonGroup group : tab.getGroups()) {
+			count += countNodes(group);
+		}
+		return count;
+	}
+	
+	/**
+	 * Gets how many nodes a gallery currently holds. Must be called from the JavaFX thread.
+	 */
+	public int getNodeCount(RibbonGallery gallery) {
+		return countNodes(gallery);
+	}
+	
+	/**
+	 * Registers these metrics in the platform MBean server with a default name, 
+	 * <code>io.github.emd4600.javafxribbon:type=RibbonMetrics,id=&lt;identity hash&gt;</code>.
+	 * @return The name of the registered MBean.
+	 * @throws JMException If the MBean cannot be registered.
+	 */
+	public ObjectName registerMBean() throws JMException {
+		return registerMBean(new ObjectName("io.github.emd4600.javafxribbon:type=RibbonMetrics,id=" 
+				+ Integer.toHexString(System.identityHashCode(this))));
+	}
+	
+	/**
+	 * Registers these metrics in the platform MBean server. If they were already registered, the previous
+	 * registration is removed.
+	 * @param name The name of the MBean.
+	 * @return The name of the registered MBean.
+	 * @throws JMException If the MBean cannot be registered.
+	 */
+	public synchronized ObjectName registerMBean(ObjectName name) throws JMException {
+		unregisterMBean();
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		registeredName = server.registerMBean(new MXBeanImpl(), name).getObjectName();
+		return registeredName;
+	}
+	
+	/**
+	 * Removes these metrics from the platform MBean server, if they were registered.
+	 * @throws JMException If the MBean cannot be unregistered.
+	 */
+	public synchronized void unregisterMBean() throws JMException {
+		if (registeredName != null) {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+			registeredName = null;
+		}
+	}
+	
+	private static <T> T callOnFxThread(Callable<T> callable) {
+		try {
+			if (Platform.isFxApplicationThread()) {
+				return callable.call();
+			}
+			FutureTask<T> task = new FutureTask<T>(callable);
+			Platform.runLater(task);
+			return task.get(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		} catch (TimeoutException e) {
+			throw new IllegalStateException("The JavaFX thread did not respond", e);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	private class MXBeanImpl implements RibbonMetricsMXBean {
+
+		@Override
+		public Map<String, Long> getOperationCounts() {
+			Map<String, Long> map = new LinkedHashMap<String, Long>();
+			for (Operation operation : Operation.values()) {
+				map.put(operation.name(), getCount(operation));
+			}
+			return map;
+		}
+
+		@Override
+		public Map<String, Double> getOperationTotalTimes() {
+			Map<String, Double> map = new LinkedHashMap<String, Double>();
+			for (Operation operation : Operation.values()) {
+				map.put(operation.name(), getTotalTime(operation));
+			}
+			return map;
+		}
+
+		@Override
+		public Map<String, Double> getOperationMaxTimes() {
+			Map<String, Double> map = new LinkedHashMap<String, Double>();
+			for (Operation operation : Operation.values()) {
+				map.put(operation.name(), getMaxTime(operation));
+			}
+			return map;
+		}
+
+		@Override
+		public Map<String, Integer> getTabNodeCounts() {
+			return callOnFxThread(() -> {
+				Map<String, Integer> map = new LinkedHashMap<String, Integer>();
+				List<RibbonTab> tabs = ribbon.getTabs();
+				for (int i = 0; i < tabs.size(); i++) {
+					map.put(i + ": " + tabs.get(i).getText(), getNodeCount(tabs.get(i)));
+				}
+				return map;
+			});
+		}
+
+		@Override
+		public void reset() {
+			RibbonMetrics.this.reset();
+		}
+	}
+}
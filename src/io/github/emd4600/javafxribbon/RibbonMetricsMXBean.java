@@ -0,0 +1,23 @@
+package io.github.emd4600.javafxribbon;
+
+import java.util.Map;
+
+/**
+ * The management interface of {@link RibbonMetrics}, see {@link RibbonMetrics#registerMBean()}.
+ * Times are in milliseconds, and maps are keyed by {@link RibbonMetrics.Operation} name.
+ */
+public interface RibbonMetricsMXBean {
+
+	public Map<String, Long> getOperationCounts();
+	
+	public Map<String, Double> getOperationTotalTimes();
+	
+	public Map<String, Double> getOperationMaxTimes();
+	
+	/**
+	 * The number of nodes held by each tab, keyed by tab index and text.
+	 */
+	public Map<String, Integer> getTabNodeCounts();
+	
+	public void reset();
+}
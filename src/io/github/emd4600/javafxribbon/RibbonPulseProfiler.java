@@ -0,0 +1,350 @@
+package io.github.emd4600.javafxribbon;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+
+import io.github.emd4600.javafxribbon.Ribbon.RibbonState;
+import javafx.beans.value.ChangeListener;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+
+/**
+ * <p>Measures, on every pulse, how much of the CSS and layout time is spent on the ribbon and how much on the
+ * content of the {@link RibbonWindow}. It is enabled with {@link RibbonWindow#setPulseProfiler(RibbonPulseProfiler)}.</p>
+ * <p>The content is styled and laid out by the profiler itself right before the scene does it, so its time can be 
+ * measured; everything else done by the scene in that pulse is attributed to the ribbon. This assumes the ribbon
+ * window is the root of the scene, otherwise the ribbon time includes the rest of the scene.</p>
+ * <p>The profiler keeps a rolling history of the last pulses, from which histograms are built, and the slowest pulses
+ * since it was created or reset, together with the ribbon operations that happened before them. 
+ * It must only be used from the JavaFX thread.</p>
+ */
+public class RibbonPulseProfiler {
+	
+	/**
+	 * The ribbon operations that can cause an expensive pulse.
+	 */
+	public static enum Trigger {
+		TAB_SWITCH,
+		STATE_CHANGE,
+		GALLERY_SCROLL
+	}
+	
+	/**
+	 * The upper bounds, in milliseconds, of the histogram buckets. The last bucket contains all the pulses slower than the last bound.
+	 */
+	public static final double[] HISTOGRAM_BOUNDS = {1, 2, 4, 8, 16, 33, 66};
+	
+	public static final int DEFAULT_HISTORY_SIZE = 600;
+	public static final int DEFAULT_SLOWEST_COUNT = 20;
+	
+	/**
+	 * The CSS and layout times of a single pulse.
+	 */
+	public static final class PulseSample {
+		private final long timestamp;
+		private final double totalTime;
+		private final double contentCssTime;
+		private final double contentLayoutTime;
+		private final Set<Trigger> triggers;
+		
+		PulseSample(long timestamp, double totalTime, double contentCssTime, double contentLayoutTime, Set<Trigger> triggers) {
+			this.timestamp = timestamp;
+			this.totalTime = totalTime;
+			this.contentCssTime = contentCssTime;
+			this.contentLayoutTime = contentLayoutTime;
+			this.triggers = triggers;
+		}
+		
+		/** The time when the pulse happened, as returned by System.currentTimeMillis(). */
+		public long getTimestamp() {
+			return timestamp;
+		}
+		
+		/** The total time spent on CSS and layout, in milliseconds. */
+		public double getTotalTime() {
+			return totalTime;
+		}
+		
+		/** The time spent on CSS and layout outside the window content, in milliseconds. */
+		public double getRibbonTime() {
+			return Math.max(0.0, totalTime - contentCssTime - contentLayoutTime);
+		}
+		
+		/** The time spent applying CSS to the window content, in milliseconds. */
+		public double getContentCssTime() {
+			return contentCssTime;
+		}
+		
+		/** The time spent laying out the window content, in milliseconds. */
+		public double getContentLayoutTime() {
+			return contentLayoutTime;
+		}
+		
+		/** The ribbon operations that happened since the previous pulse. */
+		public Set<Trigger> getTriggers() {
+			return triggers;
+		}
+		
+		@Override
+		public String toString() {
+			return String.format("total %.3f ms, ribbon %.3f ms, content CSS %.3f ms, content layout %.3f ms, triggers %s", 
+					totalTime, getRibbonTime(), contentCssTime, contentLayoutTime, triggers);
+		}
+	}
+	
+	private static final Comparator<PulseSample> BY_TOTAL_TIME = Comparator.comparingDouble(PulseSample::getTotalTime);
+	
+	private final int historySize;
+	private final int slowestCount;
+	
+	/** The last pulses, as a ring buffer. */
+	private final PulseSample[] history;
+	private int historyStart;
+	private int historyCount;
+	/** The slowest pulses, with the fastest of them at the head. */
+	private final PriorityQueue<PulseSample> slowest;
+	
+	private final Set<Trigger> pendingTriggers = EnumSet.noneOf(Trigger.class);
+	
+	private RibbonWindow window;
+	private Scene scene;
+	
+	private boolean inPulse;
+	private long pulseStart;
+	private long contentCssNanos;
+	private long contentLayoutNanos;
+	
+	private final Runnable preLayoutListener = this::beginPulse;
+	private final Runnable postLayoutListener = this::endPulse;
+	private final ChangeListener<Scene> sceneListener = (obs, oldValue, newValue) -> setScene(newValue);
+	private final ChangeListener<RibbonTab> tabListener = (obs, oldValue, newValue) -> markTrigger(Trigger.TAB_SWITCH);
+	private final ChangeListener<RibbonState> stateListener = (obs, oldValue, newValue) -> markTrigger(Trigger.STATE_CHANGE);
+	
+	public RibbonPulseProfiler() {
+		this(DEFAULT_HISTORY_SIZE, DEFAULT_SLOWEST_COUNT);
+	}
+	
+	/**
+	 * @param historySize How many of the last pulses are used to build the histograms.
+	 * @param slowestCount How many of the slowest pulses are kept.
+	 */
+	public RibbonPulseProfiler(int historySize, int slowestCount) {
+		if (historySize <= 0 || slowestCount <= 0) {
+			throw new IllegalArgumentException("The history size and slowest count must be positive");
+		}
+		this.historySize = historySize;
+		this.slowestCount = slowestCount;
+		this.history = new PulseSample[historySize];
+		this.slowest = new PriorityQueue<PulseSample>(slowestCount + 1, BY_TOTAL_TIME);
+	}
+	
+	/**
+	 * Gets the window this profiler is installed on, or null.
+	 */
+	public final RibbonWindow getWindow() {
+		return window;
+	}
+	
+	void install(RibbonWindow window) {
+		if (this.window != null) {
+			throw new IllegalStateException("The profiler is already used in another ribbon window");
+		}
+		this.window = window;
+		
+		Ribbon ribbon = window.getRibbon();
+		ribbon.getSelectionModel().selectedItemProperty().addListener(tabListener);
+		ribbon.ribbonStateProperty().addListener(stateListener);
+		window.sceneProperty().addListener(sceneListener);
+		setScene(window.getScene());
+	}
+	
+	void uninstall() {
+		if (window == null) return;
+		
+		Ribbon ribbon = window.getRibbon();
+		ribbon.getSelectionModel().selectedItemProperty().removeListener(tabListener);
+		ribbon.ribbonStateProperty().removeListener(stateListener);
+		window.sceneProperty().removeListener(sceneListener);
+		setScene(null);
+		window = null;
+		inPulse = false;
+	}
+	
+	private void setScene(Scene newScene) {
+		if (scene != null) {
+			scene.removePreLayoutPulseListener(preLayoutListener);
+			scene.removePostLayoutPulseListener(postLayoutListener);
+		}
+		scene = newScene;
+		if (scene != null) {
+			scene.addPreLayoutPulseListener(preLayoutListener);
+			scene.addPostLayoutPulseListener(postLayoutListener);
+		}
+	}
+	
+	/**
+	 * Records that a ribbon operation happened; it will be reported with the next pulse. 
+	 * Tab switches and ribbon state changes are detected automatically.
+	 */
+	public void markTrigger(Trigger trigger) {
+		pendingTriggers.add(trigger);
+	}
+	
+	/**
+	 * Marks a trigger in the profiler of the window that contains the ribbon, if any.
+	 */
+	static void markTrigger(Ribbon ribbon, Trigger trigger) {
+		RibbonWindow window = ribbon == null ? null : ribbon.getRibbonWindow();
+		RibbonPulseProfiler profiler = window == null ? null : window.getPulseProfiler();
+		if (profiler != null) {
+			profiler.markTrigger(trigger);
+		}
+	}
+	
+	private void beginPulse() {
+		inPulse = true;
+		contentCssNanos = 0;
+		contentLayoutNanos = 0;
+		pulseStart = System.nanoTime();
+		
+		Node content = window.getContent();
+		if (content != null) {
+			long start = System.nanoTime();
+			content.applyCss();
+			contentCssNanos += System.nanoTime() - start;
+			
+			// If the window has to be laid out, the content size might change, so it will be measured from the window layout
+			if (!window.isContentLayoutPending()) {
+				layoutContent(content);
+			}
+		}
+	}
+	
+	/**
+	 * Lays out the window content, measuring the time if it is inside a pulse.
+	 */
+	void layoutContent(Node content) {
+		if (!inPulse || !(content instanceof Parent)) return;
+		
+		long start = System.nanoTime();
+		((Parent) content).layout();
+		contentLayoutNanos += System.nanoTime() - start;
+	}
+	
+	private void endPulse() {
+		if (!inPulse) return;
+		inPulse = false;
+		
+		Set<Trigger> triggers = pendingTriggers.isEmpty() ? Collections.<Trigger>emptySet() 
+				: Collections.unmodifiableSet(EnumSet.copyOf(pendingTriggers));
+		pendingTriggers.clear();
+		
+		PulseSample sample = new PulseSample(System.currentTimeMillis(), (System.nanoTime() - pulseStart) / 1e6,
+				contentCssNanos / 1e6, contentLayoutNanos / 1e6, triggers);
+		
+		history[(historyStart + historyCount) % historySize] = sample;
+		if (historyCount < historySize) {
+			historyCount++;
+		} else {
+			historyStart = (historyStart + 1) % historySize;
+		}
+		
+		slowest.add(sample);
+		if (slowest.size() > slowestCount) {
+			slowest.poll();
+		}
+	}
+	
+	/**
+	 * Gets the last recorded pulses, from the oldest to the newest.
+	 */
+	public List<PulseSample> getHistory() {
+		List<PulseSample> list = new ArrayList<PulseSample>(historyCount);
+		for (int i = 0; i < historyCount; i++) {
+			list.add(history[(historyStart + i) % historySize]);
+		}
+		return list;
+	}
+	
+	/**
+	 * Gets the slowest pulses since the profiler was created or reset, from the slowest to the fastest.
+	 */
+	public List<PulseSample> getSlowestPulses() {
+		List<PulseSample> list = new ArrayList<PulseSample>(slowest);
+		list.sort(BY_TOTAL_TIME.reversed());
+		return list;
+	}
+	
+	/**
+	 * Gets how many of the last pulses fall in each bucket of {@link #HISTOGRAM_BOUNDS}, by total CSS and layout time.
+	 */
+	public long[] getTotalHistogram() {
+		return getHistogram(PulseSample::getTotalTime);
+	}
+	
+	/**
+	 * Gets how many of the last pulses fall in each bucket of {@link #HISTOGRAM_BOUNDS}, by ribbon time.
+	 */
+	public long[] getRibbonHistogram() {
+		return getHistogram(PulseSample::getRibbonTime);
+	}
+	
+	/**
+	 * Gets how many of the last pulses fall in each bucket of {@link #HISTOGRAM_BOUNDS}, by content CSS and layout time.
+	 */
+	public long[] getContentHistogram() {
+		return getHistogram(sample -> sample.getContentCssTime() + sample.getContentLayoutTime());
+	}
+	
+	private long[] getHistogram(ToDoubleFunction<PulseSample> time) {
+		long[] histogram = new long[HISTOGRAM_BOUNDS.length + 1];
+		for (int i = 0; i < historyCount; i++) {
+			double value = time.applyAsDouble(history[(historyStart + i) % historySize]);
+			int bucket = 0;
+			while (bucket < HISTOGRAM_BOUNDS.length && value > HISTOGRAM_BOUNDS[bucket]) {
+				bucket++;
+			}
+			histogram[bucket]++;
+		}
+		return histogram;
+	}
+	
+	/**
+	 * Clears the history and the slowest pulses.
+	 */
+	public void reset() {
+		historyStart = 0;
+		historyCount = 0;
+		Arrays.fill(history, null);
+		slowest.clear();
+		pendingTriggers.clear();
+	}
+	
+	/**
+	 * Writes the histograms and the slowest pulses.
+	 */
+	public void dump(PrintStream out) {
+		out.println("Ribbon pulse profile, last " + historyCount + " pulses");
+		out.printf("%-10s %8s %8s %8s%n", "ms", "total", "ribbon", "content");
+		long[] total = getTotalHistogram();
+		long[] ribbon = getRibbonHistogram();
+		long[] content = getContentHistogram();
+		for (int i = 0; i < total.length; i++) {
+			String label = i < HISTOGRAM_BOUNDS.length ? "<= " + HISTOGRAM_BOUNDS[i] : "> " + HISTOGRAM_BOUNDS[i - 1];
+			out.printf("%-10s %8d %8d %8d%n", label, total[i], ribbon[i], content[i]);
+		}
+		out.println("Slowest pulses:");
+		for (PulseSample sample : getSlowestPulses()) {
+			out.println("  " + sample);
+		}
+	}
+}
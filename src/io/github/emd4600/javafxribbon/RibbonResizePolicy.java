@@ -0,0 +1,60 @@
+package io.github.emd4600.javafxribbon;
+
+import java.util.List;
+
+import io.github.emd4600.javafxribbon.RibbonGroup.Tier;
+
+/**
+ * Decides the tier of each ribbon group so that the groups of the selected tab fit in the ribbon width.
+ * It is called on every layout of the tab content, so it must be cheap: it should only use the cached 
+ * widths given by {@link RibbonGroup#getTierWidth(Tier)}.
+ * @see Ribbon#resizePolicyProperty()
+ */
+@FunctionalInterface
+public interface RibbonResizePolicy {
+	
+	/**
+	 * Reduces the groups one tier at a time, starting from the rightmost group and moving to the left,
+	 * until all the groups fit. This is how Office ribbons behave.
+	 */
+	public static final RibbonResizePolicy REDUCE_FROM_RIGHT = RibbonResizePolicy::reduceFromRight;
+	
+	/**
+	 * Sets the tier of every group.
+	 * @param groups The groups, from left to right.
+	 * @param availableWidth The width that the groups can use.
+	 */
+	public void resize(List<RibbonGroup> groups, double availableWidth);
+	
+	private static void reduceFromRight(List<RibbonGroup> groups, double availableWidth) {
+		int count = groups.size();
+		int[] levels = new int[count];
+		
+		double totalWidth = 0;
+		for (int i = 0; i < count; i++) {
+			totalWidth += groups.get(i).getTierWidth(getTier(groups.get(i), 0));
+		}
+		
+		boolean reduced = true;
+		while (totalWidth > availableWidth && reduced) {
+			reduced = false;
+			for (int i = count - 1; i >= 0 && totalWidth > availableWidth; i--) {
+				RibbonGroup group = groups.get(i);
+				if (levels[i] < group.getTiers().size() - 1) {
+					totalWidth -= group.getTierWidth(getTier(group, levels[i]));
+					levels[i]++;
+					totalWidth += group.getTierWidth(getTier(group, levels[i]));
+					reduced = true;
+				}
+			}
+		}
+		
+		for (int i = 0; i < count; i++) {
+			groups.get(i).setTier(getTier(groups.get(i), levels[i]));
+		}
+	}
+	
+	private static Tier getTier(RibbonGroup group, int level) {
+		return group.getTiers().isEmpty() ? Tier.LARGE : group.getTiers().get(level);
+	}
+}
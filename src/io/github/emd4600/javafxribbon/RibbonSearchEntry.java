@@ -0,0 +1,37 @@
+package io.github.emd4600.javafxribbon;
+
+/**
+ * Describes a command of a tab whose groups have not been created yet (see {@link RibbonTab#setGroupsFactory(java.util.function.Supplier)}),
+ * so that it can be found with the ribbon command search before the tab is displayed. Once the groups are created,
+ * the search uses the controls themselves, and the command is matched by its text and group.
+ * @see RibbonTab#getSearchEntries()
+ */
+public final class RibbonSearchEntry {
+	
+	private final String text;
+	private final String description;
+	private final String groupText;
+	
+	/**
+	 * @param text The text of the control that executes the command.
+	 * @param description A longer description, usually the control tooltip; it can be null.
+	 * @param groupText The text of the group that contains the control; it can be null.
+	 */
+	public RibbonSearchEntry(String text, String description, String groupText) {
+		this.text = text;
+		this.description = description;
+		this.groupText = groupText;
+	}
+	
+	public String getText() {
+		return text;
+	}
+	
+	public String getDescription() {
+		return description;
+	}
+	
+	public String getGroupText() {
+		return groupText;
+	}
+}
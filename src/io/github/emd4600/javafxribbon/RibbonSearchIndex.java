@@ -0,0 +1,622 @@
+package io.github.emd4600.javafxribbon;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.beans.value.ChangeListener;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.scene.Node;
+import javafx.scene.control.Control;
+import javafx.scene.control.Labeled;
+import javafx.scene.control.MenuButton;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.Tooltip;
+
+/**
+ * <p>An inverted index of the commands of a ribbon, used by the command search ("Tell me"). It contains the texts
+ * and tooltips of the controls of every tab, the items of the menu buttons and galleries, and the
+ * {@link RibbonTab#getSearchEntries() search entries} of the tabs whose groups have not been created yet.</p>
+ * <p>Every word is mapped to the commands that contain it, and the words are kept sorted, so a search only visits
+ * the words that start with the typed terms; words with the same initial within a small edit distance are also
+ * matched, to tolerate typos. The index listens to the tabs, groups, nodes and items lists, and to the texts
+ * of the commands, and only updates the entries that change.</p>
+ * <p>The index is created by {@link Ribbon#getSearchIndex()} the first time it is needed. It must only be
+ * used in the JavaFX application thread.</p>
+ */
+public final class RibbonSearchIndex {
+
+	/** The fields of a command where a word was found, as a bit mask. */
+	private static final int TEXT_FIELD = 1;
+	private static final int DESCRIPTION_FIELD = 2;
+
+	private static final double EXACT_SCORE = 3.0;
+	private static final double PREFIX_SCORE = 2.0;
+	private static final double FUZZY_SCORE = 1.0;
+	/** Matches in the description are worth less than matches in the text. */
+	private static final double DESCRIPTION_WEIGHT = 0.5;
+	/** Terms shorter than this are only matched by prefix. */
+	private static final int FUZZY_MIN_LENGTH = 3;
+	/** Terms at least this long tolerate two typos instead of one. */
+	private static final int FUZZY_LONG_LENGTH = 6;
+
+	private static final String[] NO_TOKENS = new String[0];
+
+	/** Better scores first, then shorter texts. */
+	private static final Comparator<Map.Entry<RibbonSearchResult, Double>> RESULT_ORDER =
+			Comparator.<Map.Entry<RibbonSearchResult, Double>>comparingDouble(entry -> -entry.getValue())
+			.thenComparingInt(entry -> entry.getKey().getText().length())
+			.thenComparing(entry -> entry.getKey().getText());
+
+	private final Ribbon ribbon;
+	/** Maps every word to the commands that contain it, and in which fields. */
+	private final TreeMap<String, Map<RibbonSearchResult, Integer>> postings = new TreeMap<String, Map<RibbonSearchResult, Integer>>();
+	private final Map<RibbonTab, TabWatcher> tabWatchers = new IdentityHashMap<RibbonTab, TabWatcher>();
+	private int size;
+
+	/** The rows of the edit distance computation, reused between searches. */
+	private int[] previousRow = new int[16];
+	private int[] currentRow = new int[16];
+
+	RibbonSearchIndex(Ribbon ribbon) {
+		this.ribbon = ribbon;
+
+		ribbon.getTabs().addListener((ListChangeListener<RibbonTab>) c -> {
+			while (c.next()) {
+				for (RibbonTab tab : c.getRemoved()) {
+					if (!ribbon.getTabs().contains(tab)) {
+						TabWatcher watcher = tabWatchers.remove(tab);
+						if (watcher != null) {
+							watcher.dispose();
+						}
+					}
+				}
+				for (RibbonTab tab : c.getAddedSubList()) {
+					tabWatchers.computeIfAbsent(tab, TabWatcher::new);
+				}
+			}
+		});
+		for (RibbonTab tab : ribbon.getTabs()) {
+			tabWatchers.computeIfAbsent(tab, TabWatcher::new);
+		}
+	}
+
+	/**
+	 * Gets the ribbon whose commands are indexed.
+	 * @return Ribbon
+	 */
+	public Ribbon getRibbon() {
+		return ribbon;
+	}
+
+	/**
+	 * Gets the number of indexed commands.
+	 * @return Command count
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the number of different words in the index.
+	 * @return Word count
+	 */
+	public int getWordCount() {
+		return postings.size();
+	}
+
+	/**
+	 * Finds the commands that contain all the terms of the query. The last term is usually incomplete while the
+	 * user types, so every term matches the words that start with it; terms of three or more letters also match
+	 * words with one typo (two for terms of six or more letters), as long as the first letter is right.
+	 * @param query The text typed by the user.
+	 * @param maxResults The maximum number of results.
+	 * @return The best results, ordered from best to worst.
+	 */
+	public List<RibbonSearchResult> search(String query, int maxResults) {
+		String[] terms = tokenize(query);
+		if (terms.length == 0 || maxResults <= 0) {
+			return Collections.emptyList();
+		}
+
+		Map<RibbonSearchResult, Double> scores = null;
+		for (String term : terms) {
+			Map<RibbonSearchResult, Double> termScores = matchTerm(term);
+			if (scores == null) {
+				scores = termScores;
+			}
+			else {
+				// Only the commands that match every term
+				Iterator<Map.Entry<RibbonSearchResult, Double>> it = scores.entrySet().iterator();
+				while (it.hasNext()) {
+					Map.Entry<RibbonSearchResult, Double> entry = it.next();
+					Double score = termScores.get(entry.getKey());
+					if (score == null) {
+						it.remove();
+					} else {
+						entry.setValue(entry.getValue() + score);
+					}
+				}
+			}
+			if (scores.isEmpty()) {
+				return Collections.emptyList();
+			}
+		}
+
+		// Keep the best results, the worst of them at the head of the queue
+		PriorityQueue<Map.Entry<RibbonSearchResult, Double>> best =
+				new PriorityQueue<Map.Entry<RibbonSearchResult, Double>>(maxResults + 1, RESULT_ORDER.reversed());
+		for (Map.Entry<RibbonSearchResult, Double> entry : scores.entrySet()) {
+			best.add(entry);
+			if (best.size() > maxResults) {
+				best.poll();
+			}
+		}
+
+		List<Map.Entry<RibbonSearchResult, Double>> sorted = new ArrayList<Map.Entry<RibbonSearchResult, Double>>(best);
+		sorted.sort(RESULT_ORDER);
+		List<RibbonSearchResult> results = new ArrayList<RibbonSearchResult>(sorted.size());
+		for (Map.Entry<RibbonSearchResult, Double> entry : sorted) {
+			results.add(entry.getKey());
+		}
+		return results;
+	}
+
+	private Map<RibbonSearchResult, Double> matchTerm(String term) {
+		Map<RibbonSearchResult, Double> scores = new HashMap<RibbonSearchResult, Double>();
+
+		for (Map.Entry<String, Map<RibbonSearchResult, Integer>> entry : postings.subMap(term, term + Character.MAX_VALUE).entrySet()) {
+			addScores(scores, entry.getValue(), entry.getKey().length() == term.length() ? EXACT_SCORE : PREFIX_SCORE);
+		}
+
+		if (term.length() >= FUZZY_MIN_LENGTH) {
+			int maxDistance = term.length() >= FUZZY_LONG_LENGTH ? 2 : 1;
+			// Typos are rare in the first letter, and this way only a fraction of the words is visited
+			String initial = term.substring(0, 1);
+			for (Map.Entry<String, Map<RibbonSearchResult, Integer>> entry : postings.subMap(initial, initial + Character.MAX_VALUE).entrySet()) {
+				String word = entry.getKey();
+				if (word.startsWith(term)) continue;
+
+				int distance = prefixDistance(term, word, maxDistance);
+				if (distance <= maxDistance) {
+					addScores(scores, entry.getValue(), FUZZY_SCORE / (1 + distance));
+				}
+			}
+		}
+		return scores;
+	}
+
+	private static void addScores(Map<RibbonSearchResult, Double> scores, Map<RibbonSearchResult, Integer> results, double score) {
+		for (Map.Entry<RibbonSearchResult, Integer> entry : results.entrySet()) {
+			double value = (entry.getValue() & TEXT_FIELD) != 0 ? score : score * DESCRIPTION_WEIGHT;
+			scores.merge(entry.getKey(), value, Math::max);
+		}
+	}
+
+	/**
+	 * Computes the edit distance between the term and the closest prefix of the word, or any value greater than
+	 * maxDistance if it is greater.
+	 */
+	private int prefixDistance(String term, String word, int maxDistance) {
+		int n = term.length();
+		int m = Math.min(word.length(), n + maxDistance);
+		if (previousRow.length <= m) {
+			previousRow = new int[m + 1];
+			currentRow = new int[m + 1];
+		}
+
+		for (int j = 0; j <= m; j++) {
+			previousRow[j] = j;
+		}
+		for (int i = 1; i <= n; i++) {
+			currentRow[0] = i;
+			int rowMin = i;
+			char c = term.charAt(i - 1);
+			for (int j = 1; j <= m; j++) {
+				int cost = c == word.charAt(j - 1) ? 0 : 1;
+				int value = Math.min(Math.min(currentRow[j - 1], previousRow[j]) + 1, previousRow[j - 1] + cost);
+				currentRow[j] = value;
+				rowMin = Math.min(rowMin, value);
+			}
+			if (rowMin > maxDistance) {
+				return rowMin;
+			}
+			int[] swap = previousRow;
+			previousRow = currentRow;
+			currentRow = swap;
+		}
+
+		// The distance to the best prefix of the word
+		int distance = Integer.MAX_VALUE;
+		for (int j = Math.max(0, n - maxDistance); j <= m; j++) {
+			distance = Math.min(distance, previousRow[j]);
+		}
+		return distance;
+	}
+
+	/**
+	 * Gets the actual command of a result. If the result comes from a {@link RibbonSearchEntry}, the groups of
+	 * its tab are created, and the control with the same text in the same group is returned.
+	 * @param result A result returned by this index.
+	 * @return The result of the control, or null if it could not be found.
+	 */
+	public RibbonSearchResult resolve(RibbonSearchResult result) {
+		if (result.isMaterialized()) {
+			return result;
+		}
+
+		result.getTab().createGroups();
+
+		TabWatcher watcher = tabWatchers.get(result.getTab());
+		return watcher == null ? null : watcher.find(result.getText(), result.getGroupText());
+	}
+
+	/**
+	 * Splits the text in lower case words of letters and digits, without repetitions.
+	 */
+	static String[] tokenize(String text) {
+		if (text == null || text.isEmpty()) {
+			return NO_TOKENS;
+		}
+
+		Set<String> tokens = new LinkedHashSet<String>();
+		int start = -1;
+		for (int i = 0; i <= text.length(); i++) {
+			boolean isWordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+			if (isWordChar && start == -1) {
+				start = i;
+			}
+			else if (!isWordChar && start != -1) {
+				tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+				start = -1;
+			}
+		}
+		return tokens.toArray(new String[tokens.size()]);
+	}
+
+	private void addPostings(RibbonSearchResult result, String[] tokens, int field) {
+		for (String token : tokens) {
+			postings.computeIfAbsent(token, t -> new HashMap<RibbonSearchResult, Integer>(4)).merge(result, field, (a, b) -> a | b);
+		}
+	}
+
+	private void removePostings(RibbonSearchResult result, String[] tokens) {
+		for (String token : tokens) {
+			Map<RibbonSearchResult, Integer> results = postings.get(token);
+			if (results != null) {
+				results.remove(result);
+				if (results.isEmpty()) {
+					postings.remove(token);
+				}
+			}
+		}
+	}
+
+	private void index(RibbonSearchResult result) {
+		Object source = result.getSource();
+		String text = null;
+		String description = null;
+
+		if (source instanceof Labeled) {
+			text = ((Labeled) source).getText();
+			Tooltip tooltip = ((Labeled) source).getTooltip();
+			description = tooltip == null ? null : tooltip.getText();
+		}
+		else if (source instanceof MenuItem) {
+			text = ((MenuItem) source).getText();
+		}
+		else if (source instanceof RibbonGalleryItem) {
+			text = ((RibbonGalleryItem) source).getText();
+			description = ((RibbonGalleryItem) source).getDescription();
+		}
+		else if (source instanceof RibbonSearchEntry) {
+			text = ((RibbonSearchEntry) source).getText();
+			description = ((RibbonSearchEntry) source).getDescription();
+		}
+
+		result.text = text == null ? "" : text;
+		result.description = description;
+		result.textTokens = tokenize(text);
+		result.descriptionTokens = tokenize(description);
+
+		addPostings(result, result.textTokens, TEXT_FIELD);
+		addPostings(result, result.descriptionTokens, DESCRIPTION_FIELD);
+		size++;
+	}
+
+	private void unindex(RibbonSearchResult result) {
+		removePostings(result, result.textTokens);
+		removePostings(result, result.descriptionTokens);
+		size--;
+	}
+
+	/**
+	 * Keeps a command indexed with its current text and description.
+	 */
+	private final class SourceWatcher implements InvalidationListener {
+		private final RibbonSearchResult result;
+		private Tooltip tooltip;
+
+		SourceWatcher(RibbonSearchResult result) {
+			this.result = result;
+
+			Object source = result.getSource();
+			if (source instanceof Labeled) {
+				((Labeled) source).textProperty().addListener(this);
+				((Labeled) source).tooltipProperty().addListener(this);
+				updateTooltip();
+			}
+			else if (source instanceof MenuItem) {
+				((MenuItem) source).textProperty().addListener(this);
+			}
+			else if (source instanceof RibbonGalleryItem) {
+				((RibbonGalleryItem) source).textProperty().addListener(this);
+				((RibbonGalleryItem) source).descriptionProperty().addListener(this);
+			}
+
+			index(result);
+		}
+
+		private void updateTooltip() {
+			Tooltip value = ((Control) result.getSource()).getTooltip();
+			if (value != tooltip) {
+				if (tooltip != null) {
+					tooltip.textProperty().removeListener(this);
+				}
+				tooltip = value;
+				if (tooltip != null) {
+					tooltip.textProperty().addListener(this);
+				}
+			}
+		}
+
+		@Override
+		public void invalidated(Observable observable) {
+			if (result.getSource() instanceof Labeled) {
+				updateTooltip();
+			}
+			unindex(result);
+			index(result);
+		}
+
+		void dispose() {
+			Object source = result.getSource();
+			if (source instanceof Labeled) {
+				((Labeled) source).textProperty().removeListener(this);
+				((Labeled) source).tooltipProperty().removeListener(this);
+				if (tooltip != null) {
+					tooltip.textProperty().removeListener(this);
+				}
+			}
+			else if (source instanceof MenuItem) {
+				((MenuItem) source).textProperty().removeListener(this);
+			}
+			else if (source instanceof RibbonGalleryItem) {
+				((RibbonGalleryItem) source).textProperty().removeListener(this);
+				((RibbonGalleryItem) source).descriptionProperty().removeListener(this);
+			}
+			unindex(result);
+		}
+	}
+
+	/**
+	 * Indexes a control of a group, and the items of menu buttons and galleries.
+	 */
+	private final class NodeWatcher {
+		private final SourceWatcher nodeSource;
+		private final List<SourceWatcher> itemSources = new ArrayList<SourceWatcher>();
+		private final ObservableList<?> items;
+		private final InvalidationListener itemsListener;
+
+		NodeWatcher(Node node, RibbonTab tab, RibbonGroup group) {
+			nodeSource = node instanceof Labeled ? new SourceWatcher(new RibbonSearchResult(node, node, tab, group)) : null;
+
+			if (node instanceof MenuButton) {
+				items = ((MenuButton) node).getItems();
+			} else if (node instanceof RibbonGallery) {
+				items = ((RibbonGallery) node).getItems();
+			} else {
+				items = null;
+			}
+
+			if (items != null) {
+				// Item lists are usually replaced at once, so they are indexed again completely
+				itemsListener = obs -> updateItems(node, tab, group);
+				items.addListener(itemsListener);
+				updateItems(node, tab, group);
+			} else {
+				itemsListener = null;
+			}
+		}
+
+		private void updateItems(Node node, RibbonTab tab, RibbonGroup group) {
+			for (SourceWatcher source : itemSources) {
+				source.dispose();
+			}
+			itemSources.clear();
+			for (Object item : items) {
+				itemSources.add(new SourceWatcher(new RibbonSearchResult(item, node, tab, group)));
+			}
+		}
+
+		RibbonSearchResult find(String text) {
+			if (nodeSource != null && text.equalsIgnoreCase(nodeSource.result.getText())) {
+				return nodeSource.result;
+			}
+			for (SourceWatcher source : itemSources) {
+				if (text.equalsIgnoreCase(source.result.getText())) {
+					return source.result;
+				}
+			}
+			return null;
+		}
+
+		void dispose() {
+			if (nodeSource != null) {
+				nodeSource.dispose();
+			}
+			if (items != null) {
+				items.removeListener(itemsListener);
+			}
+			for (SourceWatcher source : itemSources) {
+				source.dispose();
+			}
+			itemSources.clear();
+		}
+	}
+
+	private final class GroupWatcher {
+		private final RibbonGroup group;
+		private final RibbonTab tab;
+		private final Map<Node, NodeWatcher> nodes = new IdentityHashMap<Node, NodeWatcher>();
+
+		private final ListChangeListener<Node> nodesListener = c -> {
+			while (c.next()) {
+				for (Node node : c.getRemoved()) {
+					if (!getGroup().getNodes().contains(node)) {
+						NodeWatcher watcher = nodes.remove(node);
+						if (watcher != null) {
+							watcher.dispose();
+						}
+					}
+				}
+				for (Node node : c.getAddedSubList()) {
+					addNode(node);
+				}
+			}
+		};
+
+		GroupWatcher(RibbonGroup group, RibbonTab tab) {
+			this.group = group;
+			this.tab = tab;
+			group.getNodes().addListener(nodesListener);
+			for (Node node : group.getNodes()) {
+				addNode(node);
+			}
+		}
+
+		private RibbonGroup getGroup() {
+			return group;
+		}
+
+		private void addNode(Node node) {
+			if (!nodes.containsKey(node)) {
+				nodes.put(node, new NodeWatcher(node, tab, group));
+			}
+		}
+
+		void dispose() {
+			group.getNodes().removeListener(nodesListener);
+			for (NodeWatcher watcher : nodes.values()) {
+				watcher.dispose();
+			}
+			nodes.clear();
+		}
+	}
+
+	private final class TabWatcher {
+		private final RibbonTab tab;
+		private final Map<RibbonGroup, GroupWatcher> groups = new IdentityHashMap<RibbonGroup, GroupWatcher>();
+		/** The search entries of the tab, only indexed while its groups are pending. */
+		private final List<SourceWatcher> entries = new ArrayList<SourceWatcher>();
+
+		private final ListChangeListener<RibbonGroup> groupsListener = c -> {
+			while (c.next()) {
+				for (RibbonGroup group : c.getRemoved()) {
+					if (!getTab().getGroups().contains(group)) {
+						GroupWatcher watcher = groups.remove(group);
+						if (watcher != null) {
+							watcher.dispose();
+						}
+					}
+				}
+				for (RibbonGroup group : c.getAddedSubList()) {
+					addGroup(group);
+				}
+			}
+			updateEntries();
+		};
+		private final InvalidationListener entriesListener = obs -> updateEntries();
+		private final ChangeListener<Object> factoryListener = (obs, oldValue, newValue) -> updateEntries();
+
+		TabWatcher(RibbonTab tab) {
+			this.tab = tab;
+
+			tab.getGroups().addListener(groupsListener);
+			tab.getSearchEntries().addListener(entriesListener);
+			tab.groupsFactoryProperty().addListener(factoryListener);
+
+			for (RibbonGroup group : tab.getGroups()) {
+				addGroup(group);
+			}
+			updateEntries();
+		}
+
+		private RibbonTab getTab() {
+			return tab;
+		}
+
+		private void addGroup(RibbonGroup group) {
+			if (!groups.containsKey(group)) {
+				groups.put(group, new GroupWatcher(group, tab));
+			}
+		}
+
+		private void updateEntries() {
+			for (SourceWatcher entry : entries) {
+				entry.dispose();
+			}
+			entries.clear();
+
+			if (tab.isGroupsPending()) {
+				for (RibbonSearchEntry entry : tab.getSearchEntries()) {
+					entries.add(new SourceWatcher(new RibbonSearchResult(entry, null, tab, null)));
+				}
+			}
+		}
+
+		RibbonSearchResult find(String text, String groupText) {
+			for (RibbonGroup group : tab.getGroups()) {
+				GroupWatcher watcher = groups.get(group);
+				if (watcher == null || (groupText != null && !groupText.equals(group.getText()))) continue;
+
+				for (Node node : group.getNodes()) {
+					NodeWatcher nodeWatcher = watcher.nodes.get(node);
+					RibbonSearchResult result = nodeWatcher == null ? null : nodeWatcher.find(text);
+					if (result != null) {
+						return result;
+					}
+				}
+			}
+			return null;
+		}
+
+		void dispose() {
+			tab.getGroups().removeListener(groupsListener);
+			tab.getSearchEntries().removeListener(entriesListener);
+			tab.groupsFactoryProperty().removeListener(factoryListener);
+
+			for (GroupWatcher watcher : groups.values()) {
+				watcher.dispose();
+			}
+			groups.clear();
+			for (SourceWatcher entry : entries) {
+				entry.dispose();
+			}
+			entries.clear();
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package io.github.emd4600.javafxribbon;
+
+import javafx.scene.Node;
+import javafx.scene.control.MenuItem;
+
+/**
+ * A command found by the ribbon command search. It can be a ribbon control, an item of a menu button or gallery,
+ * or a {@link RibbonSearchEntry} of a tab whose groups have not been created yet; in that case,
+ * {@link RibbonSearchIndex#resolve(RibbonSearchResult)} creates them and returns the actual command.
+ * <p>
+ * Results are kept updated by the index: their text and description always reflect the ones of the command.
+ */
+public final class RibbonSearchResult {
+
+	private final Object source;
+	private final Node node;
+	private final RibbonTab tab;
+	private final RibbonGroup group;
+
+	String text;
+	String description;
+	/** The normalized tokens of the text and description, as they are in the index. */
+	String[] textTokens;
+	String[] descriptionTokens;
+
+	RibbonSearchResult(Object source, Node node, RibbonTab tab, RibbonGroup group) {
+		this.source = source;
+		this.node = node;
+		this.tab = tab;
+		this.group = group;
+	}
+
+	Object getSource() {
+		return source;
+	}
+
+	/**
+	 * Gets the text of the command.
+	 * @return Text
+	 */
+	public String getText() {
+		return text;
+	}
+
+	/**
+	 * Gets the longer description of the command, such as its tooltip, or null if it has none.
+	 * @return Description
+	 */
+	public String getDescription() {
+		return description;
+	}
+
+	/**
+	 * Gets the tab that contains the command.
+	 * @return Ribbon tab
+	 */
+	public RibbonTab getTab() {
+		return tab;
+	}
+
+	/**
+	 * Gets the text of the group that contains the command, or null if it is not known.
+	 * @return Group text
+	 */
+	public String getGroupText() {
+		if (group != null) {
+			return group.getText();
+		}
+		return source instanceof RibbonSearchEntry ? ((RibbonSearchEntry) source).getGroupText() : null;
+	}
+
+	/**
+	 * Gets the control that executes the command: the ribbon control itself, or the menu button or gallery
+	 * that contains the item. It is null if the groups of the tab have not been created yet.
+	 * @return Control
+	 */
+	public Node getNode() {
+		return node;
+	}
+
+	/**
+	 * Gets the menu item, if the command is an item of a ribbon menu button.
+	 * @return Menu item, or null
+	 */
+	public MenuItem getMenuItem() {
+		return source instanceof MenuItem ? (MenuItem) source : null;
+	}
+
+	/**
+	 * Gets the gallery item, if the command is an item of a {@link RibbonGallery}.
+	 * @return Gallery item, or null
+	 */
+	public RibbonGalleryItem getGalleryItem() {
+		return source instanceof RibbonGalleryItem ? (RibbonGalleryItem) source : null;
+	}
+
+	/**
+	 * Whether the control of this command exists, that is, the groups of its tab have been created.
+	 * @return True if the command can be executed directly
+	 */
+	public boolean isMaterialized() {
+		return node != null;
+	}
+
+	@Override
+	public String toString() {
+		return text + " (" + (tab == null ? "" : tab.getText()) + " > " + getGroupText() + ")";
+	}
+}
@@ -21,6 +21,7 @@ package io.github.emd4600.javafxribbon;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Supplier;
 
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.ObjectProperty;
@@ -71,6 +72,17 @@ public class RibbonTab implements Styleable {
 		getStyleClass().add(DEFAULT_STYLE_CLASS);
 	}
 	
+	/**
+	 * Constructs a new ribbon tab whose groups are created the first time the tab is displayed.
+	 * @param text The text that is displayed in the tab selection button.
+	 * @param groupsFactory Creates the ribbon groups that contain the controls.
+	 * @see #setGroupsFactory(Supplier)
+	 */
+	public RibbonTab(String text, Supplier<List<RibbonGroup>> groupsFactory) {
+		this(text);
+		setGroupsFactory(groupsFactory);
+	}
+	
 	
 	/**
 	 * The title text that is displayed in the tab selection button.
@@ -139,6 +151,79 @@ public class RibbonTab implements Styleable {
     	return groups;
     }
     
+    private ObjectProperty<Supplier<List<RibbonGroup>>> groupsFactory;
+    
+    /** Whether the groups factory has to be called before the groups are displayed. */
+    private boolean groupsPending;
+    
+    /**
+     * <p>An optional factory that creates the groups of this tab. It is called the first time the tab content
+     * is displayed or pre-warmed, and the groups it returns replace the ones in {@link #getGroups()}.
+     * This way, the controls of the tabs that are never opened are never created.</p>
+     * <p>Until then, the groups list does not contain the groups created by the factory; they can be created
+     * earlier by calling {@link #createGroups()}. Setting a new factory makes the groups be created again
+     * the next time the tab is displayed.</p>
+     * @return Groups factory property
+     */
+    public final ObjectProperty<Supplier<List<RibbonGroup>>> groupsFactoryProperty() {
+    	if (groupsFactory == null) {
+    		groupsFactory = new SimpleObjectProperty<Supplier<List<RibbonGroup>>>(this, "groupsFactory") {
+    			@Override protected void invalidated() {
+    				groupsPending = get() != null;
+    			}
+    		};
+    	}
+    	return groupsFactory;
+    }
+    
+    /**
+     * Gets the factory that creates the groups of this tab the first time it is displayed.
+     * @return Groups factory
+     */
+    public final Supplier<List<RibbonGroup>> getGroupsFactory() {
+    	return groupsFactory == null ? null : groupsFactory.get();
+    }
+    
+    /**
+     * Sets the factory that creates the groups of this tab the first time it is displayed.
+     * @param value Groups factory
+     */
+    public final void setGroupsFactory(Supplier<List<RibbonGroup>> value) {
+    	groupsFactoryProperty().set(value);
+    }
+    
+    /**
+     * Returns true if the groups factory has not been called yet.
+     * @return Whether the groups are pending to be created
+     */
+    public final boolean isGroupsPending() {
+    	return groupsPending;
+    }
+    
+    /**
+     * Calls the groups factory if it has not been called yet, replacing the tab groups with the ones it creates.
+     * This is done automatically when the tab is displayed.
+     */
+    public final void createGroups() {
+    	if (groupsPending) {
+    		groupsPending = false;
+    		groups.setAll(getGroupsFactory().get());
+    	}
+    }
+    
+    private final ObservableList<RibbonSearchEntry> searchEntries = FXCollections.observableArrayList();
+    
+    /**
+     * The commands of this tab that can be found with the ribbon command search while its groups have not been 
+     * created by the groups factory. Once the groups are created, these entries are ignored and the search uses
+     * the controls of the groups instead.
+     * @return Search entries
+     * @see Ribbon#getSearchIndex()
+     */
+    public final ObservableList<RibbonSearchEntry> getSearchEntries() {
+    	return searchEntries;
+    }
+    
     private ReadOnlyObjectWrapper<Ribbon> ribbon;
     
     final void setRibbon(Ribbon value) {
@@ -258,6 +343,32 @@ public class RibbonTab implements Styleable {
         return tooltip;
     }
     
+    private StringProperty keyTip;
+
+    /**
+     * <p>Sets the keys that select this tab when the keytips are shown, see {@link Ribbon#keyTipsEnabledProperty()}.
+     * If it is null, the keytip is generated from the tab text.</p>
+     * @param value Keytip
+     */
+    public final void setKeyTip(String value) { keyTipProperty().set(value); }
+
+    /**
+     * The keys that select this tab when the keytips are shown, or null if they are generated from the tab text.
+     * @return Keytip
+     */
+    public final String getKeyTip() { return keyTip == null ? null : keyTip.get(); }
+
+    /**
+     * The keys that select this tab when the keytips are shown.
+     * @return Keytip property
+     */
+    public final StringProperty keyTipProperty() {
+        if (keyTip == null) {
+            keyTip = new SimpleStringProperty(this, "keyTip");
+        }
+        return keyTip;
+    }
+    
     private ReadOnlyBooleanWrapper selected;
 
     protected final void setSelected(boolean value) {
@@ -21,6 +21,8 @@ package io.github.emd4600.javafxribbon;
 
 import java.io.InputStream;
 
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.layout.BorderPane;
@@ -28,7 +30,21 @@ import javafx.scene.layout.StackPane;
 
 public class RibbonWindow extends StackPane {
 
-	private final BorderPane pane = new BorderPane();
+	private final BorderPane pane = new BorderPane() {
+		@Override protected void layoutChildren() {
+			super.layoutChildren();
+			
+			RibbonPulseProfiler profiler = getPulseProfiler();
+			if (profiler != null && getCenter() != null) {
+				profiler.layoutContent(getCenter());
+			}
+		}
+	};
+	/** 
+	 * Displays nodes over the ribbon and the content, such as the ribbon content in dropdown state or custom menus.
+	 * Nodes are kept in it while hidden, so showing them again does not reapply their CSS.
+	 */
+	private final StackPane overlay = new StackPane();
 	private final Ribbon ribbon = new Ribbon();
 	
 	public RibbonWindow() {
@@ -38,6 +54,12 @@ public class RibbonWindow extends StackPane {
 		
 		setAlignment(Pos.TOP_LEFT);
 		
+		overlay.getStyleClass().add("ribbon-overlay");
+		overlay.setAlignment(Pos.TOP_LEFT);
+		// Only the overlay nodes receive mouse events, the rest goes to the ribbon and the content
+		overlay.setPickOnBounds(false);
+		getChildren().add(overlay);
+		
 		ribbon.setRibbonWindow(this);
 		pane.setTop(ribbon);
 	}
@@ -54,12 +76,120 @@ public class RibbonWindow extends StackPane {
 		return pane.getCenter();
 	}
 	
+	/**
+	 * Shows a node in the overlay layer, over the ribbon and the content. The node is aligned to the top left
+	 * corner of the window, use its translation to position it. The first time, the node is added to the layer;
+	 * afterwards, it is only made visible again, which avoids reapplying the CSS of the whole node.
+	 * @param node The node to show.
+	 */
+	public void showOverlay(Node node) {
+		if (node.getParent() != overlay) {
+			overlay.getChildren().add(node);
+		}
+		else if (overlay.getChildren().get(overlay.getChildren().size() - 1) != node) {
+			node.toFront();
+		}
+		node.setVisible(true);
+		node.setManaged(true);
+	}
+	
+	/**
+	 * Hides a node shown with {@link #showOverlay(Node)}. The node is kept in the overlay layer, 
+	 * so it can be shown again quickly; use {@link #removeOverlay(Node)} to release it.
+	 * @param node The node to hide.
+	 */
+	public void hideOverlay(Node node) {
+		if (node.getParent() == overlay) {
+			node.setVisible(false);
+			node.setManaged(false);
+		}
+	}
+	
+	/**
+	 * Removes a node from the overlay layer, whether it is shown or not.
+	 * @param node The node to remove.
+	 */
+	public void removeOverlay(Node node) {
+		if (overlay.getChildren().remove(node)) {
+			node.setVisible(true);
+			node.setManaged(true);
+		}
+	}
+	
+	/**
+	 * Whether the node is in the overlay layer and visible.
+	 * @param node The node.
+	 * @return True if the node is being shown in the overlay.
+	 */
+	public boolean isOverlayShown(Node node) {
+		return node.getParent() == overlay && node.isVisible();
+	}
+	
+	private ObjectProperty<RibbonPulseProfiler> pulseProfiler;
+	
+	/**
+	 * An optional profiler that measures the CSS and layout time spent on the ribbon and on the content
+	 * on every pulse. By default there is no profiler.
+	 * @return Pulse profiler property
+	 * @see RibbonPulseProfiler
+	 */
+	public final ObjectProperty<RibbonPulseProfiler> pulseProfilerProperty() {
+		if (pulseProfiler == null) {
+			pulseProfiler = new SimpleObjectProperty<RibbonPulseProfiler>(this, "pulseProfiler") {
+				private RibbonPulseProfiler installedProfiler;
+				
+				@Override protected void invalidated() {
+					if (installedProfiler != null) {
+						installedProfiler.uninstall();
+					}
+					installedProfiler = get();
+					if (installedProfiler != null) {
+						installedProfiler.install(RibbonWindow.this);
+					}
+				}
+			};
+		}
+		return pulseProfiler;
+	}
+	
+	/**
+	 * Gets the profiler that measures the CSS and layout time of every pulse, or null if there is none.
+	 * @return Pulse profiler
+	 */
+	public final RibbonPulseProfiler getPulseProfiler() {
+		return pulseProfiler == null ? null : pulseProfiler.get();
+	}
+	
+	/**
+	 * Sets the profiler that measures the CSS and layout time of every pulse. Use null to disable profiling.
+	 * @param value Pulse profiler
+	 */
+	public final void setPulseProfiler(RibbonPulseProfiler value) {
+		pulseProfilerProperty().set(value);
+	}
+	
+	/**
+	 * Whether the pane that contains the ribbon and the content has to be laid out, so the content size might change.
+	 */
+	boolean isContentLayoutPending() {
+		return pane.isNeedsLayout();
+	}
+	
 	@Override
 	public String getUserAgentStylesheet() {
-		return getClass().getResource("resource/ribbonstyle.css").toExternalForm();
+		return RibbonWindow.class.getResource("resource/ribbonstyle.css").toExternalForm();
 	}
 	
 	public InputStream getResource(String fileName) {
-		return getClass().getResourceAsStream("/emd4600/javafx/ribbon/resource/" + fileName);
+		return RibbonWindow.class.getResourceAsStream("resource/" + fileName);
+	}
+	
+	/**
+	 * Gets the URL of a built-in ribbon resource, to be loaded with {@link RibbonIconLoader}.
+	 * @param fileName The name of the resource file.
+	 * @return The URL of the resource, as a string.
+	 */
+	public String getResourceURL(String fileName) {
+		return RibbonWindow.class.getResource("resource/" + fileName).toExternalForm();
 	}
 }
@@ -1,9 +1,18 @@
 package io.github.emd4600.javafxribbon;
 
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
 import javafx.scene.text.Font;
 import javafx.scene.text.Text;
 import javafx.scene.text.TextBoundsType;
 
+/**
+ * Utilities to measure text. Text widths are cached by font and text, as the same words are measured 
+ * over and over when the ribbon buttons are laid out. All the methods must be called from the JavaFX thread.
+ */
 public class TextUtils {
 	static final Text helper;
     static final double DEFAULT_WRAPPING_WIDTH;
@@ -17,8 +26,78 @@ public class TextUtils {
         DEFAULT_TEXT = helper.getText();
         DEFAULT_BOUNDS_TYPE = helper.getBoundsType();
     }
+    
+    public static final int DEFAULT_TEXT_WIDTH_CACHE_SIZE = 4096;
+    
+    private static int textWidthCacheSize = DEFAULT_TEXT_WIDTH_CACHE_SIZE;
+    private static long textWidthCacheHits;
+    private static long textWidthCacheMisses;
+    
+    /** Measured text widths, in least recently used order. */
+    private static final Map<TextWidthKey, Double> textWidthCache = new LinkedHashMap<TextWidthKey, Double>(256, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+    	protected boolean removeEldestEntry(Map.Entry<TextWidthKey, Double> eldest) {
+    		return size() > textWidthCacheSize;
+    	}
+    };
+    
+    private static final class TextWidthKey {
+    	private final Font font;
+    	private final String text;
+    	private final double maxWidth;
+    	
+    	TextWidthKey(Font font, String text, double maxWidth) {
+    		this.font = font;
+    		this.text = text;
+    		this.maxWidth = maxWidth;
+    	}
+    	
+    	@Override
+    	public boolean equals(Object obj) {
+    		if (this == obj) return true;
+    		if (!(obj instanceof TextWidthKey)) return false;
+    		TextWidthKey other = (TextWidthKey) obj;
+    		return maxWidth == other.maxWidth && Objects.equals(font, other.font) && Objects.equals(text, other.text);
+    	}
+    	
+    	@Override
+    	public int hashCode() {
+    		return Objects.hash(font, text, maxWidth);
+    	}
+    }
 
+    /**
+     * Returns the width of the text when rendered with the specified font. The result is cached, so measuring
+     * the same text with the same font again is cheap.
+     * @param font The font used to render the text.
+     * @param text The text to measure.
+     * @param help0 The maximum width; use 0 to measure the text in a single line.
+     * @return The width of the text, in pixels.
+     */
     public static double computeTextWidth(Font font, String text, double help0) {
+    	TextWidthKey key = new TextWidthKey(font, text, help0);
+    	Double width = textWidthCache.get(key);
+    	if (width != null) {
+    		++textWidthCacheHits;
+    		return width;
+    	}
+    	
+    	++textWidthCacheMisses;
+    	double d = measureTextWidth(font, text, help0);
+    	textWidthCache.put(key, d);
+    	return d;
+    }
+    
+    /**
+     * Measures the width of the text when rendered with the specified font, without using the cache.
+     * @param font The font used to render the text.
+     * @param text The text to measure.
+     * @param help0 The maximum width; use 0 to measure the text in a single line.
+     * @return The width of the text, in pixels.
+     */
+    public static double measureTextWidth(Font font, String text, double help0) {
         // Toolkit.getToolkit().getFontLoader().computeStringWidth(field.getText(),
         // field.getFont());
 
@@ -36,4 +115,56 @@ public class TextUtils {
         helper.setText(DEFAULT_TEXT);
         return d;
     }
+    
+    /**
+     * Removes all the cached text widths. Fonts are part of the cache key, so this is only necessary when 
+     * a font is replaced by another one with the same name and size, for example when loading fonts at runtime.
+     * The hit and miss counters are not reset.
+     */
+    public static void clearTextWidthCache() {
+    	textWidthCache.clear();
+    }
+    
+    /**
+     * Sets the maximum number of text widths kept in the cache; the least recently used ones are discarded.
+     * @param size The maximum number of entries, 0 disables the cache.
+     */
+    public static void setTextWidthCacheSize(int size) {
+    	textWidthCacheSize = Math.max(size, 0);
+    	if (textWidthCache.size() > textWidthCacheSize) {
+    		Iterator<TextWidthKey> it = textWidthCache.keySet().iterator();
+    		while (textWidthCache.size() > textWidthCacheSize && it.hasNext()) {
+    			it.next();
+    			it.remove();
+    		}
+    	}
+    }
+    
+    public static int getTextWidthCacheSize() {
+    	return textWidthCacheSize;
+    }
+    
+    /**
+     * Returns how many times {@link #computeTextWidth(Font, String, double)} found the width in the cache.
+     * @return Number of cache hits
+     */
+    public static long getTextWidthCacheHits() {
+    	return textWidthCacheHits;
+    }
+    
+    /**
+     * Returns how many times {@link #computeTextWidth(Font, String, double)} had to measure the text.
+     * @return Number of cache misses
+     */
+    public static long getTextWidthCacheMisses() {
+    	return textWidthCacheMisses;
+    }
+    
+    /**
+     * Resets the cache hit and miss counters to 0.
+     */
+    public static void resetTextWidthCacheStatistics() {
+    	textWidthCacheHits = 0;
+    	textWidthCacheMisses = 0;
+    }
 }
@@ -1,39 +1,185 @@
 package io.github.emd4600.javafxribbon.skin;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import io.github.emd4600.javafxribbon.RibbonButton;
+import io.github.emd4600.javafxribbon.RibbonCustomMenuButton;
+import io.github.emd4600.javafxribbon.RibbonGroup.Tier;
+import io.github.emd4600.javafxribbon.RibbonMenuButton;
+import io.github.emd4600.javafxribbon.RibbonMetrics;
+import io.github.emd4600.javafxribbon.RibbonMetrics.Operation;
 import io.github.emd4600.javafxribbon.TextUtils;
+import javafx.collections.MapChangeListener;
 import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.control.ContentDisplay;
 import javafx.scene.control.Label;
 import javafx.scene.control.Labeled;
 import javafx.scene.control.OverrunStyle;
 import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
 import javafx.scene.shape.SVGPath;
+import javafx.scene.text.Font;
 
+/**
+ * Lays out the text of ribbon buttons in multiple lines, under the graphic. The line breaks are cached by text,
+ * font and graphic width, and the nodes of the previous layout are reused whenever possible, so updating
+ * the style or text of a button is cheap.
+ * <p>
+ * When the ribbon group of a button is reduced to the {@link Tier#MEDIUM} or {@link Tier#SMALL} tiers, the button
+ * is laid out in a single row instead: the graphic, the text (only in the medium tier) and the arrow.
+ */
 public class ButtonTextHelper {
 	
+	private static final int LINE_LAYOUT_CACHE_SIZE = 1024;
+	
+	/** Used in the properties of the labels created by this class, to tell them apart from the graphic. */
+	private static final String TEXT_LINE_KEY = "ribbon-text-line";
+	/** Used in the properties of the container to keep the arrow, so it can be reused. */
+	private static final String ARROW_KEY = "ribbon-expand-arrow";
+	/** Used in the properties of the container to keep the row used by the compact tiers, so it can be reused. */
+	private static final String ROW_KEY = "ribbon-compact-row";
+	/** Used in the properties of the container to keep the label used by the compact tiers. */
+	private static final String ROW_LABEL_KEY = "ribbon-compact-label";
+	/** Used in the properties of the button to store the tier it must be laid out with. */
+	private static final String TIER_KEY = "ribbon-button-tier";
+	/** Used in the properties of the button to store the preferred width set by the last layout. */
+	private static final String LAYOUT_WIDTH_KEY = "ribbon-layout-width";
+	
+	/** The extra horizontal space given to buttons, besides their content and insets. */
+	private static final double BUTTON_PADDING = 10;
+	/** The space between the graphic, text and arrow in the compact tiers. */
+	private static final double COMPACT_SPACING = 3;
+	/** The width of the arrow path. */
+	private static final double ARROW_WIDTH = 7;
+	
+	/** The result of splitting a text in lines. */
+	private static final class LineLayout {
+		private final String[] lines;
+		private final int wordCount;
+		private final double minimumWidth;
+		
+		LineLayout(String[] lines, int wordCount, double minimumWidth) {
+			this.lines = lines;
+			this.wordCount = wordCount;
+			this.minimumWidth = minimumWidth;
+		}
+	}
+	
+	private static final class LineLayoutKey {
+		private final String text;
+		private final Font font;
+		private final double graphicWidth;
+		
+		LineLayoutKey(String text, Font font, double graphicWidth) {
+			this.text = text;
+			this.font = font;
+			this.graphicWidth = graphicWidth;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) return true;
+			if (!(obj instanceof LineLayoutKey)) return false;
+			LineLayoutKey other = (LineLayoutKey) obj;
+			return graphicWidth == other.graphicWidth && Objects.equals(font, other.font) && Objects.equals(text, other.text);
+		}
+		
+		@Override
+		public int hashCode() {
+			return Objects.hash(text, font, graphicWidth);
+		}
+	}
+	
+	private static final Map<LineLayoutKey, LineLayout> lineLayoutCache = new LinkedHashMap<LineLayoutKey, LineLayout>(256, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<LineLayoutKey, LineLayout> eldest) {
+			return size() > LINE_LAYOUT_CACHE_SIZE;
+		}
+	};
+	
+	/**
+	 * Removes all the cached line layouts.
+	 */
+	public static void clearLineLayoutCache() {
+		lineLayoutCache.clear();
+	}
+	
+	/**
+	 * Whether the node is a button laid out by this class, and therefore supports all the group tiers.
+	 */
+	static boolean isRibbonButton(Node node) {
+		return node instanceof RibbonButton || node instanceof RibbonMenuButton || node instanceof RibbonCustomMenuButton;
+	}
+	
+	/**
+	 * Whether the button displays the expand arrow, that is, whether it shows a menu.
+	 */
+	static boolean showsArrow(Node node) {
+		return node instanceof RibbonMenuButton || node instanceof RibbonCustomMenuButton;
+	}
+	
+	/**
+	 * Sets the tier the button must be laid out with. The button skin updates immediately.
+	 * @param labeled The ribbon button.
+	 * @param tier The tier; {@link Tier#COLLAPSED} is not valid for buttons.
+	 */
+	static void setButtonTier(Labeled labeled, Tier tier) {
+		if (tier == null || tier == Tier.LARGE) {
+			labeled.getProperties().remove(TIER_KEY);
+		}
+		else {
+			labeled.getProperties().put(TIER_KEY, tier);
+		}
+	}
+	
+	static Tier getButtonTier(Labeled labeled) {
+		Object tier = labeled.getProperties().get(TIER_KEY);
+		return tier == null ? Tier.LARGE : (Tier) tier;
+	}
+	
+	/**
+	 * Makes the skin update every time the tier of the button changes. The update is executed immediately,
+	 * as the tier is changed while the ribbon is being laid out.
+	 */
+	static void addTierListener(Labeled labeled, DeferredSkinUpdate deferredUpdate) {
+		labeled.getProperties().addListener((MapChangeListener<Object, Object>) c -> {
+			if (TIER_KEY.equals(c.getKey())) {
+				deferredUpdate.request();
+				deferredUpdate.flush();
+			}
+		});
+	}
+	
 	private static Label createLabel(String text) {
 		Label label = new Label(text);
 		label.setTextOverrun(OverrunStyle.CLIP);
+		label.getProperties().put(TEXT_LINE_KEY, Boolean.TRUE);
 		return label;
 	}
-
-	public static void layoutButton(Labeled labeled, Pane container, boolean showArrow) {
-		container.getChildren().clear();
-		
-		String text = labeled.getText();
-		Node graphic = labeled.getGraphic();
-		
+	
+	/**
+	 * Splits the text in lines so that no line is wider than the widest word or the graphic.
+	 * @param graphicWidth The width of the graphic, or -1 if there is no graphic.
+	 */
+	private static LineLayout computeLineLayout(String text, Font font, double graphicWidth) {
 		// Separate the text in words
 		String[] words = text.split(" ");
 		
-		double spaceWidth = TextUtils.computeTextWidth(labeled.getFont(), " ", 0.0d);
+		double spaceWidth = TextUtils.computeTextWidth(font, " ", 0.0d);
 		
 		// Get how much pixels each word uses horizontally
 		double[] widths = new double[words.length];
 		for (int i = 0; i < words.length; i++) {
-			widths[i] = TextUtils.computeTextWidth(labeled.getFont(), words[i], 0.0d);
+			widths[i] = TextUtils.computeTextWidth(font, words[i], 0.0d);
 		}
 		
 		// The button must be able to fit the biggest word, so that will be the minimum width
@@ -45,20 +191,12 @@ public class ButtonTextHelper {
 		}
 		
 		// The button must also be able to fit the graphic
-		if (graphic != null) {
-			// The graphic width is expected to be set as the ribbon button preferred width
-			double width = labeled.getPrefWidth();
-			
-			// Might not work, so take it directly from the ImageView if possible
-			if (width == -1.0 && graphic instanceof ImageView) {
-				width = ((ImageView) graphic).getFitWidth();
-			}
-			
-			minimumWidth = Math.max(minimumWidth, width);
-			
-			container.getChildren().add(graphic);
+		if (graphicWidth != -1.0) {
+			minimumWidth = Math.max(minimumWidth, graphicWidth);
 		}
 		
+		List<String> lines = new ArrayList<String>();
+		
 		if (!text.trim().isEmpty() && words.length > 0) {
 			
 			StringBuilder sb = new StringBuilder();
@@ -69,7 +207,7 @@ public class ButtonTextHelper {
 			for (int i = 1; i < words.length; i++) {
 				if (currentLength + spaceWidth + widths[i] > minimumWidth) {
 					// We can't fit a new word, so save the previous line and start a new one
-					container.getChildren().add(createLabel(sb.toString()));
+					lines.add(sb.toString());
 					
 					// Reset
 					sb.setLength(0);
@@ -85,29 +223,220 @@ public class ButtonTextHelper {
 				currentLength += widths[i];
 			}
 			
-			container.getChildren().add(createLabel(sb.toString()));
+			lines.add(sb.toString());
+		}
+		
+		return new LineLayout(lines.toArray(new String[lines.size()]), words.length, minimumWidth);
+	}
+
+	public static void layoutButton(Labeled labeled, Pane container, boolean showArrow) {
+		layoutButton(labeled, container, showArrow, RibbonMetrics.of(labeled));
+	}
+	
+	/**
+	 * Lays out the button, recording the time in the given metrics. Skins keep a {@link RibbonReference} to get them,
+	 * instead of looking for the ribbon on every layout.
+	 */
+	static void layoutButton(Labeled labeled, Pane container, boolean showArrow, RibbonMetrics metrics) {
+		long start = metrics == null ? 0 : System.nanoTime();
+		
+		doLayoutButton(labeled, container, showArrow);
+		
+		if (metrics != null) {
+			metrics.record(Operation.LAYOUT_BUTTON, System.nanoTime() - start);
+		}
+	}
+	
+	private static double getGraphicWidth(Labeled labeled) {
+		Node graphic = labeled.getGraphic();
+		if (graphic == null) {
+			return -1.0;
+		}
+		
+		// The graphic width is expected to be set as the ribbon button preferred width,
+		// unless that width was set by a previous layout
+		double graphicWidth = labeled.getPrefWidth();
+		Object layoutWidth = labeled.getProperties().get(LAYOUT_WIDTH_KEY);
+		if (layoutWidth != null && (Double) layoutWidth == graphicWidth) {
+			graphicWidth = -1.0;
+		}
+		
+		// Might not work, so take it directly from the ImageView if possible
+		if (graphicWidth == -1.0 && graphic instanceof ImageView) {
+			graphicWidth = ((ImageView) graphic).getFitWidth();
+		}
+		return graphicWidth;
+	}
+	
+	private static LineLayout getLineLayout(Labeled labeled) {
+		String text = labeled.getText() == null ? "" : labeled.getText();
+		double graphicWidth = getGraphicWidth(labeled);
+		
+		LineLayoutKey key = new LineLayoutKey(text, labeled.getFont(), graphicWidth);
+		LineLayout layout = lineLayoutCache.get(key);
+		if (layout == null) {
+			layout = computeLineLayout(text, labeled.getFont(), graphicWidth);
+			lineLayoutCache.put(key, layout);
+		}
+		return layout;
+	}
+	
+	private static boolean showsCompactText(Labeled labeled, Tier tier) {
+		String text = labeled.getText();
+		// Buttons without graphic always show their text
+		return text != null && !text.isEmpty() && (tier == Tier.MEDIUM || labeled.getGraphic() == null);
+	}
+	
+	/**
+	 * Computes the preferred width a button would have when laid out with the specified tier, without laying it out.
+	 * It only uses cached text widths, so it is cheap enough to be called on every ribbon layout.
+	 * @param labeled The ribbon button.
+	 * @param tier The tier.
+	 * @param showArrow Whether the button displays the expand arrow.
+	 * @return The preferred width of the button.
+	 */
+	static double computeButtonWidth(Labeled labeled, Tier tier, boolean showArrow) {
+		Insets insets = labeled.getInsets();
+		double width;
+		
+		if (tier == Tier.MEDIUM || tier == Tier.SMALL) {
+			width = 0;
+			int items = 0;
 			
+			Node graphic = labeled.getGraphic();
+			if (graphic != null) {
+				double graphicWidth = getGraphicWidth(labeled);
+				width += graphicWidth > 0 ? graphicWidth : graphic.prefWidth(-1);
+				items++;
+			}
+			if (showsCompactText(labeled, tier)) {
+				width += TextUtils.computeTextWidth(labeled.getFont(), labeled.getText(), 0.0d);
+				items++;
+			}
 			if (showArrow) {
-				Label arrowLabel = (Label) (container.getChildren().get(container.getChildren().size() - 1));
-				
-				if (words.length == 1) {
-					arrowLabel.setContentDisplay(ContentDisplay.BOTTOM);
-				}
-				else {
-					arrowLabel.setContentDisplay(ContentDisplay.RIGHT);
-				}
-				
-				SVGPath arrow = new SVGPath();
-				arrow.getStyleClass().add("ribbon-expand-arrow");
-				arrow.setContent("M 0 0 h 7 l -3.5 4 z");
-				arrowLabel.setGraphic(arrow);
+				width += ARROW_WIDTH;
+				items++;
 			}
+			width += COMPACT_SPACING * Math.max(items - 1, 0);
+		}
+		else {
+			width = getLineLayout(labeled).minimumWidth;
 		}
 		
-		Insets insets = labeled.getInsets();
+		return width + BUTTON_PADDING + insets.getLeft() + insets.getRight();
+	}
+	
+	private static SVGPath getArrow(Pane container) {
+		SVGPath arrow = (SVGPath) container.getProperties().get(ARROW_KEY);
+		if (arrow == null) {
+			arrow = new SVGPath();
+			arrow.getStyleClass().add("ribbon-expand-arrow");
+			arrow.setContent("M 0 0 h 7 l -3.5 4 z");
+			container.getProperties().put(ARROW_KEY, arrow);
+		}
+		return arrow;
+	}
+	
+	private static void setLayoutWidth(Labeled labeled, double width) {
+		labeled.setMinWidth(width);
+		labeled.setPrefWidth(width);
+		labeled.getProperties().put(LAYOUT_WIDTH_KEY, width);
+	}
+	
+	private static void layoutCompactButton(Labeled labeled, Pane container, boolean showArrow, Tier tier) {
+		HBox row = (HBox) container.getProperties().get(ROW_KEY);
+		Label label = (Label) container.getProperties().get(ROW_LABEL_KEY);
+		if (row == null) {
+			row = new HBox(COMPACT_SPACING);
+			row.setAlignment(Pos.CENTER_LEFT);
+			container.getProperties().put(ROW_KEY, row);
+			
+			label = new Label();
+			label.setTextOverrun(OverrunStyle.CLIP);
+			container.getProperties().put(ROW_LABEL_KEY, label);
+		}
 		
-		labeled.setMinWidth(minimumWidth + 10 + insets.getLeft() + insets.getRight());
-		labeled.setPrefWidth(minimumWidth + 10 + insets.getLeft() + insets.getRight());
+		List<Node> children = new ArrayList<Node>(3);
+		if (labeled.getGraphic() != null) {
+			children.add(labeled.getGraphic());
+		}
+		if (showsCompactText(labeled, tier)) {
+			label.setText(labeled.getText());
+			children.add(label);
+		}
+		if (showArrow) {
+			children.add(getArrow(container));
+		}
+		
+		if (!children.equals(row.getChildren())) {
+			row.getChildren().setAll(children);
+		}
+		if (container.getChildren().size() != 1 || container.getChildren().get(0) != row) {
+			container.getChildren().setAll(row);
+		}
+		
+		setLayoutWidth(labeled, computeButtonWidth(labeled, tier, showArrow));
+	}
+	
+	private static void doLayoutButton(Labeled labeled, Pane container, boolean showArrow) {
+		Tier tier = getButtonTier(labeled);
+		if (tier == Tier.MEDIUM || tier == Tier.SMALL) {
+			layoutCompactButton(labeled, container, showArrow, tier);
+			return;
+		}
+		
+		Node graphic = labeled.getGraphic();
+		LineLayout layout = getLineLayout(labeled);
+		
+		// Reuse the labels of the previous layout
+		List<Label> oldLabels = new ArrayList<Label>();
+		for (Node node : container.getChildren()) {
+			if (node instanceof Label && node.getProperties().containsKey(TEXT_LINE_KEY)) {
+				oldLabels.add((Label) node);
+			}
+		}
+		
+		List<Node> children = new ArrayList<Node>(layout.lines.length + 1);
+		if (graphic != null) {
+			children.add(graphic);
+		}
 		
+		Label arrowLabel = null;
+		for (int i = 0; i < layout.lines.length; i++) {
+			Label label;
+			if (i < oldLabels.size()) {
+				label = oldLabels.get(i);
+				label.setText(layout.lines[i]);
+			}
+			else {
+				label = createLabel(layout.lines[i]);
+			}
+			
+			if (showArrow && i == layout.lines.length - 1) {
+				arrowLabel = label;
+			}
+			else {
+				label.setGraphic(null);
+			}
+			children.add(label);
+		}
+		
+		if (!children.equals(container.getChildren())) {
+			container.getChildren().setAll(children);
+		}
+		
+		if (arrowLabel != null) {
+			if (layout.wordCount == 1) {
+				arrowLabel.setContentDisplay(ContentDisplay.BOTTOM);
+			}
+			else {
+				arrowLabel.setContentDisplay(ContentDisplay.RIGHT);
+			}
+			
+			arrowLabel.setGraphic(getArrow(container));
+		}
+		
+		Insets insets = labeled.getInsets();
+		setLayoutWidth(labeled, layout.minimumWidth + BUTTON_PADDING + insets.getLeft() + insets.getRight());
 	}
 }
@@ -0,0 +1,251 @@
+package io.github.emd4600.javafxribbon.skin;
+
+import java.util.Collections;
+import java.util.List;
+
+import io.github.emd4600.javafxribbon.Ribbon;
+import io.github.emd4600.javafxribbon.Ribbon.RibbonState;
+import io.github.emd4600.javafxribbon.RibbonGallery;
+import io.github.emd4600.javafxribbon.RibbonMetrics;
+import io.github.emd4600.javafxribbon.RibbonMetrics.Operation;
+import io.github.emd4600.javafxribbon.RibbonSearchResult;
+import io.github.emd4600.javafxribbon.RibbonWindow;
+import javafx.application.Platform;
+import javafx.css.PseudoClass;
+import javafx.geometry.Bounds;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.stage.Popup;
+
+/**
+ * The command search box ("Tell me what you want to do") displayed next to the tab headers. Every keystroke
+ * queries the {@link Ribbon#getSearchIndex() search index} of the ribbon, and the results are shown in a popup
+ * below the text field, in a fixed number of rows that are reused. Executing a result selects its tab,
+ * creating its groups if needed, and activates the control as if it had been clicked.
+ */
+final class CommandSearchBox extends HBox {
+
+	private static final int MAX_RESULTS = 8;
+	private static final PseudoClass SELECTED_PSEUDOCLASS = PseudoClass.getPseudoClass("selected");
+
+	/** Displays one result: its text, and the tab and group where it is. */
+	private final class ResultRow extends VBox {
+		private final int index;
+		private final Label text = new Label();
+		private final Label location = new Label();
+
+		ResultRow(int index) {
+			this.index = index;
+			getStyleClass().add("ribbon-search-result");
+			location.getStyleClass().add("location");
+			getChildren().addAll(text, location);
+
+			setOnMouseEntered(event -> select(this.index));
+			setOnMouseClicked(event -> {
+				if (event.getButton() == MouseButton.PRIMARY) {
+					execute(this.index);
+				}
+			});
+		}
+
+		void setResult(RibbonSearchResult result) {
+			boolean show = result != null;
+			setVisible(show);
+			setManaged(show);
+			if (show) {
+				text.setText(result.getText());
+				String groupText = result.getGroupText();
+				location.setText(groupText == null ? result.getTab().getText() : result.getTab().getText() + " \u203A " + groupText);
+			}
+		}
+	}
+
+	private final Ribbon ribbon;
+	private final TextField field = new TextField();
+
+	private Popup popup;
+	private ResultRow[] rows;
+	/** Hides the results when the user clicks anywhere else in the window. */
+	private final DismissalHandler dismissal;
+
+	private List<RibbonSearchResult> results = Collections.emptyList();
+	private int selectedIndex = -1;
+
+	CommandSearchBox(Ribbon ribbon) {
+		this.ribbon = ribbon;
+
+		getStyleClass().addAll("ribbon-tab-header-outline", "ribbon-search-area");
+		setAlignment(Pos.CENTER_LEFT);
+
+		field.setPromptText("Tell me what you want to do");
+		field.getStyleClass().add("ribbon-search-box");
+		getChildren().add(field);
+
+		field.textProperty().addListener((obs, oldValue, newValue) -> updateResults());
+		field.addEventFilter(KeyEvent.KEY_PRESSED, this::handleKey);
+
+		dismissal = new DismissalHandler(this, (MouseEvent event) -> {
+			if (!field.contains(field.sceneToLocal(event.getSceneX(), event.getSceneY()))) {
+				hidePopup();
+			}
+		});
+	}
+
+	private void handleKey(KeyEvent event) {
+		switch (event.getCode()) {
+		case DOWN:
+			if (!results.isEmpty()) {
+				select((selectedIndex + 1) % results.size());
+				event.consume();
+			}
+			break;
+		case UP:
+			if (!results.isEmpty()) {
+				select((selectedIndex - 1 + results.size()) % results.size());
+				event.consume();
+			}
+			break;
+		case ENTER:
+			if (selectedIndex != -1) {
+				execute(selectedIndex);
+				event.consume();
+			}
+			break;
+		case ESCAPE:
+			field.clear();
+			hidePopup();
+			event.consume();
+			break;
+		default:
+			break;
+		}
+	}
+
+	private void updateResults() {
+		RibbonMetrics metrics = ribbon.getMetrics();
+		long start = metrics == null ? 0 : System.nanoTime();
+
+		String query = field.getText();
+		results = query == null || query.trim().isEmpty() ? Collections.emptyList() : ribbon.getSearchIndex().search(query, MAX_RESULTS);
+
+		if (results.isEmpty()) {
+			hidePopup();
+		}
+		else {
+			if (popup == null) {
+				createPopup();
+			}
+			for (int i = 0; i < rows.length; i++) {
+				rows[i].setResult(i < results.size() ? results.get(i) : null);
+			}
+			select(0);
+			showPopup();
+		}
+
+		if (metrics != null) {
+			metrics.record(Operation.COMMAND_SEARCH, System.nanoTime() - start);
+		}
+	}
+
+	private void select(int index) {
+		if (selectedIndex != -1) {
+			rows[selectedIndex].pseudoClassStateChanged(SELECTED_PSEUDOCLASS, false);
+		}
+		selectedIndex = index;
+		if (selectedIndex != -1) {
+			rows[selectedIndex].pseudoClassStateChanged(SELECTED_PSEUDOCLASS, true);
+		}
+	}
+
+	private void createPopup() {
+		VBox resultsPane = new VBox();
+		resultsPane.getStyleClass().add("ribbon-search-results");
+
+		rows = new ResultRow[MAX_RESULTS];
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = new ResultRow(i);
+			resultsPane.getChildren().add(rows[i]);
+		}
+
+		RibbonWindow window = ribbon.getRibbonWindow();
+		if (window != null) {
+			resultsPane.getStylesheets().add(window.getUserAgentStylesheet());
+		}
+
+		popup = new Popup();
+		popup.getContent().add(resultsPane);
+		popup.showingProperty().addListener((obs, oldValue, newValue) -> dismissal.setActive(newValue));
+	}
+
+	private void showPopup() {
+		if (!popup.isShowing() && field.getScene() != null && field.getScene().getWindow() != null) {
+			Bounds bounds = field.localToScreen(field.getBoundsInLocal());
+			popup.show(field, bounds.getMinX(), bounds.getMaxY());
+		}
+	}
+
+	private void hidePopup() {
+		if (popup != null) {
+			popup.hide();
+		}
+		select(-1);
+	}
+
+	private void execute(int index) {
+		RibbonSearchResult result = ribbon.getSearchIndex().resolve(results.get(index));
+		field.clear();
+		hidePopup();
+		if (result == null) return;
+
+		if (result.getTab().getRibbon() == ribbon) {
+			ribbon.getSelectionModel().select(result.getTab());
+			if (ribbon.getRibbonState() == RibbonState.MINIMIZED) {
+				ribbon.setRibbonState(RibbonState.DROPDOWN);
+			}
+		}
+
+		// Wait until the content of the tab is laid out, so that menus are shown in the right place
+		Scene scene = ribbon.getScene();
+		if (scene == null) {
+			activate(result);
+			return;
+		}
+		Runnable listener = new Runnable() {
+			@Override
+			public void run() {
+				scene.removePostLayoutPulseListener(this);
+				activate(result);
+			}
+		};
+		scene.addPostLayoutPulseListener(listener);
+		Platform.requestNextPulse();
+	}
+
+	private static void activate(RibbonSearchResult result) {
+		Node node = result.getNode();
+		if (node.isDisabled()) return;
+
+		if (result.getGalleryItem() != null) {
+			RibbonGallery gallery = (RibbonGallery) node;
+			if (gallery.getOnItemAction() != null) {
+				gallery.getOnItemAction().accept(result.getGalleryItem());
+			}
+		}
+		else if (result.getMenuItem() != null) {
+			if (!result.getMenuItem().isDisable()) {
+				result.getMenuItem().fire();
+			}
+		}
+		else {
+			KeyTipManager.activate(node);
+		}
+	}
+}
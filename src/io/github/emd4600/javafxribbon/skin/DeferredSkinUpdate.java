@@ -0,0 +1,134 @@
+package io.github.emd4600.javafxribbon.skin;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+
+/**
+ * Coalesces the update requests of a skin so that the update is executed only once per pulse, right before
+ * the CSS and layout passes. This way, changing the text, graphic and style of a control in a row only
+ * rebuilds its skin once.
+ * <p>
+ * There is a single pre-layout pulse listener per scene, which executes all the updates requested in it. It is
+ * only installed while there are pending updates, so requesting the updates of many controls does not add one
+ * listener per control to the scene.
+ */
+class DeferredSkinUpdate {
+
+	/** Executes the pending updates of a scene before its layout pass. */
+	private static final class ScenePulseListener implements Runnable {
+		private static final Object PROPERTIES_KEY = ScenePulseListener.class;
+
+		private final Scene scene;
+		/** The updates requested in the scene, in the order they were requested. */
+		private final Set<DeferredSkinUpdate> pending = new LinkedHashSet<DeferredSkinUpdate>();
+
+		private ScenePulseListener(Scene scene) {
+			this.scene = scene;
+		}
+
+		static void schedule(Scene scene, DeferredSkinUpdate update) {
+			ScenePulseListener listener = (ScenePulseListener) scene.getProperties().get(PROPERTIES_KEY);
+			if (listener == null) {
+				listener = new ScenePulseListener(scene);
+				scene.getProperties().put(PROPERTIES_KEY, listener);
+				scene.addPreLayoutPulseListener(listener);
+				Platform.requestNextPulse();
+			}
+			listener.pending.add(update);
+		}
+
+		static void cancel(Scene scene, DeferredSkinUpdate update) {
+			ScenePulseListener listener = (ScenePulseListener) scene.getProperties().get(PROPERTIES_KEY);
+			if (listener != null && listener.pending.remove(update) && listener.pending.isEmpty()) {
+				listener.uninstall();
+			}
+		}
+
+		private void uninstall() {
+			scene.removePreLayoutPulseListener(this);
+			// Another listener might have been installed if this one was uninstalled while it was running
+			scene.getProperties().remove(PROPERTIES_KEY, this);
+		}
+
+		@Override
+		public void run() {
+			// Updates can request other updates, which are executed in this same pulse
+			while (!pending.isEmpty()) {
+				List<DeferredSkinUpdate> updates = new ArrayList<DeferredSkinUpdate>(pending);
+				pending.clear();
+				for (DeferredSkinUpdate update : updates) {
+					update.scheduledScene = null;
+					update.flush();
+				}
+			}
+			uninstall();
+		}
+	}
+
+	private final Node node;
+	private final Runnable update;
+
+	private boolean dirty;
+	/** The scene where the update has been scheduled, if any. */
+	private Scene scheduledScene;
+
+	/**
+	 * @param node The node whose scene pulses are used.
+	 * @param update The update to execute.
+	 */
+	DeferredSkinUpdate(Node node, Runnable update) {
+		this.node = node;
+		this.update = update;
+
+		node.sceneProperty().addListener((obs, oldValue, newValue) -> {
+			// Move the pending update to the new scene
+			if (dirty) {
+				if (scheduledScene != null) {
+					ScenePulseListener.cancel(scheduledScene, this);
+					scheduledScene = null;
+				}
+				dirty = false;
+				request();
+			}
+		});
+	}
+
+	/**
+	 * Marks the skin as needing an update; the update will be executed on the next pulse. If the node
+	 * is not in a scene, the update is executed immediately.
+	 */
+	void request() {
+		if (dirty) return;
+		dirty = true;
+
+		Scene scene = node.getScene();
+		if (scene == null) {
+			flush();
+		}
+		else {
+			scheduledScene = scene;
+			ScenePulseListener.schedule(scene, this);
+		}
+	}
+
+	/**
+	 * Executes the update now if it has been requested.
+	 */
+	void flush() {
+		if (scheduledScene != null) {
+			ScenePulseListener.cancel(scheduledScene, this);
+			scheduledScene = null;
+		}
+
+		if (dirty) {
+			dirty = false;
+			update.run();
+		}
+	}
+}
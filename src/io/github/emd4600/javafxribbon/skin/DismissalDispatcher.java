@@ -0,0 +1,65 @@
+package io.github.emd4600.javafxribbon.skin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import javafx.event.EventHandler;
+import javafx.scene.Scene;
+import javafx.scene.input.MouseEvent;
+
+/**
+ * Routes the mouse presses of a scene to the ribbon popups, menus and dropdowns that are open in it, so they can 
+ * hide themselves when the user clicks outside of them. There is at most one dispatcher per scene, and its event
+ * filter is only installed while something is open: mouse presses do not run any code for closed ribbon controls.
+ * Controls use it through {@link DismissalHandler}.
+ */
+final class DismissalDispatcher {
+	
+	private static final Object PROPERTIES_KEY = DismissalDispatcher.class;
+	
+	private final Scene scene;
+	/** The handlers of the controls that are open, in the order they were opened. */
+	private final List<Consumer<MouseEvent>> handlers = new ArrayList<Consumer<MouseEvent>>();
+	private final EventHandler<MouseEvent> filter = this::dispatch;
+	
+	private DismissalDispatcher(Scene scene) {
+		this.scene = scene;
+	}
+	
+	static void register(Scene scene, Consumer<MouseEvent> handler) {
+		DismissalDispatcher dispatcher = (DismissalDispatcher) scene.getProperties().get(PROPERTIES_KEY);
+		if (dispatcher == null) {
+			dispatcher = new DismissalDispatcher(scene);
+			scene.getProperties().put(PROPERTIES_KEY, dispatcher);
+			scene.addEventFilter(MouseEvent.MOUSE_PRESSED, dispatcher.filter);
+		}
+		if (!dispatcher.handlers.contains(handler)) {
+			dispatcher.handlers.add(handler);
+		}
+	}
+	
+	static void unregister(Scene scene, Consumer<MouseEvent> handler) {
+		DismissalDispatcher dispatcher = (DismissalDispatcher) scene.getProperties().get(PROPERTIES_KEY);
+		if (dispatcher != null) {
+			dispatcher.handlers.remove(handler);
+			if (dispatcher.handlers.isEmpty()) {
+				scene.removeEventFilter(MouseEvent.MOUSE_PRESSED, dispatcher.filter);
+				scene.getProperties().remove(PROPERTIES_KEY);
+			}
+		}
+	}
+	
+	private void dispatch(MouseEvent event) {
+		// Handlers usually unregister themselves when they hide their control
+		List<Consumer<MouseEvent>> currentHandlers = new ArrayList<Consumer<MouseEvent>>(handlers);
+		for (Consumer<MouseEvent> handler : currentHandlers) {
+			handler.accept(event);
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "DismissalDispatcher[scene=" + scene + ", handlers=" + handlers.size() + "]";
+	}
+}
@@ -0,0 +1,64 @@
+package io.github.emd4600.javafxribbon.skin;
+
+import java.util.function.Consumer;
+
+import javafx.beans.value.ChangeListener;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.input.MouseEvent;
+
+/**
+ * Receives the mouse presses of the scene of a node while its popup, menu or dropdown is open, so that it 
+ * can be hidden when the user clicks outside of it. The handler must be activated when the control opens 
+ * and deactivated when it closes; while it is inactive, it costs nothing on mouse presses.
+ */
+final class DismissalHandler {
+	
+	private final Node owner;
+	private final Consumer<MouseEvent> handler;
+	
+	private boolean active;
+	/** The scene where the handler is registered, if any. */
+	private Scene registeredScene;
+	
+	private final ChangeListener<Scene> sceneListener = (obs, oldValue, newValue) -> updateRegistration();
+	
+	/**
+	 * @param owner The node whose scene receives the mouse presses.
+	 * @param handler Called with every mouse press in the scene while this handler is active.
+	 */
+	DismissalHandler(Node owner, Consumer<MouseEvent> handler) {
+		this.owner = owner;
+		this.handler = handler;
+	}
+	
+	boolean isActive() {
+		return active;
+	}
+	
+	void setActive(boolean active) {
+		if (this.active == active) return;
+		this.active = active;
+		
+		// Follow the owner if it is moved to another scene while active
+		if (active) {
+			owner.sceneProperty().addListener(sceneListener);
+		} else {
+			owner.sceneProperty().removeListener(sceneListener);
+		}
+		updateRegistration();
+	}
+	
+	private void updateRegistration() {
+		Scene scene = active ? owner.getScene() : null;
+		if (scene != registeredScene) {
+			if (registeredScene != null) {
+				DismissalDispatcher.unregister(registeredScene, handler);
+			}
+			if (scene != null) {
+				DismissalDispatcher.register(scene, handler);
+			}
+			registeredScene = scene;
+		}
+	}
+}
@@ -1,17 +1,37 @@
 package io.github.emd4600.javafxribbon.skin;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import io.github.emd4600.javafxribbon.RibbonGallery;
+import io.github.emd4600.javafxribbon.RibbonGalleryCell;
+import io.github.emd4600.javafxribbon.RibbonGalleryItem;
+import io.github.emd4600.javafxribbon.RibbonMetrics;
+import io.github.emd4600.javafxribbon.RibbonMetrics.Operation;
+import javafx.beans.InvalidationListener;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.ReadOnlyIntegerProperty;
 import javafx.beans.property.ReadOnlyIntegerWrapper;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleIntegerProperty;
+import javafx.collections.ListChangeListener;
+import javafx.event.ActionEvent;
 import javafx.geometry.Insets;
-import javafx.scene.Node;
 import javafx.scene.layout.Pane;
+import javafx.util.Callback;
 
+/**
+ * Displays the items of a {@link RibbonGallery} in a grid. Only the cells of the displayed rows (plus a few rows
+ * of overscan) are created; when the displayed row changes, the cells that go out of view are reused to display
+ * the new items.
+ */
 public class GalleryPane extends Pane {
-	
+
+	/** How many rows before and after the displayed ones have their cells ready, but hidden. */
+	private static final int OVERSCAN_ROWS = 1;
+
 	private final IntegerProperty displayedRow = new SimpleIntegerProperty(0){
 		@Override public void invalidated() {
             requestLayout();
@@ -32,131 +52,472 @@ public class GalleryPane extends Pane {
             requestLayout();
         }
 	};
-	
-	private int numRows;
+
+	private final RibbonGallery gallery;
+	/** All the cells that have been created, used or not. They are all children of this pane. */
+	private final List<RibbonGalleryCell> cells = new ArrayList<RibbonGalleryCell>();
+	/** A cell that is never displayed, used to measure the preferred size of the items. */
+	private RibbonGalleryCell measuringCell;
+
+	private final ReadOnlyIntegerWrapper numRows = new ReadOnlyIntegerWrapper(0);
 	private int numColumns;
 	private double tileWidth;
 	private double tileHeight;
 	private boolean paramsCalculated;
+
+	/** The maximum preferred size of the items, or -1 if it must be calculated again. */
+	private double itemsWidth = -1;
+	private double itemsHeight = -1;
+
+	private Consumer<RibbonGalleryItem> onItemAction;
+	
+	/** Listens to the item properties that affect their size. */
+	private final InvalidationListener itemSizeListener = obs -> {
+		refreshCells();
+		invalidateItemsSize();
+	};
+	/** Listens to the item properties that only need the cells to be updated. */
+	private final InvalidationListener itemContentListener = obs -> refreshCells();
+	
+	private final ListChangeListener<RibbonGalleryItem> itemsListener = c -> itemsChanged(c);
+	private final InvalidationListener cellFactoryListener = obs -> {
+		clearCells();
+		invalidateItems();
+	};
+	private final InvalidationListener displayPriorityListener = obs -> invalidateItems();
+	private final InvalidationListener fixedTileSizeListener = obs -> invalidateItemsSize();
+	
+	/** In expanded mode, the vertical region that is visible to the user; if the height is -1, all rows are visible. */
+	private double viewportY;
+	private double viewportHeight = -1;
+
+	public GalleryPane(RibbonGallery gallery) {
+		this.gallery = gallery;
+		
+		for (RibbonGalleryItem item : gallery.getItems()) {
+			addItemListeners(item);
+		}
+
+		gallery.getItems().addListener(itemsListener);
+		gallery.cellFactoryProperty().addListener(cellFactoryListener);
+		gallery.displayPriorityProperty().addListener(displayPriorityListener);
+		gallery.fixedTileWidthProperty().addListener(fixedTileSizeListener);
+		gallery.fixedTileHeightProperty().addListener(fixedTileSizeListener);
+	}
 	
+	/**
+	 * Removes all the listeners this pane has on the gallery and its items, and releases all the cells.
+	 * The pane must not be used after calling this method.
+	 */
+	public void dispose() {
+		for (RibbonGalleryItem item : gallery.getItems()) {
+			removeItemListeners(item);
+		}
+		
+		gallery.getItems().removeListener(itemsListener);
+		gallery.cellFactoryProperty().removeListener(cellFactoryListener);
+		gallery.displayPriorityProperty().removeListener(displayPriorityListener);
+		gallery.fixedTileWidthProperty().removeListener(fixedTileSizeListener);
+		gallery.fixedTileHeightProperty().removeListener(fixedTileSizeListener);
+		
+		clearCells();
+	}
+	
+	private void clearCells() {
+		// Release the item graphics so they can be used by other cells
+		for (RibbonGalleryCell cell : cells) {
+			cell.updateIndex(-1);
+		}
+		getChildren().clear();
+		cells.clear();
+		measuringCell = null;
+	}
+	
+	/**
+	 * In expanded mode, sets the vertical region of the pane that is visible to the user (for example, 
+	 * the viewport of a scroll pane); only the cells in that region are created.
+	 * @param y The start of the region, in local coordinates.
+	 * @param height The height of the region, or -1 if the whole pane is visible.
+	 */
+	public void setViewport(double y, double height) {
+		if (y != viewportY || height != viewportHeight) {
+			viewportY = y;
+			viewportHeight = height;
+			requestLayout();
+		}
+	}
+	
+	private void addItemListeners(RibbonGalleryItem item) {
+		item.textProperty().addListener(itemSizeListener);
+		item.graphicProperty().addListener(itemSizeListener);
+		item.descriptionProperty().addListener(itemContentListener);
+		item.disableProperty().addListener(itemContentListener);
+	}
+	
+	private void removeItemListeners(RibbonGalleryItem item) {
+		item.textProperty().removeListener(itemSizeListener);
+		item.graphicProperty().removeListener(itemSizeListener);
+		item.descriptionProperty().removeListener(itemContentListener);
+		item.disableProperty().removeListener(itemContentListener);
+	}
+	
+	/**
+	 * Forces the cells to update the visuals of the items they display.
+	 */
+	public void refreshCells() {
+		for (RibbonGalleryCell cell : cells) {
+			if (cell.getItem() != null) cell.refresh();
+		}
+	}
+	
+	/**
+	 * Makes the item size to be calculated again in the next layout. Multiple invalidations 
+	 * in the same pulse only cause one measurement.
+	 */
+	private void invalidateItemsSize() {
+		itemsWidth = -1;
+		itemsHeight = -1;
+		requestLayout();
+	}
+
+	/**
+	 * Sets the action executed when the user clicks an item cell.
+	 * @param action The action, which receives the clicked item.
+	 */
+	public void setOnItemAction(Consumer<RibbonGalleryItem> action) {
+		onItemAction = action;
+	}
+
+	/**
+	 * Forces all the cells to update the item they display and the item sizes to be calculated again.
+	 */
+	public void invalidateItems() {
+		for (RibbonGalleryCell cell : cells) {
+			cell.updateIndex(-1);
+		}
+		invalidateItemsSize();
+	}
+	
+	/**
+	 * Updates the cells affected by a change in the gallery items. Cells that display items that have just been
+	 * moved only get their index updated; cells whose item was removed are released, and will be reused in the
+	 * next layout.
+	 */
+	private void itemsChanged(ListChangeListener.Change<? extends RibbonGalleryItem> c) {
+		// The final index of the item displayed by each cell, -1 if it was removed
+		int[] indices = new int[cells.size()];
+		boolean[] updated = new boolean[cells.size()];
+		for (int i = 0; i < indices.length; ++i) {
+			indices[i] = cells.get(i).getIndex();
+		}
+		
+		boolean onlyAdded = true;
+		int addedFrom = -1;
+		int addedTo = -1;
+		int changeCount = 0;
+		
+		while (c.next()) {
+			++changeCount;
+			int from = c.getFrom();
+			int to = c.getTo();
+			
+			if (!c.wasPermutated()) {
+				for (RibbonGalleryItem item : c.getRemoved()) {
+					removeItemListeners(item);
+				}
+				if (c.wasAdded()) {
+					for (RibbonGalleryItem item : c.getAddedSubList()) {
+						addItemListeners(item);
+					}
+				}
+			}
+			
+			if (c.wasPermutated()) {
+				onlyAdded = false;
+				for (int i = 0; i < indices.length; ++i) {
+					if (indices[i] >= from && indices[i] < to) indices[i] = c.getPermutation(indices[i]);
+				}
+			}
+			else if (c.wasUpdated()) {
+				onlyAdded = false;
+				for (int i = 0; i < indices.length; ++i) {
+					if (indices[i] >= from && indices[i] < to) updated[i] = true;
+				}
+			}
+			else {
+				int removedSize = c.wasRemoved() ? c.getRemovedSize() : 0;
+				int addedSize = c.wasAdded() ? c.getAddedSize() : 0;
+				if (removedSize != 0) onlyAdded = false;
+				
+				for (int i = 0; i < indices.length; ++i) {
+					if (indices[i] < from) continue;
+					
+					if (indices[i] < from + removedSize) {
+						indices[i] = -1;
+					} else {
+						indices[i] += addedSize - removedSize;
+					}
+				}
+				
+				addedFrom = from;
+				addedTo = to;
+			}
+		}
+		
+		for (int i = 0; i < indices.length; ++i) {
+			RibbonGalleryCell cell = cells.get(i);
+			if (updated[i]) {
+				cell.updateIndex(-1);
+			}
+			cell.updateIndex(indices[i]);
+		}
+		
+		// If items have only been added, we don't need to measure all the items again
+		if (onlyAdded && changeCount == 1 && itemsWidth != -1 && itemsHeight != -1) {
+			measureItems(addedFrom, addedTo);
+			requestLayout();
+		} else {
+			invalidateItemsSize();
+		}
+	}
+
+	private RibbonGalleryCell createCell() {
+		Callback<RibbonGallery, RibbonGalleryCell> factory = gallery.getCellFactory();
+		RibbonGalleryCell cell = factory == null ? new RibbonGalleryCell() : factory.call(gallery);
+		cell.updateGallery(gallery);
+
+		cell.addEventHandler(ActionEvent.ACTION, event -> {
+			if (onItemAction != null && cell.getItem() != null) onItemAction.accept(cell.getItem());
+		});
+
+		return cell;
+	}
+
+	/**
+	 * Calculates the maximum preferred size of the items, using a cell that is never displayed.
+	 */
+	private void calculateItemsSize() {
+		if (itemsWidth != -1 && itemsHeight != -1) return;
+
+		double fixedWidth = gallery.getFixedTileWidth();
+		double fixedHeight = gallery.getFixedTileHeight();
+		if (fixedWidth > 0 && fixedHeight > 0) {
+			itemsWidth = fixedWidth;
+			itemsHeight = fixedHeight;
+			return;
+		}
+		
+		itemsWidth = 0;
+		itemsHeight = 0;
+		measureItems(0, gallery.getItems().size());
+	}
+	
+	/**
+	 * Measures the items in the given range, and updates the maximum item size with them.
+	 */
+	private void measureItems(int from, int to) {
+		if (from >= to) return;
+		
+		double fixedWidth = gallery.getFixedTileWidth();
+		double fixedHeight = gallery.getFixedTileHeight();
+		if (fixedWidth > 0 && fixedHeight > 0) return;
+		
+		if (measuringCell == null) {
+			measuringCell = createCell();
+			measuringCell.setManaged(false);
+			measuringCell.setVisible(false);
+			getChildren().add(measuringCell);
+		}
+		// The skin is only created once the CSS has been applied
+		if (measuringCell.getSkin() == null) {
+			measuringCell.applyCss();
+		}
+
+		for (int i = from; i < to; ++i) {
+			measuringCell.updateIndex(i);
+			itemsWidth = Math.max(itemsWidth, measuringCell.prefWidth(-1));
+			itemsHeight = Math.max(itemsHeight, measuringCell.prefHeight(-1));
+		}
+		measuringCell.updateIndex(-1);
+		
+		if (fixedWidth > 0) itemsWidth = fixedWidth;
+		if (fixedHeight > 0) itemsHeight = fixedHeight;
+		
+		// Item graphics can only be in one cell at a time; the measuring cell might have taken them
+		// from the displayed cells, so give them back
+		for (RibbonGalleryCell cell : cells) {
+			if (cell.getItem() != null && cell.getItem().getGraphic() != null) {
+				cell.refresh();
+			}
+		}
+	}
+
 	public void recalculateParameters() {
 		Insets insets = getInsets() == null ? Insets.EMPTY : getInsets();
-		
+
 		double width = getWidth() - insets.getLeft() - insets.getRight();
 		double height = getHeight() - insets.getTop() - insets.getBottom();
 		tileWidth = getMaxChildrenWidth();
 		tileHeight = getMaxChildrenHeight();
-		
+
 		if (width == 0 || height == 0 || tileWidth == 0 || tileHeight == 0) {
 			paramsCalculated = false;
 			return;
 		}
-		
-		numColumns = (int) (width / tileWidth);
-		numRows = (int) Math.ceil(getChildren().size() / (double)numColumns);
-		numVisibleRows.set((int) (height / tileHeight));
-		
+
+		numColumns = Math.max(1, (int) (width / tileWidth));
+		numRows.set((int) Math.ceil(gallery.getItems().size() / (double)numColumns));
+		numVisibleRows.set(Math.max(1, (int) (height / tileHeight)));
+
 		tileWidth = width / numColumns;
 		tileHeight = height / numVisibleRows.get();
-		
+
 		paramsCalculated = true;
 	}
 
 	@Override protected void layoutChildren() {
-		recalculateParameters();
+		RibbonMetrics metrics = gallery.getRibbon() == null ? null : gallery.getRibbon().getMetrics();
+		long start = metrics == null ? 0 : System.nanoTime();
 		
-		if (!paramsCalculated) return;
+		layoutCells();
 		
-		int currentRow = displayedRow.get();
+		if (metrics != null) {
+			metrics.record(Operation.GALLERY_LAYOUT, System.nanoTime() - start);
+		}
+	}
+	
+	private void layoutCells() {
+		recalculateParameters();
+
+		if (!paramsCalculated) return;
+
+		int itemCount = gallery.getItems().size();
 		
-		int size = getChildren().size();
-		for (int i = 0; i < size; ++i) {
-			int row = i / numColumns;
-			int column = i % numColumns;
-			Node node = getChildren().get(i);
-			
-			if (row >= currentRow && row < currentRow + numVisibleRows.get()) {
-				node.relocate(column * tileWidth, (row - currentRow) * tileHeight);
-				node.resize(tileWidth, tileHeight);
+		// The row that is placed at the top of the pane
+		int originRow = expanded.get() ? 0 : displayedRow.get();
+		int currentRow = originRow;
+		int visibleRows = numVisibleRows.get();
+		if (expanded.get() && viewportHeight >= 0) {
+			currentRow = (int) (viewportY / tileHeight);
+			visibleRows = (int) Math.ceil((viewportY + viewportHeight) / tileHeight) - currentRow;
+		}
+
+		// The items that are displayed, and the ones that must be ready but hidden
+		int firstVisible = Math.min(currentRow * numColumns, itemCount);
+		int lastVisible = Math.min((currentRow + visibleRows) * numColumns, itemCount);
+		int first = Math.max(0, (currentRow - OVERSCAN_ROWS) * numColumns);
+		int last = Math.min((currentRow + visibleRows + OVERSCAN_ROWS) * numColumns, itemCount);
+		first = Math.min(first, last);
+
+		// Keep the cells that already display an item of the range; the rest can be reused
+		RibbonGalleryCell[] rangeCells = new RibbonGalleryCell[last - first];
+		List<RibbonGalleryCell> freeCells = new ArrayList<RibbonGalleryCell>();
+		for (RibbonGalleryCell cell : cells) {
+			int index = cell.getIndex();
+			if (index >= first && index < last && rangeCells[index - first] == null) {
+				rangeCells[index - first] = cell;
+			} else {
+				freeCells.add(cell);
 			}
-			else {
-				node.resize(0, 0);
+		}
+
+		for (int i = first; i < last; ++i) {
+			RibbonGalleryCell cell = rangeCells[i - first];
+			if (cell == null) {
+				if (freeCells.isEmpty()) {
+					cell = createCell();
+					cells.add(cell);
+					getChildren().add(cell);
+					cell.applyCss();
+				} else {
+					cell = freeCells.remove(freeCells.size() - 1);
+				}
+				cell.updateIndex(i);
+				rangeCells[i - first] = cell;
 			}
+
+			int row = i / numColumns;
+			int column = i % numColumns;
+			boolean visible = i >= firstVisible && i < lastVisible;
+			cell.setVisible(visible);
+			cell.relocate(column * tileWidth, (row - originRow) * tileHeight);
+			cell.resize(tileWidth, tileHeight);
+		}
+
+		for (RibbonGalleryCell cell : freeCells) {
+			if (cell.getIndex() != -1) cell.updateIndex(-1);
+			cell.setVisible(false);
 		}
 	}
-	
+
 	public int getTotalRows() {
-		return numRows;
+		return numRows.get();
 	}
 	
+	public ReadOnlyIntegerProperty totalRowsProperty() {
+		return numRows.getReadOnlyProperty();
+	}
+
 	public int getVisibleRows() {
 		return numVisibleRows.get();
 	}
-	
+
 	public ReadOnlyIntegerProperty visibleRowsProperty() {
 		return numVisibleRows.getReadOnlyProperty();
 	}
-	
+
 	public int getVisibleColumns() {
 		return numColumns;
 	}
-	
+
 	public final int getDisplayedRow() {
 		return displayedRow.get();
 	}
-	
+
 	public final void setDisplayedRow(int value) {
 		displayedRow.set(value);
 	}
-	
+
 	public final IntegerProperty displayedRowProperty() {
 		return displayedRow;
 	}
-	
+
 	public final IntegerProperty columnCountProperty() {
 		return columnCount;
 	}
-	
+
 	public final int getColumnCount() {
 		return columnCount.get();
 	}
-	
+
 	public final void setColumnCount(int value) {
 		columnCount.set(value);
 	}
-	
+
 	public final void setExpanded(boolean value) {
 		expanded.set(value);
 	}
-	
+
 	@Override protected double computePrefWidth(double height) {
 		double value = getInsets().getLeft() + getMaxChildrenWidth() * columnCount.get() + getInsets().getRight();
 		return value;
 	}
-	
+
 	@Override protected double computePrefHeight(double width) {
 		double maxHeight = getMaxChildrenHeight();
 		if (expanded.get()) {
-			maxHeight *= Math.ceil(getChildren().size() / (double)columnCount.get());
+			maxHeight *= Math.ceil(gallery.getItems().size() / (double)columnCount.get());
 		}
 		return getInsets().getTop() + maxHeight + getInsets().getBottom();
 	}
-	
+
 	private double getMaxChildrenHeight() {
-		double maxHeight = 0;
-		for (Node node : getChildren()) {
-			double height = node.prefHeight(-1);
-			if (height > maxHeight) maxHeight = height;
-		}
-		return maxHeight;
+		calculateItemsSize();
+		return itemsHeight;
 	}
-	
+
 	private double getMaxChildrenWidth() {
-		double maxWidth = 0;
-		for (Node node : getChildren()) {
-			double width = node.prefWidth(-1);
-			if (width > maxWidth) maxWidth = width;
-		}
-		return maxWidth;
+		calculateItemsSize();
+		return itemsWidth;
 	}
 }
@@ -0,0 +1,550 @@
+package io.github.emd4600.javafxribbon.skin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import io.github.emd4600.javafxribbon.Ribbon;
+import io.github.emd4600.javafxribbon.Ribbon.RibbonState;
+import io.github.emd4600.javafxribbon.RibbonCustomMenuButton;
+import io.github.emd4600.javafxribbon.RibbonGroup;
+import io.github.emd4600.javafxribbon.RibbonProgramButton;
+import io.github.emd4600.javafxribbon.RibbonTab;
+import io.github.emd4600.javafxribbon.RibbonWindow;
+import io.github.emd4600.javafxribbon.TextUtils;
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.collections.ListChangeListener;
+import javafx.event.EventHandler;
+import javafx.geometry.Bounds;
+import javafx.geometry.VPos;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.ButtonBase;
+import javafx.scene.control.ComboBoxBase;
+import javafx.scene.control.Labeled;
+import javafx.scene.control.MenuButton;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+/**
+ * Implements the ribbon keytips: pressing and releasing Alt shows the keytips of the tab headers, and typing one
+ * of them selects the tab and shows the keytips of its controls.
+ * <p>
+ * The keytips are resolved through a {@link KeyTipTrie} for the tabs and one for each tab that has been used.
+ * An index is only rebuilt when its tabs, groups or nodes lists have changed, or when the text or explicit
+ * keytip of one of its targets has changed; typing a key does not look at the targets. All the badges are drawn
+ * in a single canvas placed in the overlay layer of the ribbon window.
+ */
+final class KeyTipManager {
+
+	private enum Level { HIDDEN, TABS, CONTROLS }
+
+	/** The default keytip of the program button, as in Office. */
+	private static final String PROGRAM_BUTTON_KEY_TIP = "F";
+
+	private static final Font BADGE_FONT = Font.font(11);
+	private static final double BADGE_HEIGHT = 16;
+	private static final double BADGE_PADDING = 4;
+	private static final Color BADGE_FILL = Color.web("#f5f5f5");
+	private static final Color BADGE_BORDER = Color.web("#6a6a6a");
+	private static final Color BADGE_TEXT = Color.web("#202020");
+
+	/**
+	 * The index of a list of targets. It listens to the text and explicit keytip of every target it was
+	 * built with, and marks itself as dirty when any of them changes.
+	 */
+	private static final class IndexState<T> {
+		private final KeyTipTrie<T> trie = new KeyTipTrie<T>();
+		private final Supplier<List<T>> targetsSupplier;
+		private final Function<T, String> explicitKey;
+		private final Function<T, String> text;
+		/** Gets the observables that contain the text and explicit keytip of a target. */
+		private final Function<T, Observable[]> dependencies;
+
+		private List<T> targets = Collections.emptyList();
+		/** Whether the targets must be collected again and the index rebuilt. */
+		private boolean dirty = true;
+		private final InvalidationListener dirtyListener = obs -> dirty = true;
+
+		IndexState(Supplier<List<T>> targetsSupplier, Function<T, String> explicitKey, Function<T, String> text,
+				Function<T, Observable[]> dependencies) {
+			this.targetsSupplier = targetsSupplier;
+			this.explicitKey = explicitKey;
+			this.text = text;
+			this.dependencies = dependencies;
+		}
+
+		/**
+		 * Rebuilds the index if it is dirty.
+		 */
+		KeyTipTrie<T> validate() {
+			if (!dirty) return trie;
+			dirty = false;
+
+			unwatchTargets();
+			targets = targetsSupplier.get();
+
+			int count = targets.size();
+			List<String> explicitKeys = new ArrayList<String>(count);
+			List<String> texts = new ArrayList<String>(count);
+			for (T target : targets) {
+				for (Observable observable : dependencies.apply(target)) {
+					observable.addListener(dirtyListener);
+				}
+				// Reading the values validates the properties, so their next change is notified
+				explicitKeys.add(normalize(explicitKey.apply(target)));
+				texts.add(normalize(text.apply(target)));
+			}
+
+			trie.clear();
+			trie.assignKeyTips(targets, explicitKeys, texts);
+			return trie;
+		}
+
+		private void unwatchTargets() {
+			for (T target : targets) {
+				for (Observable observable : dependencies.apply(target)) {
+					observable.removeListener(dirtyListener);
+				}
+			}
+		}
+
+		void dispose() {
+			unwatchTargets();
+			targets = Collections.emptyList();
+			dirty = true;
+		}
+	}
+
+	/** The keytips of the controls of a tab. It marks itself as dirty when the tab groups or their nodes change. */
+	private final class TabIndex {
+		private final RibbonTab tab;
+		private final IndexState<Node> state = new IndexState<Node>(this::collectTargets, Ribbon::getKeyTip,
+				node -> node instanceof Labeled ? ((Labeled) node).getText() : null,
+				node -> node instanceof Labeled ? new Observable[] {((Labeled) node).textProperty(), node.getProperties()} :
+					new Observable[] {node.getProperties()});
+
+		private final ListChangeListener<Node> nodesListener = c -> state.dirty = true;
+		private final ListChangeListener<RibbonGroup> groupsListener = c -> {
+			while (c.next()) {
+				for (RibbonGroup group : c.getRemoved()) {
+					group.getNodes().removeListener(this.nodesListener);
+				}
+				for (RibbonGroup group : c.getAddedSubList()) {
+					group.getNodes().addListener(this.nodesListener);
+				}
+			}
+			state.dirty = true;
+		};
+
+		TabIndex(RibbonTab tab) {
+			this.tab = tab;
+			tab.getGroups().addListener(groupsListener);
+			for (RibbonGroup group : tab.getGroups()) {
+				group.getNodes().addListener(nodesListener);
+			}
+		}
+
+		KeyTipTrie<Node> validate() {
+			return state.validate();
+		}
+
+		private List<Node> collectTargets() {
+			List<Node> targets = new ArrayList<Node>();
+			for (RibbonGroup group : tab.getGroups()) {
+				targets.addAll(group.getNodes());
+			}
+			return targets;
+		}
+
+		void dispose() {
+			tab.getGroups().removeListener(groupsListener);
+			for (RibbonGroup group : tab.getGroups()) {
+				group.getNodes().removeListener(nodesListener);
+			}
+			state.dispose();
+		}
+	}
+
+	private final Ribbon ribbon;
+	/** Gets the header node of a tab, or null if it has none. */
+	private final Function<RibbonTab, Node> headerLookup;
+
+	/** The keytips of the tab headers and the program button; the targets are tabs or the program button. */
+	private final IndexState<Object> tabsState;
+	private final Map<RibbonTab, TabIndex> tabIndices = new HashMap<RibbonTab, TabIndex>();
+
+	private Level level = Level.HIDDEN;
+	private RibbonTab shownTab;
+	private final StringBuilder typedKeys = new StringBuilder();
+	/** Whether Alt has been pressed with no other key after it, so that releasing it shows the keytips. */
+	private boolean altPending;
+
+	private final EventHandler<KeyEvent> keyFilter = this::handleKey;
+	private Scene filteredScene;
+	/** Hides the keytips when the user clicks anywhere. */
+	private final DismissalHandler dismissal;
+
+	private final Canvas badgeLayer = new Canvas();
+	/** The badges to draw, reused between redraws: the keys and the node they are placed on. */
+	private final Map<String, Node> badges = new LinkedHashMap<String, Node>();
+	private final Runnable redrawListener = this::redraw;
+	private Scene redrawScene;
+
+	/**
+	 * @param ribbon The ribbon.
+	 * @param headerLookup Gets the header node of a tab, used to place its badge.
+	 */
+	KeyTipManager(Ribbon ribbon, Function<RibbonTab, Node> headerLookup) {
+		this.ribbon = ribbon;
+		this.headerLookup = headerLookup;
+
+		tabsState = new IndexState<Object>(this::collectTabTargets, target -> {
+			if (target instanceof RibbonTab) {
+				return ((RibbonTab) target).getKeyTip();
+			}
+			String key = Ribbon.getKeyTip((Node) target);
+			return key == null ? PROGRAM_BUTTON_KEY_TIP : key;
+		}, target -> target instanceof RibbonTab ? ((RibbonTab) target).getText() : null,
+		target -> target instanceof RibbonTab ? new Observable[] {((RibbonTab) target).textProperty(), ((RibbonTab) target).keyTipProperty()} :
+			new Observable[] {((Node) target).getProperties()});
+
+		dismissal = new DismissalHandler(ribbon, event -> hide());
+		badgeLayer.setMouseTransparent(true);
+
+		ribbon.getTabs().addListener((ListChangeListener<RibbonTab>) c -> {
+			while (c.next()) {
+				for (RibbonTab tab : c.getRemoved()) {
+					if (!ribbon.getTabs().contains(tab)) {
+						TabIndex index = tabIndices.remove(tab);
+						if (index != null) {
+							index.dispose();
+						}
+						if (tab == shownTab) {
+							hide();
+						}
+					}
+				}
+			}
+			tabsState.dirty = true;
+		});
+		ribbon.programButtonProperty().addListener((obs, oldValue, newValue) -> tabsState.dirty = true);
+
+		ribbon.sceneProperty().addListener((obs, oldValue, newValue) -> updateScene());
+		updateScene();
+	}
+
+	private void updateScene() {
+		Scene scene = ribbon.getScene();
+		if (scene != filteredScene) {
+			hide();
+			if (filteredScene != null) {
+				filteredScene.removeEventFilter(KeyEvent.ANY, keyFilter);
+			}
+			if (scene != null) {
+				scene.addEventFilter(KeyEvent.ANY, keyFilter);
+			}
+			filteredScene = scene;
+		}
+	}
+
+	/**
+	 * Keeps only the letters and digits, in upper case, and the spaces between words.
+	 */
+	private static String normalize(String text) {
+		if (text == null) return null;
+
+		StringBuilder sb = new StringBuilder(text.length());
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (Character.isLetterOrDigit(c)) {
+				sb.append(Character.toUpperCase(c));
+			}
+			else if (Character.isWhitespace(c) && sb.length() > 0 && sb.charAt(sb.length() - 1) != ' ') {
+				sb.append(' ');
+			}
+		}
+		return sb.toString().trim();
+	}
+
+	private List<Object> collectTabTargets() {
+		List<Object> targets = new ArrayList<Object>(ribbon.getTabs().size() + 1);
+		if (ribbon.getProgramButton() != null) {
+			targets.add(ribbon.getProgramButton());
+		}
+		targets.addAll(ribbon.getTabs());
+		return targets;
+	}
+
+	private KeyTipTrie<Object> getTabsIndex() {
+		return tabsState.validate();
+	}
+
+	private KeyTipTrie<Node> getControlsIndex(RibbonTab tab) {
+		return tabIndices.computeIfAbsent(tab, TabIndex::new).validate();
+	}
+
+	private void handleKey(KeyEvent event) {
+		if (level == Level.HIDDEN && !ribbon.isKeyTipsEnabled()) {
+			altPending = false;
+			return;
+		}
+
+		if (event.getEventType() == KeyEvent.KEY_PRESSED) {
+			if (event.getCode() == KeyCode.ALT) {
+				if (level != Level.HIDDEN) {
+					hide();
+					event.consume();
+					altPending = false;
+				}
+				else {
+					altPending = !event.isShiftDown() && !event.isControlDown() && !event.isMetaDown();
+				}
+				return;
+			}
+			altPending = false;
+
+			if (level == Level.HIDDEN) return;
+			event.consume();
+
+			if (event.getCode() == KeyCode.ESCAPE) {
+				goBack();
+			}
+			else if (event.getCode() == KeyCode.BACK_SPACE) {
+				if (typedKeys.length() > 0) {
+					typedKeys.setLength(typedKeys.length() - 1);
+					requestRedraw();
+				}
+			}
+			else {
+				String text = event.getText();
+				if (text != null && text.length() == 1 && Character.isLetterOrDigit(text.charAt(0))) {
+					typeKey(Character.toUpperCase(text.charAt(0)));
+				}
+			}
+		}
+		else if (event.getEventType() == KeyEvent.KEY_RELEASED) {
+			if (event.getCode() == KeyCode.ALT && altPending) {
+				altPending = false;
+				showTabs();
+				// This is what takes Alt from menu bars and mnemonics, which is why keytips are opt-in
+				event.consume();
+			}
+			else if (level != Level.HIDDEN) {
+				event.consume();
+			}
+		}
+		else if (level != Level.HIDDEN) {
+			// The typed keys are not meant for the focused control
+			event.consume();
+		}
+	}
+
+	private void typeKey(char key) {
+		typedKeys.append(key);
+		String keys = typedKeys.toString();
+
+		if (level == Level.TABS) {
+			KeyTipTrie<Object> index = getTabsIndex();
+			Object target = index.get(keys);
+
+			if (target instanceof RibbonTab && !((RibbonTab) target).isDisable()) {
+				selectTab((RibbonTab) target);
+				return;
+			}
+			else if (target instanceof RibbonProgramButton) {
+				hide();
+				((RibbonProgramButton) target).fire();
+				return;
+			}
+			else if (target == null && index.containsPrefix(keys)) {
+				requestRedraw();
+				return;
+			}
+		}
+		else if (level == Level.CONTROLS) {
+			KeyTipTrie<Node> index = getControlsIndex(shownTab);
+			Node target = index.get(keys);
+
+			if (target != null && !target.isDisabled()) {
+				hide();
+				activate(target);
+				return;
+			}
+			else if (target == null && index.containsPrefix(keys)) {
+				requestRedraw();
+				return;
+			}
+		}
+
+		// The key does not lead anywhere, ignore it
+		typedKeys.setLength(typedKeys.length() - 1);
+	}
+
+	private void selectTab(RibbonTab tab) {
+		ribbon.getSelectionModel().select(tab);
+		if (ribbon.getRibbonState() == RibbonState.MINIMIZED) {
+			ribbon.setRibbonState(RibbonState.DROPDOWN);
+		}
+
+		level = Level.CONTROLS;
+		shownTab = tab;
+		typedKeys.setLength(0);
+		requestRedraw();
+	}
+
+	/**
+	 * Executes a control as if it had been clicked: menus are shown, buttons are fired, and other controls are focused.
+	 */
+	static void activate(Node node) {
+		if (node instanceof MenuButton) {
+			((MenuButton) node).show();
+		}
+		else if (node instanceof RibbonCustomMenuButton) {
+			((RibbonCustomMenuButton) node).show();
+		}
+		else if (node instanceof ButtonBase) {
+			((ButtonBase) node).fire();
+		}
+		else if (node instanceof ComboBoxBase) {
+			((ComboBoxBase<?>) node).show();
+		}
+		else {
+			node.requestFocus();
+		}
+	}
+
+	private void showTabs() {
+		RibbonWindow window = ribbon.getRibbonWindow();
+		if (window == null) return;
+
+		level = Level.TABS;
+		shownTab = null;
+		typedKeys.setLength(0);
+
+		window.showOverlay(badgeLayer);
+		dismissal.setActive(true);
+		requestRedraw();
+	}
+
+	private void goBack() {
+		if (level == Level.CONTROLS) {
+			showTabs();
+		}
+		else {
+			hide();
+		}
+	}
+
+	private void hide() {
+		if (level == Level.HIDDEN) return;
+
+		level = Level.HIDDEN;
+		shownTab = null;
+		typedKeys.setLength(0);
+
+		dismissal.setActive(false);
+		if (ribbon.getRibbonWindow() != null) {
+			ribbon.getRibbonWindow().hideOverlay(badgeLayer);
+		}
+	}
+
+	/**
+	 * Redraws the badges after the next layout, when the position of the targets is known.
+	 */
+	private void requestRedraw() {
+		Scene scene = ribbon.getScene();
+		if (scene != null && redrawScene == null) {
+			redrawScene = scene;
+			scene.addPostLayoutPulseListener(redrawListener);
+			Platform.requestNextPulse();
+		}
+	}
+
+	private void redraw() {
+		redrawScene.removePostLayoutPulseListener(redrawListener);
+		redrawScene = null;
+		if (level == Level.HIDDEN) return;
+		
+		// Showing the dropdown content might have placed it over the badges
+		ribbon.getRibbonWindow().showOverlay(badgeLayer);
+
+		String prefix = typedKeys.toString();
+		if (level == Level.TABS) {
+			getTabsIndex().forEach(prefix, (key, target) -> {
+				badges.put(key, target instanceof RibbonTab ? headerLookup.apply((RibbonTab) target) : (Node) target);
+			});
+		}
+		else {
+			getControlsIndex(shownTab).forEach(prefix, badges::put);
+		}
+
+		// Only the badges of nodes that are displayed; collapsed group nodes are still activated with their keys
+		double maxX = 0;
+		double maxY = 0;
+		List<Bounds> bounds = new ArrayList<Bounds>(badges.size());
+		List<String> keys = new ArrayList<String>(badges.size());
+		for (Map.Entry<String, Node> entry : badges.entrySet()) {
+			Node node = entry.getValue();
+			if (node == null || node.getScene() != ribbon.getScene() || !isTreeVisible(node)) continue;
+
+			Bounds nodeBounds = badgeLayer.sceneToLocal(node.localToScene(node.getLayoutBounds()));
+			if (nodeBounds == null || nodeBounds.getWidth() == 0) continue;
+
+			bounds.add(nodeBounds);
+			keys.add(entry.getKey());
+			maxX = Math.max(maxX, nodeBounds.getMaxX() + BADGE_HEIGHT);
+			maxY = Math.max(maxY, nodeBounds.getMaxY() + BADGE_HEIGHT);
+		}
+		badges.clear();
+
+		// The canvas only covers the badges
+		badgeLayer.setWidth(maxX);
+		badgeLayer.setHeight(maxY);
+
+		GraphicsContext gc = badgeLayer.getGraphicsContext2D();
+		gc.clearRect(0, 0, maxX, maxY);
+		gc.setFont(BADGE_FONT);
+		gc.setTextAlign(TextAlignment.CENTER);
+		gc.setTextBaseline(VPos.CENTER);
+
+		for (int i = 0; i < keys.size(); i++) {
+			drawBadge(gc, keys.get(i), bounds.get(i));
+		}
+	}
+
+	/**
+	 * Draws the badge centered on the bottom edge of the node.
+	 */
+	private static void drawBadge(GraphicsContext gc, String key, Bounds bounds) {
+		double width = Math.max(BADGE_HEIGHT, TextUtils.computeTextWidth(BADGE_FONT, key, 0.0d) + 2 * BADGE_PADDING);
+		double x = Math.round(bounds.getMinX() + (bounds.getWidth() - width) / 2);
+		double y = Math.round(bounds.getMaxY() - BADGE_HEIGHT / 2);
+
+		gc.setFill(BADGE_FILL);
+		gc.fillRoundRect(x, y, width, BADGE_HEIGHT, 4, 4);
+		gc.setStroke(BADGE_BORDER);
+		gc.strokeRoundRect(x + 0.5, y + 0.5, width - 1, BADGE_HEIGHT - 1, 4, 4);
+		gc.setFill(BADGE_TEXT);
+		gc.fillText(key, x + width / 2, y + BADGE_HEIGHT / 2);
+	}
+
+	private static boolean isTreeVisible(Node node) {
+		for (Node n = node; n != null; n = n.getParent()) {
+			if (!n.isVisible()) return false;
+		}
+		return true;
+	}
+}
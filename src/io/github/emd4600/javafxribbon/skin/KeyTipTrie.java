@@ -0,0 +1,172 @@
+package io.github.emd4600.javafxribbon.skin;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Maps keytip sequences to their targets, so that every key typed by the user is resolved by walking
+ * a single step. Keys are kept prefix-free: no key can be the start of another one, otherwise the shorter
+ * one could never be typed.
+ * @param <T> The type of the targets.
+ */
+class KeyTipTrie<T> {
+
+	private static final class TrieNode<T> {
+		private final Map<Character, TrieNode<T>> children = new HashMap<Character, TrieNode<T>>(4);
+		private T value;
+	}
+
+	private final TrieNode<T> root = new TrieNode<T>();
+	private int size;
+
+	private TrieNode<T> find(String key) {
+		TrieNode<T> node = root;
+		for (int i = 0; i < key.length() && node != null; i++) {
+			node = node.children.get(key.charAt(i));
+		}
+		return node;
+	}
+
+	/**
+	 * Whether the key can be added: it is not empty, and neither it is the start of an existing key
+	 * nor an existing key is the start of it.
+	 */
+	boolean isFree(String key) {
+		if (key == null || key.isEmpty()) return false;
+
+		TrieNode<T> node = root;
+		for (int i = 0; i < key.length(); i++) {
+			node = node.children.get(key.charAt(i));
+			if (node == null) return true;
+			if (node.value != null) return false;
+		}
+		// The key is the start of other keys
+		return false;
+	}
+
+	/**
+	 * Adds the key, which must be free.
+	 * @return Whether it was added.
+	 */
+	boolean put(String key, T value) {
+		if (!isFree(key)) return false;
+
+		TrieNode<T> node = root;
+		for (int i = 0; i < key.length(); i++) {
+			node = node.children.computeIfAbsent(key.charAt(i), c -> new TrieNode<T>());
+		}
+		node.value = value;
+		size++;
+		return true;
+	}
+
+	/**
+	 * Gets the target of the key, or null if the key is not complete or does not exist.
+	 */
+	T get(String key) {
+		TrieNode<T> node = find(key);
+		return node == null ? null : node.value;
+	}
+
+	/**
+	 * Whether there is any key that starts with the given sequence.
+	 */
+	boolean containsPrefix(String prefix) {
+		return find(prefix) != null;
+	}
+
+	int size() {
+		return size;
+	}
+
+	void clear() {
+		root.children.clear();
+		size = 0;
+	}
+
+	/**
+	 * Adds the explicit keytips, and generates the rest from the texts: a target gets the first letter of its
+	 * text if no other target starts with the same letter, otherwise it gets that letter followed by another one
+	 * of its text, or by a digit if all of them are taken. Keytips and texts must be in upper case, with single
+	 * spaces between words.
+	 */
+	void assignKeyTips(List<T> targets, List<String> explicitKeys, List<String> texts) {
+		// Explicit keytips go first, so generated ones never take them
+		boolean[] assigned = new boolean[targets.size()];
+		for (int i = 0; i < targets.size(); i++) {
+			String key = explicitKeys.get(i);
+			if (key != null && !key.isEmpty()) {
+				assigned[i] = put(key.replace(" ", ""), targets.get(i));
+			}
+		}
+
+		Map<Character, List<Integer>> byInitial = new LinkedHashMap<Character, List<Integer>>();
+		for (int i = 0; i < targets.size(); i++) {
+			String text = texts.get(i);
+			if (!assigned[i] && text != null && !text.isEmpty()) {
+				byInitial.computeIfAbsent(text.charAt(0), c -> new ArrayList<Integer>(1)).add(i);
+			}
+		}
+
+		for (Map.Entry<Character, List<Integer>> entry : byInitial.entrySet()) {
+			char initial = entry.getKey();
+			List<Integer> indices = entry.getValue();
+
+			if (indices.size() == 1 && put(String.valueOf(initial), targets.get(indices.get(0)))) {
+				continue;
+			}
+
+			for (int index : indices) {
+				String text = texts.get(index);
+				T target = targets.get(index);
+				if (!putTwoLetterKey(target, initial, text)) {
+					// Fall back to a number
+					for (char digit = '1'; digit <= '9'; digit++) {
+						if (put(new String(new char[] {initial, digit}), target)) break;
+					}
+				}
+			}
+		}
+	}
+
+	private boolean putTwoLetterKey(T target, char initial, String text) {
+		// First try with the initials of the other words, then with any other letter
+		for (int i = 1; i < text.length(); i++) {
+			if (text.charAt(i - 1) == ' ' && put(new String(new char[] {initial, text.charAt(i)}), target)) {
+				return true;
+			}
+		}
+		for (int i = 1; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c != ' ' && put(new String(new char[] {initial, c}), target)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Calls the action for every key that starts with the given sequence.
+	 */
+	void forEach(String prefix, BiConsumer<String, T> action) {
+		TrieNode<T> node = find(prefix);
+		if (node != null) {
+			forEach(node, new StringBuilder(prefix), action);
+		}
+	}
+
+	private static <T> void forEach(TrieNode<T> node, StringBuilder key, BiConsumer<String, T> action) {
+		if (node.value != null) {
+			action.accept(key.toString(), node.value);
+		}
+		for (Map.Entry<Character, TrieNode<T>> entry : node.children.entrySet()) {
+			key.append(entry.getKey());
+			forEach(entry.getValue(), key, action);
+			key.setLength(key.length() - 1);
+		}
+	}
+}
@@ -9,6 +9,8 @@ import javafx.scene.layout.VBox;
 public class RibbonButtonSkin extends SkinBase<RibbonButton> {
 	
 	private VBox container;
+	private DeferredSkinUpdate deferredUpdate;
+	private RibbonReference ribbonReference;
 
 	public RibbonButtonSkin(RibbonButton control) {
 		super(control);
@@ -21,26 +23,32 @@ public class RibbonButtonSkin extends SkinBase<RibbonButton> {
 		container.setAlignment(Pos.TOP_CENTER);
 		getChildren().add(container);
 		
+		container.setOnMouseClicked((event) -> {
+			if (event.getButton() == MouseButton.PRIMARY) {
+				getSkinnable().fire();
+			}
+		});
+		
+		// Changing multiple properties at once only updates the skin once
+		deferredUpdate = new DeferredSkinUpdate(getSkinnable(), this::update);
+		ribbonReference = new RibbonReference(getSkinnable());
+		
 		getSkinnable().textProperty().addListener((obs, oldValue, newValue) -> {
-			update();
+			deferredUpdate.request();
 		});
 		getSkinnable().graphicProperty().addListener((obs, oldValue, newValue) -> {
-			update();
+			deferredUpdate.request();
 		});
 		getSkinnable().styleProperty().addListener((obs, oldValue, newValue) -> {
-			update();
+			deferredUpdate.request();
 		});
+		// The ribbon group tells the button which tier to use
+		ButtonTextHelper.addTierListener(getSkinnable(), deferredUpdate);
 		
 		update();
 	}
 	
 	private void update() {
-		ButtonTextHelper.layoutButton(getSkinnable(), container, false);
-		
-		container.setOnMouseClicked((event) -> {
-			if (event.getButton() == MouseButton.PRIMARY) {
-				getSkinnable().fire();
-			}
-		});
+		ButtonTextHelper.layoutButton(getSkinnable(), container, false, ribbonReference.getMetrics());
 	}
 }
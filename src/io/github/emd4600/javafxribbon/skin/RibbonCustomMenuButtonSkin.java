@@ -37,6 +37,10 @@ public class RibbonCustomMenuButtonSkin extends SkinBase<RibbonCustomMenuButton>
 	private static final PseudoClass PSEUDO_CLASS_SHOWING = PseudoClass.getPseudoClass("showing");
 	
 	private VBox container;
+	private DeferredSkinUpdate deferredUpdate;
+	private RibbonReference ribbonReference;
+	/** Hides the menu when the user clicks outside of it. */
+	private DismissalHandler menuDismissal;
 
 	public RibbonCustomMenuButtonSkin(RibbonCustomMenuButton control) {
 		super(control);
@@ -48,15 +52,22 @@ public class RibbonCustomMenuButtonSkin extends SkinBase<RibbonCustomMenuButton>
 		container.setAlignment(Pos.TOP_CENTER);
 		getChildren().add(container);
 		
+		// Changing multiple properties at once only updates the skin once
+		deferredUpdate = new DeferredSkinUpdate(getSkinnable(), this::update);
+		ribbonReference = new RibbonReference(getSkinnable());
+		menuDismissal = new DismissalHandler(getSkinnable(), this::dismissMenu);
+		
 		getSkinnable().textProperty().addListener((obs, oldValue, newValue) -> {
-			update();
+			deferredUpdate.request();
 		});
 		getSkinnable().graphicProperty().addListener((obs, oldValue, newValue) -> {
-			update();
+			deferredUpdate.request();
 		});
 		getSkinnable().styleProperty().addListener((obs, oldValue, newValue) -> {
-			update();
+			deferredUpdate.request();
 		});
+		// The ribbon group tells the button which tier to use
+		ButtonTextHelper.addTierListener(getSkinnable(), deferredUpdate);
 		
 		update();
 		
@@ -73,6 +84,7 @@ public class RibbonCustomMenuButtonSkin extends SkinBase<RibbonCustomMenuButton>
 			}
 			
 			button.pseudoClassStateChanged(PSEUDO_CLASS_SHOWING, newValue);
+			menuDismissal.setActive(newValue);
 		});
 		
 		button.setOnAction((event) -> {
@@ -83,27 +95,26 @@ public class RibbonCustomMenuButtonSkin extends SkinBase<RibbonCustomMenuButton>
 				button.show();
 			}
 		});
-		
-		button.sceneProperty().addListener((obs, oldValue, newValue) -> {
-			if (newValue != null) {
-				newValue.addEventFilter(MouseEvent.MOUSE_PRESSED, (event) -> {
-					RibbonMenu menu = button.getMenu();
-					if (button.isShowing() && !menu.contains(event.getScreenX(), event.getScreenY())) {
-						button.hide();
-						
-						// If the click was on the program button, it will open the menu again
-						// in the action event; consume the click to avoid that
-						if (button.contains(button.screenToLocal(event.getScreenX(), event.getScreenY()))) {
-							event.consume();
-						}
-					};
-
-				});
+	}
+	
+	/**
+	 * Hides the menu if the user clicked outside of it.
+	 */
+	private void dismissMenu(MouseEvent event) {
+		RibbonCustomMenuButton button = getSkinnable();
+		RibbonMenu menu = button.getMenu();
+		if (button.isShowing() && !menu.contains(event.getScreenX(), event.getScreenY())) {
+			button.hide();
+			
+			// If the click was on the program button, it will open the menu again
+			// in the action event; consume the click to avoid that
+			if (button.contains(button.screenToLocal(event.getScreenX(), event.getScreenY()))) {
+				event.consume();
 			}
-		});
+		}
 	}
 	
 	private void update() {
-		ButtonTextHelper.layoutButton(getSkinnable(), container, true);
+		ButtonTextHelper.layoutButton(getSkinnable(), container, true, ribbonReference.getMetrics());
 	}
 }
@@ -2,27 +2,27 @@ package io.github.emd4600.javafxribbon.skin;
 
 import java.util.function.Consumer;
 
+import io.github.emd4600.javafxribbon.RibbonCommand;
 import io.github.emd4600.javafxribbon.RibbonGallery;
 import io.github.emd4600.javafxribbon.RibbonGalleryItem;
-import io.github.emd4600.javafxribbon.RibbonGallery.GalleryItemDisplay;
-import javafx.application.Platform;
-import javafx.collections.ListChangeListener;
+import javafx.animation.PauseTransition;
+import javafx.event.ActionEvent;
+import javafx.geometry.Rectangle2D;
 import javafx.geometry.Point2D;
-import javafx.geometry.Pos;
 import javafx.scene.Node;
-import javafx.scene.control.Button;
-import javafx.scene.control.ContentDisplay;
 import javafx.scene.control.Control;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.control.ScrollPane.ScrollBarPolicy;
 import javafx.scene.control.SkinBase;
-import javafx.scene.control.Tooltip;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.Region;
 import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
-import javafx.scene.text.TextAlignment;
 import javafx.stage.Popup;
+import javafx.stage.Screen;
+import javafx.util.Duration;
 
 public class RibbonGallerySkin extends SkinBase<RibbonGallery> {
 	
@@ -35,13 +35,21 @@ public class RibbonGallerySkin extends SkinBase<RibbonGallery> {
 	
 	private final Popup popup = new Popup();
 	
-	private final GalleryPane itemsPane = new GalleryPane();
-	private final GalleryPane popupPane = new GalleryPane();
+	private final GalleryPane itemsPane;
 	private final Pane popupMainPane = new Pane();
+	/** The popup content is only created when the popup is shown, and released some time after it is hidden. */
+	private GalleryPane popupPane;
+	private ScrollPane popupScrollPane;
+	private final PauseTransition popupReleaseTimer = new PauseTransition();
+	/** Hides the popup when the user clicks outside of it. */
+	private final DismissalHandler popupDismissal = new DismissalHandler(getSkinnable(), this::dismissPopup);
 
 	public RibbonGallerySkin(RibbonGallery control) {
 		super(control);
 		
+		itemsPane = new GalleryPane(control);
+		itemsPane.setOnItemAction(this::onItemAction);
+		
 		buttonsPane.getStyleClass().add("gallery-buttons-pane");
 		createButtons(buttonsPane);
 		
@@ -51,102 +59,123 @@ public class RibbonGallerySkin extends SkinBase<RibbonGallery> {
 		itemsPane.setPrefHeight(Double.MAX_VALUE);
 		itemsPane.setMinWidth(Control.USE_PREF_SIZE);
 		
-		popupPane.getStyleClass().add("items-pane");
-		popupPane.columnCountProperty().bind(control.columnCountProperty());
-		popupPane.setPrefHeight(Control.USE_COMPUTED_SIZE);
-		popupPane.setMinWidth(Control.USE_PREF_SIZE);
-		popupPane.setMinHeight(Control.USE_PREF_SIZE);
-		popupPane.setExpanded(true);
-		
 		mainPane.setCenter(itemsPane);
 		mainPane.setRight(buttonsPane);
 		
 		getChildren().add(mainPane);
 		
-		generateItems();
-		
-		control.getItems().addListener((ListChangeListener.Change<? extends RibbonGalleryItem> c) -> {
-			generateItems();
-		});
-		
 		control.displayedRowProperty().addListener((obs, oldValue, newValue) -> {
 			changeDisplayRow(newValue.intValue());
 		});
 		
 		control.showingPopupProperty().addListener((obs, oldValue, newValue) -> {
 			showPopup(newValue);
+			popupDismissal.setActive(newValue);
 		});
 		
 		itemsPane.visibleRowsProperty().addListener((obs, oldValue, newValue) -> {
 			if (newValue.intValue() != 0) updateButtons();
 		});
+		itemsPane.totalRowsProperty().addListener((obs, oldValue, newValue) -> {
+			if (itemsPane.getVisibleRows() != 0) updateButtons();
+		});
 		
 		
-		popupMainPane.getChildren().add(popupPane);
+		popupReleaseTimer.setOnFinished(event -> releasePopupContent());
 		
 		popupMainPane.getStylesheets().addAll(control.getRibbon().getRibbonWindow().getUserAgentStylesheet());
 		popup.getContent().add(popupMainPane);
-		
-		Platform.runLater(() -> {
-			control.getScene().addEventFilter(MouseEvent.MOUSE_CLICKED, event -> {
-				if (!popupMainPane.contains(popupMainPane.screenToLocal(event.getX(), event.getY()))) {
-					control.setShowingPopup(false);
-				}
-			});
-		});
+	}
+	
+	/**
+	 * Hides the popup when the user clicks anywhere in the ribbon window; clicks on the popup are not received, 
+	 * as it is another window. Clicks on the popup button are ignored, as the button itself hides the popup.
+	 */
+	private void dismissPopup(MouseEvent event) {
+		if (!popupButton.contains(popupButton.sceneToLocal(event.getSceneX(), event.getSceneY()))) {
+			getSkinnable().setShowingPopup(false);
+		}
 	}
 	
 	private void showPopup(boolean show) {
 		if (show) {
+			popupReleaseTimer.stop();
+			if (popupPane == null) {
+				createPopupContent();
+			}
+			
 			popupMainPane.getStyleClass().setAll(getSkinnable().getStyleClass());
 			popupMainPane.getStyleClass().add("ribbon-gallery-popup");
 			
 			popupMainPane.setPrefWidth(getSkinnable().getWidth());
 			
 			Point2D coords = getSkinnable().localToScreen(0, 0);
+			
+			// Don't let the popup go out of the screen, the rest of the items can be scrolled
+			Rectangle2D screenBounds = Screen.getScreensForRectangle(coords.getX(), coords.getY(), 1, 1).stream()
+					.findFirst().orElse(Screen.getPrimary()).getVisualBounds();
+			popupScrollPane.setMaxHeight(screenBounds.getMaxY() - coords.getY());
+			
 			popup.show(getSkinnable(), coords.getX(), coords.getY());
 		} else {
 			popup.hide();
+			
+			// The popup cells might have taken the item graphics
+			itemsPane.refreshCells();
+			
+			Duration delay = getSkinnable().getPopupReleaseDelay();
+			if (popupPane != null && delay != null && !delay.isIndefinite()) {
+				popupReleaseTimer.setDuration(delay);
+				popupReleaseTimer.playFromStart();
+			}
 		}
 	}
 	
-	private Button createItem(RibbonGalleryItem item) {
-		Button label = new Button(item.getText());
-		label.setGraphic(item.getGraphic());
-		label.setMinWidth(Control.USE_PREF_SIZE);
-		label.getStyleClass().add("gallery-item");
-		label.setTextAlignment(TextAlignment.LEFT);
-		label.setAlignment(Pos.CENTER_LEFT);
-		
-		if (item.getGraphic() != null) {
-			if (getSkinnable().getDisplayPriority() == GalleryItemDisplay.GRAPHIC_PRIORITY) {
-				label.setContentDisplay(ContentDisplay.CENTER);
-			} else {
-				label.setContentDisplay(ContentDisplay.LEFT);
-			}
-		}
-		
-		if (item.getDescription() != null) {
-			label.setTooltip(new Tooltip(item.getDescription()));
-		}
+	private void createPopupContent() {
+		GalleryPane pane = new GalleryPane(getSkinnable());
+		popupPane = pane;
+		popupPane.setOnItemAction(this::onItemAction);
+		popupPane.getStyleClass().add("items-pane");
+		popupPane.columnCountProperty().bind(getSkinnable().columnCountProperty());
+		popupPane.setPrefHeight(Control.USE_COMPUTED_SIZE);
+		popupPane.setMinWidth(Control.USE_PREF_SIZE);
+		popupPane.setMinHeight(Control.USE_PREF_SIZE);
+		popupPane.setExpanded(true);
 		
-		label.setOnAction(event -> {
-			if (getSkinnable().isShowingPopup()) {
-				getSkinnable().setShowingPopup(false);
-			}
-			
-			Consumer<RibbonGalleryItem> action = getSkinnable().getOnItemAction();
-			if (action != null) action.accept(item);
+		// Only the cells in the visible part of the scroll pane are created
+		popupScrollPane = new ScrollPane(popupPane);
+		popupScrollPane.getStyleClass().add("gallery-popup-scroll-pane");
+		popupScrollPane.setFitToWidth(true);
+		popupScrollPane.setHbarPolicy(ScrollBarPolicy.NEVER);
+		popupScrollPane.viewportBoundsProperty().addListener((obs, oldValue, newValue) -> {
+			pane.setViewport(-newValue.getMinY(), newValue.getHeight());
 		});
 		
-		return label;
+		popupMainPane.getChildren().add(popupScrollPane);
+	}
+	
+	private void releasePopupContent() {
+		if (popupPane == null || popup.isShowing()) return;
+		
+		popupMainPane.getChildren().clear();
+		popupPane.dispose();
+		popupPane = null;
+		popupScrollPane = null;
 	}
 	
-	private void generateItems() {
-		for (RibbonGalleryItem item : getSkinnable().getItems()) {
-			itemsPane.getChildren().add(createItem(item));
-			popupPane.getChildren().add(createItem(item));
+	private void onItemAction(RibbonGalleryItem item) {
+		if (getSkinnable().isShowingPopup()) {
+			getSkinnable().setShowingPopup(false);
 		}
+		
+		RibbonCommand command = RibbonCommand.getCommand(item);
+		if (command != null) {
+			command.execute(new ActionEvent(item, null));
+			return;
+		}
+		
+		Consumer<RibbonGalleryItem> action = getSkinnable().getOnItemAction();
+		if (action != null) action.accept(item);
 	}
 
 	private void createButtons(VBox buttonsPane) {
@@ -165,7 +194,7 @@ public class RibbonGallerySkin extends SkinBase<RibbonGallery> {
 		popupButton = new StackPane();
 		popupButton.getStyleClass().addAll("gallery-button");
 		popupButton.setOnMouseReleased(event -> {
-			if (!popupButton.isDisabled()) getSkinnable().setShowingPopup(true);
+			if (!popupButton.isDisabled()) getSkinnable().setShowingPopup(!getSkinnable().isShowingPopup());
 		});
 		
 		Region upButtonGraphic = new Region();
@@ -1,15 +1,63 @@
 package io.github.emd4600.javafxribbon.skin;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import io.github.emd4600.javafxribbon.RibbonButton;
 import io.github.emd4600.javafxribbon.RibbonGroup;
+import io.github.emd4600.javafxribbon.RibbonGroup.Tier;
+import io.github.emd4600.javafxribbon.RibbonWindow;
+import io.github.emd4600.javafxribbon.TextUtils;
+import javafx.beans.value.ChangeListener;
 import javafx.collections.ListChangeListener;
+import javafx.event.ActionEvent;
+import javafx.geometry.Bounds;
+import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
+import javafx.scene.Parent;
 import javafx.scene.control.Label;
+import javafx.scene.control.Labeled;
 import javafx.scene.control.SkinBase;
+import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.stage.Popup;
 
+/**
+ * The skin of a {@link RibbonGroup}. It displays the group nodes according to the group tier: in a row for 
+ * {@link Tier#LARGE}, stacked in columns for {@link Tier#MEDIUM} and {@link Tier#SMALL}, or in a popup shown
+ * by a single button for {@link Tier#COLLAPSED}.
+ * <p>
+ * The width of the group in each tier is computed from the cached text widths of the nodes, without laying them out,
+ * and kept until the group or any of its nodes needs to be laid out again, which is what happens when their texts,
+ * styles, paddings or preferred sizes change; this way the ribbon can decide the tiers on every layout while the
+ * window is resized.
+ */
 public class RibbonGroupSkin extends SkinBase<RibbonGroup> {
+	
+	/** How many ribbon buttons are stacked in each column in the medium and small tiers. */
+	private static final int ROWS_PER_COLUMN = 3;
+	
+	private BorderPane groupPane;
+	private HBox hbox;
+	private Label title;
+	/** Displayed instead of the nodes when the group is collapsed, it shows them in a popup. */
+	private final RibbonButton collapsedButton = new RibbonButton();
+	private Popup popup;
+	private HBox popupContent;
+	/** Hides the collapsed group popup when the user clicks outside of it. */
+	private DismissalHandler popupDismissal;
+	
+	/**
+	 * The width of the group in each tier, computed on demand. It is cleared every time the content changes, 
+	 * and when the group or one of its nodes is marked as needing layout or is laid out.
+	 */
+	private final Map<Tier, Double> tierWidths = new EnumMap<Tier, Double>(Tier.class);
+	private final ChangeListener<Object> tierWidthsListener = (obs, oldValue, newValue) -> tierWidths.clear();
 
 	public RibbonGroupSkin(RibbonGroup group) {
 		super(group);
@@ -19,10 +67,10 @@ public class RibbonGroupSkin extends SkinBase<RibbonGroup> {
 	private void construct() {
 		RibbonGroup group = getSkinnable();
 		
-		BorderPane groupPane = new BorderPane();
+		groupPane = new BorderPane();
 		groupPane.getStyleClass().add("ribbon-group");
 		
-		HBox hbox = new HBox();
+		hbox = new HBox();
 		hbox.spacingProperty().bind(group.spacingProperty());
 		
 //		hbox.getChildren().addListener((ListChangeListener<Node>) c -> {
@@ -60,7 +108,7 @@ public class RibbonGroupSkin extends SkinBase<RibbonGroup> {
 		hbox.getStyleClass().add("content");
 		hbox.getChildren().addAll(group.getNodes());
 		
-		Label title = new Label();
+		title = new Label();
 		title.textProperty().bind(group.textProperty());
 		title.alignmentProperty().bind(group.alignmentProperty());
 		
@@ -79,9 +127,264 @@ public class RibbonGroupSkin extends SkinBase<RibbonGroup> {
 		
 		getChildren().add(groupPane);
 		
+		collapsedButton.textProperty().bind(group.textProperty());
+		collapsedButton.graphicProperty().bind(group.graphicProperty());
+		collapsedButton.setOnAction(event -> showPopup(popup == null || !popup.isShowing()));
+		
+		for (Node node : group.getNodes()) {
+			addNodeListeners(node);
+		}
+		group.textProperty().addListener(tierWidthsListener);
+		group.graphicProperty().addListener(tierWidthsListener);
+		title.fontProperty().addListener(tierWidthsListener);
+		// Changes of CSS, insets and the sizes of the nodes inside the group request a layout
+		group.needsLayoutProperty().addListener(tierWidthsListener);
+		
 		// Add listener
 		group.getNodes().addListener((ListChangeListener<Node>) c -> {
-			hbox.getChildren().setAll(c.getList());
+			while (c.next()) {
+				for (Node node : c.getRemoved()) {
+					removeNodeListeners(node);
+					if (ButtonTextHelper.isRibbonButton(node)) {
+						ButtonTextHelper.setButtonTier((Labeled) node, Tier.LARGE);
+					}
+				}
+				for (Node node : c.getAddedSubList()) {
+					addNodeListeners(node);
+				}
+			}
+			tierWidths.clear();
+			updateContent();
 		});
+		
+		group.tierProperty().addListener((obs, oldValue, newValue) -> updateContent());
+		
+		if (group.getTier() != Tier.LARGE) {
+			updateContent();
+		}
+	}
+	
+	private void addNodeListeners(Node node) {
+		// The nodes of a collapsed group are not inside it, so their layout requests do not reach it
+		if (node instanceof Parent) {
+			((Parent) node).needsLayoutProperty().addListener(tierWidthsListener);
+		}
+		if (node instanceof Labeled) {
+			Labeled labeled = (Labeled) node;
+			labeled.textProperty().addListener(tierWidthsListener);
+			labeled.graphicProperty().addListener(tierWidthsListener);
+			labeled.fontProperty().addListener(tierWidthsListener);
+		}
+	}
+	
+	private void removeNodeListeners(Node node) {
+		if (node instanceof Parent) {
+			((Parent) node).needsLayoutProperty().removeListener(tierWidthsListener);
+		}
+		if (node instanceof Labeled) {
+			Labeled labeled = (Labeled) node;
+			labeled.textProperty().removeListener(tierWidthsListener);
+			labeled.graphicProperty().removeListener(tierWidthsListener);
+			labeled.fontProperty().removeListener(tierWidthsListener);
+		}
+	}
+	
+	/**
+	 * Displays the group nodes as specified by the current tier.
+	 */
+	private void updateContent() {
+		RibbonGroup group = getSkinnable();
+		Tier tier = group.getTier();
+		
+		if (tier != Tier.COLLAPSED && popup != null) {
+			popup.hide();
+		}
+		
+		// The nodes of a collapsed group are displayed large in the popup
+		Tier nodesTier = tier == Tier.COLLAPSED ? Tier.LARGE : tier;
+		for (Node node : group.getNodes()) {
+			if (ButtonTextHelper.isRibbonButton(node)) {
+				ButtonTextHelper.setButtonTier((Labeled) node, nodesTier);
+			}
+		}
+		
+		if (tier == Tier.COLLAPSED) {
+			// The nodes are moved to the popup when it is shown
+			hbox.getChildren().setAll(collapsedButton);
+			if (popup != null && popup.isShowing()) {
+				popupContent.getChildren().setAll(group.getNodes());
+			}
+		}
+		else if (tier == Tier.LARGE) {
+			hbox.getChildren().setAll(group.getNodes());
+		}
+		else {
+			hbox.getChildren().setAll(createColumns(group.getNodes()));
+		}
+		
+		title.setVisible(tier != Tier.COLLAPSED);
+		title.setManaged(tier != Tier.COLLAPSED);
+	}
+	
+	/**
+	 * Stacks consecutive ribbon buttons in columns; any other node gets its own column.
+	 */
+	private static List<Node> createColumns(List<Node> nodes) {
+		List<Node> columns = new ArrayList<Node>();
+		VBox column = null;
+		for (Node node : nodes) {
+			if (ButtonTextHelper.isRibbonButton(node)) {
+				if (column == null || column.getChildren().size() == ROWS_PER_COLUMN) {
+					column = new VBox();
+					column.setAlignment(Pos.TOP_LEFT);
+					columns.add(column);
+				}
+				column.getChildren().add(node);
+			}
+			else {
+				column = null;
+				columns.add(node);
+			}
+		}
+		return columns;
+	}
+	
+	/**
+	 * Gets the preferred width of the group when displayed with the specified tier. The widths are cached until
+	 * the group content changes or needs to be laid out; they are not cached while the group is not in a scene,
+	 * as its styles have not been applied yet.
+	 * @param tier The tier.
+	 * @return The preferred width of the group.
+	 */
+	public double getTierWidth(Tier tier) {
+		Double width = tierWidths.get(tier);
+		if (width == null) {
+			width = computeTierWidth(tier);
+			if (getSkinnable().getScene() != null) {
+				tierWidths.put(tier, width);
+			}
+		}
+		return width;
+	}
+	
+	private double computeTierWidth(Tier tier) {
+		RibbonGroup group = getSkinnable();
+		Insets insets = group.getInsets();
+		Insets paneInsets = groupPane.getInsets();
+		double padding = insets.getLeft() + insets.getRight() + paneInsets.getLeft() + paneInsets.getRight();
+		
+		if (tier == Tier.COLLAPSED) {
+			return padding + ButtonTextHelper.computeButtonWidth(collapsedButton, Tier.LARGE, false);
+		}
+		
+		double contentWidth = 0;
+		int columnCount = 0;
+		double columnWidth = 0;
+		int rowCount = 0;
+		
+		for (Node node : group.getNodes()) {
+			boolean isButton = ButtonTextHelper.isRibbonButton(node);
+			
+			if (isButton && tier != Tier.LARGE) {
+				if (rowCount == ROWS_PER_COLUMN) {
+					contentWidth += columnWidth;
+					columnCount++;
+					columnWidth = 0;
+					rowCount = 0;
+				}
+				double width = ButtonTextHelper.computeButtonWidth((Labeled) node, tier, ButtonTextHelper.showsArrow(node));
+				columnWidth = Math.max(columnWidth, width);
+				rowCount++;
+			}
+			else {
+				if (rowCount != 0) {
+					contentWidth += columnWidth;
+					columnCount++;
+					columnWidth = 0;
+					rowCount = 0;
+				}
+				if (isButton) {
+					contentWidth += ButtonTextHelper.computeButtonWidth((Labeled) node, Tier.LARGE, ButtonTextHelper.showsArrow(node));
+				}
+				else {
+					contentWidth += node.prefWidth(-1);
+				}
+				columnCount++;
+			}
+		}
+		if (rowCount != 0) {
+			contentWidth += columnWidth;
+			columnCount++;
+		}
+		contentWidth += group.getSpacing() * Math.max(columnCount - 1, 0);
+		
+		double titleWidth = 0;
+		if (group.getText() != null) {
+			Insets titleInsets = title.getInsets();
+			titleWidth = TextUtils.computeTextWidth(title.getFont(), group.getText(), 0.0d) + titleInsets.getLeft() + titleInsets.getRight();
+		}
+		
+		return padding + Math.max(contentWidth, titleWidth);
+	}
+	
+	private void createPopup() {
+		popupContent = new HBox();
+		popupContent.spacingProperty().bind(getSkinnable().spacingProperty());
+		popupContent.getStyleClass().add("content");
+		// Executing a command hides the popup
+		popupContent.addEventHandler(ActionEvent.ACTION, event -> popup.hide());
+		
+		Label popupTitle = new Label();
+		popupTitle.textProperty().bind(getSkinnable().textProperty());
+		popupTitle.getStyleClass().add("ribbon-group-title");
+		
+		BorderPane popupPane = new BorderPane();
+		popupPane.getStyleClass().addAll("ribbon-group", "ribbon-group-popup");
+		popupPane.setCenter(popupContent);
+		popupPane.setBottom(popupTitle);
+		BorderPane.setAlignment(popupTitle, Pos.CENTER);
+		
+		RibbonWindow window = findRibbonWindow();
+		if (window != null) {
+			popupPane.getStylesheets().add(window.getUserAgentStylesheet());
+		}
+		
+		popup = new Popup();
+		popup.getContent().add(popupPane);
+		popupDismissal = new DismissalHandler(getSkinnable(), this::dismissPopup);
+		popup.showingProperty().addListener((obs, oldValue, newValue) -> popupDismissal.setActive(newValue));
+	}
+	
+	private RibbonWindow findRibbonWindow() {
+		Parent parent = getSkinnable().getParent();
+		while (parent != null && !(parent instanceof RibbonWindow)) {
+			parent = parent.getParent();
+		}
+		return (RibbonWindow) parent;
+	}
+	
+	private void showPopup(boolean show) {
+		if (show) {
+			if (popup == null) {
+				createPopup();
+			}
+			popupContent.getChildren().setAll(getSkinnable().getNodes());
+			
+			Bounds bounds = getSkinnable().localToScreen(getSkinnable().getBoundsInLocal());
+			popup.show(getSkinnable(), bounds.getMinX(), bounds.getMaxY());
+		}
+		else if (popup != null) {
+			popup.hide();
+		}
+	}
+	
+	/**
+	 * Hides the popup when the user clicks anywhere in the ribbon window; clicks on the popup are not received, 
+	 * as it is another window. Clicks on the collapsed button are ignored, as the button itself hides the popup.
+	 */
+	private void dismissPopup(MouseEvent event) {
+		if (!collapsedButton.contains(collapsedButton.sceneToLocal(event.getSceneX(), event.getSceneY()))) {
+			popup.hide();
+		}
 	}
 }
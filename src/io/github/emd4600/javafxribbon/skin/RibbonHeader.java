@@ -19,10 +19,12 @@
 
 package io.github.emd4600.javafxribbon.skin;
 
+import io.github.emd4600.javafxribbon.Ribbon;
 import io.github.emd4600.javafxribbon.RibbonTab;
 import io.github.emd4600.javafxribbon.Ribbon.RibbonState;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.BooleanPropertyBase;
+import javafx.beans.value.ChangeListener;
 import javafx.css.PseudoClass;
 import javafx.scene.control.Label;
 
@@ -32,10 +34,16 @@ class RibbonHeader extends Label {
 	
 	private RibbonTab tab;
 	
+	/** The ribbon this header was created for; kept so the listeners can be removed in {@link #dispose()}. */
+	private final Ribbon ribbon;
+	
 	private final BooleanProperty selected;
+	
+	private final ChangeListener<RibbonState> ribbonStateListener;
 
 	public RibbonHeader(RibbonTab tab) {
 		this.tab = tab;
+		this.ribbon = tab.getRibbon();
 		
 		graphicProperty().bind(tab.graphicProperty());
 		textProperty().bind(tab.textProperty());
@@ -64,21 +72,41 @@ class RibbonHeader extends Label {
 		selected.bind(tab.selectedProperty());
 		
 		// Width and height settings
-		minWidthProperty().bind(tab.getRibbon().tabMinWidthProperty());
-		maxWidthProperty().bind(tab.getRibbon().tabMaxWidthProperty());
+		minWidthProperty().bind(ribbon.tabMinWidthProperty());
+		maxWidthProperty().bind(ribbon.tabMaxWidthProperty());
 		
-		minHeightProperty().bind(tab.getRibbon().tabMinHeightProperty());
-		maxHeightProperty().bind(tab.getRibbon().tabMaxHeightProperty());
+		minHeightProperty().bind(ribbon.tabMinHeightProperty());
+		maxHeightProperty().bind(ribbon.tabMaxHeightProperty());
 		
 		// We don't want the selected appearance when the ribbon is minimized
-		tab.getRibbon().ribbonStateProperty().addListener((obs, oldValue, newValue) -> {
+		ribbonStateListener = (obs, oldValue, newValue) -> {
 			if (newValue == RibbonState.MINIMIZED) {
 				pseudoClassStateChanged(SELECTED_PSEUDOCLASS_STATE, false);
 			}
 			else {
 				pseudoClassStateChanged(SELECTED_PSEUDOCLASS_STATE, selected.get());
 			}
-		});
+		};
+		ribbon.ribbonStateProperty().addListener(ribbonStateListener);
+	}
+	
+	/**
+	 * Releases all the bindings and listeners this header holds on its tab and ribbon.
+	 * The header must not be used after calling this method.
+	 */
+	void dispose() {
+		graphicProperty().unbind();
+		textProperty().unbind();
+		selected.unbind();
+		
+		minWidthProperty().unbind();
+		maxWidthProperty().unbind();
+		minHeightProperty().unbind();
+		maxHeightProperty().unbind();
+		
+		ribbon.ribbonStateProperty().removeListener(ribbonStateListener);
+		
+		setOnMouseClicked(null);
 	}
 
 	public final RibbonTab getTab() {
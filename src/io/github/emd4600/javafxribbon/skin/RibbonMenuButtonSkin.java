@@ -16,6 +16,8 @@ public class RibbonMenuButtonSkin extends SkinBase<RibbonMenuButton> {
 
 	
 	private VBox container;
+	private DeferredSkinUpdate deferredUpdate;
+	private RibbonReference ribbonReference;
 	private final ContextMenu contextMenu = new ContextMenu();
 
 	public RibbonMenuButtonSkin(RibbonMenuButton control) {
@@ -28,15 +30,21 @@ public class RibbonMenuButtonSkin extends SkinBase<RibbonMenuButton> {
 		container.setAlignment(Pos.TOP_CENTER);
 		getChildren().add(container);
 		
+		// Changing multiple properties at once only updates the skin once
+		deferredUpdate = new DeferredSkinUpdate(getSkinnable(), this::update);
+		ribbonReference = new RibbonReference(getSkinnable());
+		
 		getSkinnable().textProperty().addListener((obs, oldValue, newValue) -> {
-			update();
+			deferredUpdate.request();
 		});
 		getSkinnable().graphicProperty().addListener((obs, oldValue, newValue) -> {
-			update();
+			deferredUpdate.request();
 		});
 		getSkinnable().styleProperty().addListener((obs, oldValue, newValue) -> {
-			update();
+			deferredUpdate.request();
 		});
+		// The ribbon group tells the button which tier to use
+		ButtonTextHelper.addTierListener(getSkinnable(), deferredUpdate);
 		
 		update();
 		
@@ -87,6 +95,6 @@ public class RibbonMenuButtonSkin extends SkinBase<RibbonMenuButton> {
 	}
 	
 	private void update() {
-		ButtonTextHelper.layoutButton(getSkinnable(), container, true);
+		ButtonTextHelper.layoutButton(getSkinnable(), container, true, ribbonReference.getMetrics());
 	}
 }
@@ -0,0 +1,32 @@
+package io.github.emd4600.javafxribbon.skin;
+
+import io.github.emd4600.javafxribbon.Ribbon;
+import io.github.emd4600.javafxribbon.RibbonMetrics;
+import javafx.scene.Node;
+
+/**
+ * Keeps the ribbon that contains a node, looked up again only when the node changes scene. Skins use it to find
+ * the ribbon metrics on every layout without walking all the parents of the node.
+ */
+final class RibbonReference {
+
+	private final Node node;
+	private Ribbon ribbon;
+
+	RibbonReference(Node node) {
+		this.node = node;
+		node.sceneProperty().addListener((obs, oldValue, newValue) -> update());
+		update();
+	}
+
+	private void update() {
+		ribbon = Ribbon.getRibbon(node);
+	}
+
+	/**
+	 * Gets the metrics of the ribbon, or null if the node is not in a ribbon or metrics are disabled.
+	 */
+	RibbonMetrics getMetrics() {
+		return ribbon == null ? null : ribbon.getMetrics();
+	}
+}
@@ -19,23 +19,39 @@
 
 package io.github.emd4600.javafxribbon.skin;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import io.github.emd4600.javafxribbon.Ribbon;
 import io.github.emd4600.javafxribbon.RibbonButton;
 import io.github.emd4600.javafxribbon.RibbonGroup;
+import io.github.emd4600.javafxribbon.RibbonIconLoader;
 import io.github.emd4600.javafxribbon.RibbonMenu;
+import io.github.emd4600.javafxribbon.RibbonMetrics;
+import io.github.emd4600.javafxribbon.RibbonMetrics.Operation;
 import io.github.emd4600.javafxribbon.RibbonProgramButton;
+import io.github.emd4600.javafxribbon.RibbonResizePolicy;
 import io.github.emd4600.javafxribbon.RibbonTab;
+import io.github.emd4600.javafxribbon.RibbonWindow;
 import io.github.emd4600.javafxribbon.Ribbon.RibbonState;
+import javafx.animation.AnimationTimer;
+import javafx.beans.InvalidationListener;
+import javafx.beans.value.ChangeListener;
 import javafx.collections.ListChangeListener;
+import javafx.geometry.BoundingBox;
 import javafx.geometry.Bounds;
 import javafx.geometry.Insets;
 import javafx.geometry.Orientation;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
+import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.Separator;
 import javafx.scene.control.SkinBase;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
@@ -44,6 +60,8 @@ import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.Priority;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Window;
 
 /**
  * The skin implementation of a {@link Ribbon}. It is basically composed of a {@link BorderPane}:
@@ -55,19 +73,61 @@ import javafx.scene.layout.Priority;
  */
 public class RibbonSkin extends SkinBase<Ribbon> {
 	
+	/** The size of the expand and minimize button icons. */
+	private static final double EXPAND_ICON_SIZE = 16;
+	
 	private final BorderPane pane = new BorderPane();
 	/** The pane that displays the tab selection buttons. */
 	// No spacing between tabs
 	private final HBox tabsPane = new HBox(0);
 	private Pane tabsPaneOutline;
+	/** The command search box displayed after the tab headers, created the first time it is shown. */
+	private CommandSearchBox searchBox;
+	/** The headers currently displayed, in the same order as the ribbon tabs. */
+	private final List<RibbonHeader> headers = new ArrayList<RibbonHeader>();
+	/** The program button that has been added to the tabs pane, if any. */
+	private RibbonProgramButton installedProgramButton;
+	/** Hides the program button menu when the user clicks outside of it. */
+	private DismissalHandler programMenuDismissal;
+	/** Minimizes the ribbon when the user clicks outside of it while in dropdown state. */
+	private final DismissalHandler dropdownDismissal = new DismissalHandler(getSkinnable(), this::dismissDropdown);
+	/** 
+	 * The scene-space bounds of the tab headers strip (including the program button) and of the content pane,
+	 * used to resolve dropdown dismissal. They are null when they must be recomputed.
+	 */
+	private Bounds headersSceneBounds;
+	private Bounds contentSceneBounds;
+	/** The scene-space bounds of the command search box, or null if it is not displayed. */
+	private Bounds searchSceneBounds;
+	private final ChangeListener<Object> dismissalBoundsListener = (obs, oldValue, newValue) -> invalidateDismissalBounds();
 	
 	private final BorderPane contentPane = new BorderPane();
-	private final HBox groupsContainer = new HBox();
+	private final HBox groupsContainer = new GroupsBox();
+	
+	/** When the content cache is enabled, contains the content of all the cached tabs; only the selected one is visible. */
+	private final StackPane cachedContentPane = new StackPane();
+	/** The content of the cached tabs, in least recently used order. */
+	private final Map<RibbonTab, CachedContent> contentCache = new LinkedHashMap<RibbonTab, CachedContent>(16, 0.75f, true);
+	private CachedContent shownContent;
+	
+	/** Builds the content of unvisited tabs during idle frames, see {@link Ribbon#prewarmTimeBudgetProperty()}. */
+	private final AnimationTimer prewarmTimer = new AnimationTimer() {
+		@Override
+		public void handle(long now) {
+			prewarmContent();
+		}
+	};
+	private final ChangeListener<Boolean> windowShowingListener = (obs, oldValue, newValue) -> schedulePrewarm();
+	private final ChangeListener<Window> windowListener = (obs, oldValue, newValue) -> updatePrewarmWindow();
+	private Scene prewarmScene;
+	private Window prewarmWindow;
 	
 	private ImageView expandImage;
 	private ImageView minimizeImage;
 	
 	private final Button expandButton = new Button();
+	
+	private KeyTipManager keyTips;
 
 	public RibbonSkin(Ribbon control) {
 		super(control);
@@ -75,40 +135,160 @@ public class RibbonSkin extends SkinBase<Ribbon> {
 	}
 	
 	private void handleRibbonState(RibbonState state) {
-		if (state == RibbonState.DROPDOWN) {
-			getSkinnable().getRibbonWindow().getChildren().add(contentPane);
+		dropdownDismissal.setActive(state == RibbonState.DROPDOWN);
+		invalidateDismissalBounds();
+		
+		// In the overlay, the content does not move with the ribbon
+		contentPane.localToSceneTransformProperty().removeListener(dismissalBoundsListener);
+		if (state != RibbonState.EXPANDED) {
+			contentPane.localToSceneTransformProperty().addListener(dismissalBoundsListener);
+		}
+		
+		RibbonWindow window = getSkinnable().getRibbonWindow();
+		
+		if (state == RibbonState.EXPANDED) {
+			// Reset
+			window.removeOverlay(contentPane);
+			contentPane.setTranslateY(0);
 			
-			contentPane.setTranslateY(tabsPane.getBoundsInParent().getMaxY());
+			pane.setCenter(contentPane);
+			updateContentHeight(getSkinnable().getContentHeight());
 			
-			expandButton.setGraphic(expandImage);
+			expandButton.setGraphic(minimizeImage);
 		}
 		else {
-			// Reset
-			getSkinnable().getRibbonWindow().getChildren().remove(contentPane);
-			contentPane.setTranslateY(0);
+			// While the ribbon is minimized, the content stays in the window overlay layer (hidden unless 
+			// in dropdown state), so dropping it down does not reapply its CSS
+			pane.setCenter(null);
 			
-			if (state == RibbonState.EXPANDED) {
-				pane.setCenter(contentPane);
-				updateContentHeight(getSkinnable().getContentHeight());
+			if (state == RibbonState.DROPDOWN) {
+				contentPane.setTranslateY(tabsPane.getBoundsInParent().getMaxY());
+				window.showOverlay(contentPane);
 				
-				expandButton.setGraphic(minimizeImage);
+				expandButton.setGraphic(expandImage);
 			}
-			else if (state == RibbonState.MINIMIZED) {
-				pane.setCenter(null);
+			else {
+				// Make sure it is in the layer, but hidden
+				window.showOverlay(contentPane);
+				window.hideOverlay(contentPane);
 			}
 		}
 	}
 	
 	private void constructTabsPane() {
+		RibbonMetrics metrics = getSkinnable().getMetrics();
+		long start = metrics == null ? 0 : System.nanoTime();
+		
 		tabsPane.getChildren().clear();
+		for (RibbonHeader header : headers) {
+			header.dispose();
+		}
+		headers.clear();
 		
 		createProgramButton();
 		
 		for (RibbonTab tab : getSkinnable().getTabs()) {
-			createTabHeader(tab);
+			RibbonHeader header = createTabHeader(tab);
+			headers.add(header);
+			tabsPane.getChildren().add(header);
 		}
 		
 		tabsPane.getChildren().add(tabsPaneOutline);
+		if (getSkinnable().isSearchBoxVisible()) {
+			tabsPane.getChildren().add(getSearchBox());
+		}
+		
+		if (metrics != null) {
+			metrics.record(Operation.CONSTRUCT_TABS_PANE, System.nanoTime() - start);
+		}
+	}
+	
+	private CommandSearchBox getSearchBox() {
+		if (searchBox == null) {
+			searchBox = new CommandSearchBox(getSkinnable());
+		}
+		return searchBox;
+	}
+	
+	private void updateSearchBox(boolean visible) {
+		if (visible) {
+			tabsPane.getChildren().add(getSearchBox());
+		}
+		else if (searchBox != null) {
+			tabsPane.getChildren().remove(searchBox);
+		}
+		invalidateDismissalBounds();
+	}
+	
+	/**
+	 * Returns the index in the tabs pane children of the first tab header.
+	 */
+	private int getHeadersOffset() {
+		return installedProgramButton == null ? 0 : 1;
+	}
+	
+	/**
+	 * Updates the tab headers so they reflect the changes made in the ribbon tabs list. Only the affected 
+	 * headers are modified; headers of tabs that are just moved to another position are reused.
+	 */
+	private void updateTabHeaders(ListChangeListener.Change<? extends RibbonTab> c) {
+		RibbonMetrics metrics = getSkinnable().getMetrics();
+		long start = metrics == null ? 0 : System.nanoTime();
+		
+		// Headers that have been removed in this change, they might be added again in another position
+		Map<RibbonTab, RibbonHeader> detachedHeaders = new HashMap<RibbonTab, RibbonHeader>();
+		int offset = getHeadersOffset();
+		
+		while (c.next()) {
+			if (c.wasPermutated()) {
+				int from = c.getFrom();
+				int to = c.getTo();
+				
+				List<RibbonHeader> permuted = new ArrayList<RibbonHeader>(headers.subList(from, to));
+				for (int i = from; i < to; i++) {
+					permuted.set(c.getPermutation(i) - from, headers.get(i));
+				}
+				
+				headers.subList(from, to).clear();
+				headers.addAll(from, permuted);
+				
+				tabsPane.getChildren().remove(offset + from, offset + to);
+				tabsPane.getChildren().addAll(offset + from, permuted);
+			}
+			else if (c.wasRemoved() || c.wasAdded()) {
+				int from = c.getFrom();
+				
+				if (c.wasRemoved()) {
+					List<RibbonHeader> removed = headers.subList(from, from + c.getRemovedSize());
+					for (RibbonHeader header : removed) {
+						detachedHeaders.put(header.getTab(), header);
+					}
+					removed.clear();
+					
+					tabsPane.getChildren().remove(offset + from, offset + from + c.getRemovedSize());
+				}
+				
+				if (c.wasAdded()) {
+					List<RibbonHeader> added = new ArrayList<RibbonHeader>(c.getAddedSize());
+					for (RibbonTab tab : c.getAddedSubList()) {
+						RibbonHeader header = detachedHeaders.remove(tab);
+						added.add(header == null ? createTabHeader(tab) : header);
+					}
+					
+					headers.addAll(from, added);
+					tabsPane.getChildren().addAll(offset + from, added);
+				}
+			}
+		}
+		
+		// Whatever has not been reused is no longer in the ribbon
+		for (RibbonHeader header : detachedHeaders.values()) {
+			header.dispose();
+		}
+		
+		if (metrics != null) {
+			metrics.record(Operation.UPDATE_TAB_HEADERS, System.nanoTime() - start);
+		}
 	}
 
 	private void construct() {
@@ -118,9 +298,9 @@ public class RibbonSkin extends SkinBase<Ribbon> {
 		
 		contentPane.setCenter(groupsContainer);
 		contentPane.getStyleClass().add("ribbon-content-area");
-		groupsContainer.maxHeightProperty().bind(contentPane.maxHeightProperty());
+		setupGroupsContainer(groupsContainer);
 		
-		groupsContainer.setAlignment(Pos.CENTER_LEFT);
+		cachedContentPane.setAlignment(Pos.CENTER_LEFT);
 		
 		updateContentHeight(getSkinnable().getContentHeight());
 		
@@ -137,10 +317,14 @@ public class RibbonSkin extends SkinBase<Ribbon> {
 		
 		getChildren().add(pane);
 		
+		keyTips = new KeyTipManager(getSkinnable(), this::getHeader);
+		
 		// -- Expand Button -- //
 		
-		expandImage = new ImageView(new Image(getSkinnable().getRibbonWindow().getResource("ribbon-expand.png")));
-		minimizeImage = new ImageView(new Image(getSkinnable().getRibbonWindow().getResource("ribbon-minimize.png")));
+		// Decoded in the background, so the first frame does not wait for them
+		RibbonIconLoader iconLoader = RibbonIconLoader.getDefault();
+		expandImage = iconLoader.createImageView(getSkinnable().getRibbonWindow().getResourceURL("ribbon-expand.png"), EXPAND_ICON_SIZE, EXPAND_ICON_SIZE);
+		minimizeImage = iconLoader.createImageView(getSkinnable().getRibbonWindow().getResourceURL("ribbon-minimize.png"), EXPAND_ICON_SIZE, EXPAND_ICON_SIZE);
 		
 		// Technically it's not a ribbon button, but we don't want the standard button background
 		expandButton.getStyleClass().add(RibbonButton.DEFAULT_STYLE_CLASS);
@@ -161,7 +345,29 @@ public class RibbonSkin extends SkinBase<Ribbon> {
 		// -- Update Listeners -- //
 		
 		getSkinnable().getTabs().addListener((ListChangeListener.Change<? extends RibbonTab> c) -> {
-			constructTabsPane();
+			updateTabHeaders(c);
+			
+			c.reset();
+			while (c.next()) {
+				for (RibbonTab tab : c.getRemoved()) {
+					if (!getSkinnable().getTabs().contains(tab)) {
+						evictContent(tab);
+					}
+				}
+			}
+			
+			schedulePrewarm();
+		});
+		
+		getSkinnable().programButtonProperty().addListener((obs, oldValue, newValue) -> {
+			if (installedProgramButton != null) {
+				programMenuDismissal.setActive(false);
+				programMenuDismissal = null;
+				installedProgramButton.setOnAction(null);
+				tabsPane.getChildren().remove(installedProgramButton);
+				installedProgramButton = null;
+			}
+			createProgramButton();
 		});
 		
 		getSkinnable().getSelectionModel().selectedItemProperty().addListener((obs, oldValue, newValue) -> {
@@ -172,12 +378,56 @@ public class RibbonSkin extends SkinBase<Ribbon> {
 		
 		getSkinnable().contentHeightProperty().addListener((obs, oldValue, newValue) -> {
 			updateContentHeight(newValue.doubleValue());
+			
+			for (CachedContent content : contentCache.values()) {
+				updateSeparatorsHeight(content.container);
+			}
 		});
 		
+		getSkinnable().resizePolicyProperty().addListener((obs, oldValue, newValue) -> {
+			groupsContainer.requestLayout();
+			for (CachedContent content : contentCache.values()) {
+				content.container.requestLayout();
+			}
+		});
+		
+		getSkinnable().searchBoxVisibleProperty().addListener((obs, oldValue, newValue) -> {
+			updateSearchBox(newValue);
+		});
+		
+		getSkinnable().contentCacheSizeProperty().addListener((obs, oldValue, newValue) -> {
+			if (newValue.intValue() <= 0) {
+				clearContentCache();
+			}
+			RibbonTab selectedTab = getSkinnable().getSelectionModel().getSelectedItem();
+			if (selectedTab != null) {
+				setContent(selectedTab);
+			}
+			trimContentCache();
+			schedulePrewarm();
+		});
+		
+		getSkinnable().prewarmTimeBudgetProperty().addListener((obs, oldValue, newValue) -> {
+			schedulePrewarm();
+		});
+		
+		getSkinnable().sceneProperty().addListener((obs, oldValue, newValue) -> {
+			updatePrewarmWindow();
+		});
+		updatePrewarmWindow();
+		
 		getSkinnable().ribbonStateProperty().addListener((obs, oldValue, newValue) -> {
 			handleRibbonState(newValue);
 		});
 		
+		// Any layout that might move the headers or the content invalidates the dismissal bounds, and so does
+		// moving the ribbon or any of its parents in the scene
+		pane.needsLayoutProperty().addListener(dismissalBoundsListener);
+		tabsPane.needsLayoutProperty().addListener(dismissalBoundsListener);
+		contentPane.needsLayoutProperty().addListener(dismissalBoundsListener);
+		getSkinnable().boundsInParentProperty().addListener(dismissalBoundsListener);
+		getSkinnable().localToSceneTransformProperty().addListener(dismissalBoundsListener);
+		
 		getSkinnable().setOnScroll((ScrollEvent event) -> {
 			if ((event.getDeltaY() < 0) && (getSkinnable().getSelectionModel().getSelectedIndex() < getSkinnable().getTabs().size() - 1)) {
 				getSkinnable().getSelectionModel().select(getSkinnable().getSelectionModel().getSelectedIndex() + 1);
@@ -186,30 +436,46 @@ public class RibbonSkin extends SkinBase<Ribbon> {
 				getSkinnable().getSelectionModel().select(getSkinnable().getSelectionModel().getSelectedIndex() - 1);
 			}
 		});
+	}
+	
+	/**
+	 * If the ribbon is in dropdown and the user clicked outside the content/tab headers/program button,
+	 * minimizes the ribbon again.
+	 */
+	private void dismissDropdown(MouseEvent event) {
+		if (getSkinnable().getRibbonState() != RibbonState.DROPDOWN) return;
 		
-		getSkinnable().getScene().addEventFilter(MouseEvent.MOUSE_PRESSED, (event) -> {
-			// If ribbon is in dropdown and the user clicked outside the content/tab headers/program button,
-			// minimize the ribbon again
-			if (getSkinnable().getRibbonState() == RibbonState.DROPDOWN) {
-				
-				// If the click was on the content pane, do nothing
-				if (contentPane.contains(contentPane.sceneToLocal(event.getSceneX(), event.getSceneY()))) {
-					return;
-				}
-				
-				// If the click was on a tab header or program button, do nothing
-				for (Node node : tabsPane.getChildren()) {
-					if (node.contains(node.sceneToLocal(event.getSceneX(), event.getSceneY()))
-							// Clicking on the outline panel DOES minimize the ribbon again
-							&& node != tabsPaneOutline) {
-						return;
-					}
-				}
-				
-				// If we have arrived here, minimize the ribbon
-				getSkinnable().setRibbonState(RibbonState.MINIMIZED);
-			}
-		});
+		if (headersSceneBounds == null) {
+			updateDismissalBounds();
+		}
+		
+		// If the click was on the content pane, a tab header, the program button or the search box, do nothing
+		// Clicking on the outline panel DOES minimize the ribbon again
+		if (contentSceneBounds.contains(event.getSceneX(), event.getSceneY())
+				|| headersSceneBounds.contains(event.getSceneX(), event.getSceneY())
+				|| (searchSceneBounds != null && searchSceneBounds.contains(event.getSceneX(), event.getSceneY()))) {
+			return;
+		}
+		
+		// If we have arrived here, minimize the ribbon
+		getSkinnable().setRibbonState(RibbonState.MINIMIZED);
+	}
+	
+	private void invalidateDismissalBounds() {
+		headersSceneBounds = null;
+		contentSceneBounds = null;
+		searchSceneBounds = null;
+	}
+	
+	private void updateDismissalBounds() {
+		// The headers go from the start of the tabs pane to the outline, which fills the rest of it
+		Bounds tabsBounds = tabsPane.getLayoutBounds();
+		double headersMaxX = tabsPaneOutline.getParent() == tabsPane ? tabsPaneOutline.getBoundsInParent().getMinX() : tabsBounds.getMaxX();
+		headersSceneBounds = tabsPane.localToScene(new BoundingBox(tabsBounds.getMinX(), tabsBounds.getMinY(), 
+				Math.max(0, headersMaxX - tabsBounds.getMinX()), tabsBounds.getHeight()));
+		
+		contentSceneBounds = contentPane.localToScene(contentPane.getLayoutBounds());
+		searchSceneBounds = searchBox != null && searchBox.getParent() == tabsPane ? searchBox.localToScene(searchBox.getLayoutBounds()) : null;
 	}
 	
 	private void createProgramButton() {
@@ -220,37 +486,40 @@ public class RibbonSkin extends SkinBase<Ribbon> {
 				if (button.getRibbonMenu().isShowing()) {
 					button.getRibbonMenu().hide();
 					button.setSelected(false);
+					programMenuDismissal.setActive(false);
 				}
 				else {
 					Bounds rect = button.localToScreen(button.getBoundsInLocal());
 					
 					button.getRibbonMenu().show(getSkinnable(), rect.getMinX(), rect.getMaxY());
 					button.setSelected(true);
+					programMenuDismissal.setActive(true);
 				}
 			});
 			
-			button.sceneProperty().addListener((obs, oldValue, newValue) -> {
-				if (newValue != null) {
-					newValue.addEventFilter(MouseEvent.MOUSE_PRESSED, (event) -> {
-						RibbonMenu menu = button.getRibbonMenu();
-						if (menu.isShowing() && !menu.contains(event.getScreenX(), event.getScreenY())) {
-							menu.hide();
-							
-							// Also ensure we deselect the button 
-							button.setSelected(false);
-							
-							// If the click was on the program button, it will open the menu again
-							// in the action event; consume the click to avoid that
-							if (button.contains(button.screenToLocal(event.getScreenX(), event.getScreenY()))) {
-								event.consume();
-							}
-						};
-
-					});
+			programMenuDismissal = new DismissalHandler(button, (event) -> {
+				RibbonMenu menu = button.getRibbonMenu();
+				if (!menu.isShowing()) {
+					// The menu was hidden by other means
+					programMenuDismissal.setActive(false);
+				}
+				else if (!menu.contains(event.getScreenX(), event.getScreenY())) {
+					menu.hide();
+					programMenuDismissal.setActive(false);
+					
+					// Also ensure we deselect the button 
+					button.setSelected(false);
+					
+					// If the click was on the program button, it will open the menu again
+					// in the action event; consume the click to avoid that
+					if (button.contains(button.screenToLocal(event.getScreenX(), event.getScreenY()))) {
+						event.consume();
+					}
 				}
 			});
 			
-			tabsPane.getChildren().add(button);
+			tabsPane.getChildren().add(0, button);
+			installedProgramButton = button;
 		}
 	}
 	
@@ -267,9 +536,8 @@ public class RibbonSkin extends SkinBase<Ribbon> {
 		}
 	}
 	
-	private void createTabHeader(RibbonTab tab) {
+	private RibbonHeader createTabHeader(RibbonTab tab) {
 		RibbonHeader button = new RibbonHeader(tab);
-		tabsPane.getChildren().add(button);
 		
 		button.setOnMouseClicked((event) -> {
 			
@@ -315,6 +583,16 @@ public class RibbonSkin extends SkinBase<Ribbon> {
 			} 
 		});
 		
+		return button;
+	}
+	
+	private RibbonHeader getHeader(RibbonTab tab) {
+		for (RibbonHeader header : headers) {
+			if (header.getTab() == tab) {
+				return header;
+			}
+		}
+		return null;
 	}
 	
 	private void select(RibbonTab tab) {
@@ -322,19 +600,272 @@ public class RibbonSkin extends SkinBase<Ribbon> {
 	}
 	
 	private void setContent(RibbonTab tab) {
-		groupsContainer.getChildren().clear();
+		RibbonMetrics metrics = getSkinnable().getMetrics();
+		long start = metrics == null ? 0 : System.nanoTime();
+		
+		if (tab != null) {
+			tab.createGroups();
+		}
+		
+		if (getSkinnable().getContentCacheSize() <= 0) {
+			if (contentPane.getCenter() != groupsContainer) {
+				contentPane.setCenter(groupsContainer);
+			}
+			fillGroupsContainer(groupsContainer, tab);
+		}
+		else {
+			if (contentPane.getCenter() != cachedContentPane) {
+				// The groups might be in use by the uncached container
+				groupsContainer.getChildren().clear();
+				contentPane.setCenter(cachedContentPane);
+			}
+			
+			CachedContent content = contentCache.get(tab);
+			if (content == null) {
+				content = new CachedContent(tab);
+				contentCache.put(tab, content);
+				cachedContentPane.getChildren().add(content.container);
+			}
+			
+			if (shownContent != content) {
+				if (shownContent != null) {
+					setContentShown(shownContent.container, false);
+				}
+				setContentShown(content.container, true);
+				shownContent = content;
+			}
+			
+			trimContentCache();
+		}
+		
+		if (metrics != null) {
+			metrics.record(Operation.SET_CONTENT, System.nanoTime() - start);
+		}
+	}
+	
+	/**
+	 * Keeps track of the window that contains the ribbon, as pre-warming only starts once it is shown.
+	 */
+	private void updatePrewarmWindow() {
+		Scene scene = getSkinnable().getScene();
+		if (scene != prewarmScene) {
+			if (prewarmScene != null) {
+				prewarmScene.windowProperty().removeListener(windowListener);
+			}
+			if (scene != null) {
+				scene.windowProperty().addListener(windowListener);
+			}
+			prewarmScene = scene;
+		}
+		
+		Window window = scene == null ? null : scene.getWindow();
+		if (window != prewarmWindow) {
+			if (prewarmWindow != null) {
+				prewarmWindow.showingProperty().removeListener(windowShowingListener);
+			}
+			if (window != null) {
+				window.showingProperty().addListener(windowShowingListener);
+			}
+			prewarmWindow = window;
+		}
+		
+		schedulePrewarm();
+	}
+	
+	/**
+	 * Starts pre-warming tab content if it is enabled, the window is shown and there are tabs left to build.
+	 */
+	private void schedulePrewarm() {
+		if (getSkinnable().getPrewarmTimeBudget() > 0 && prewarmWindow != null && prewarmWindow.isShowing()
+				&& getNextPrewarmTab() != null) {
+			prewarmTimer.start();
+		}
+		else {
+			prewarmTimer.stop();
+		}
+	}
+	
+	/**
+	 * Returns the next tab whose content must be built in advance, or null if there is none.
+	 */
+	private RibbonTab getNextPrewarmTab() {
+		// Building more tabs than the cache can hold would just release the recently used ones
+		if (getSkinnable().getContentCacheSize() <= contentCache.size()) {
+			return null;
+		}
+		for (RibbonTab tab : getSkinnable().getTabs()) {
+			// containsKey does not alter the access order of the cache
+			if (!tab.isSelected() && !contentCache.containsKey(tab)) {
+				return tab;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Builds, styles and layouts the content of unvisited tabs, within the time budget for this frame.
+	 */
+	private void prewarmContent() {
+		long budget = (long) (getSkinnable().getPrewarmTimeBudget() * 1000000.0);
+		long start = System.nanoTime();
+		
+		do {
+			RibbonTab tab = getNextPrewarmTab();
+			if (tab == null) {
+				prewarmTimer.stop();
+				return;
+			}
+			
+			tab.createGroups();
+			CachedContent content = new CachedContent(tab);
+			contentCache.put(tab, content);
+			cachedContentPane.getChildren().add(content.container);
+			
+			// The content is hidden, so we must apply the CSS and layout it ourselves
+			content.container.applyCss();
+			content.container.resize(cachedContentPane.getWidth(), cachedContentPane.getHeight());
+			content.container.layout();
+		} 
+		while (System.nanoTime() - start < budget);
+	}
+	
+	private static void setContentShown(Node content, boolean shown) {
+		content.setVisible(shown);
+		content.setManaged(shown);
+	}
+	
+	private void setupGroupsContainer(HBox container) {
+		container.maxHeightProperty().bind(contentPane.maxHeightProperty());
+		container.setAlignment(Pos.CENTER_LEFT);
+	}
+	
+	private void fillGroupsContainer(HBox container, RibbonTab tab) {
+		container.getChildren().clear();
 		
 		for (RibbonGroup group : tab.getGroups()) {
 			//group.minHeightProperty().bind(getSkinnable().contentHeightProperty());
 			group.prefHeightProperty().bind(getSkinnable().contentHeightProperty());
 			//group.maxHeightProperty().bind(getSkinnable().contentHeightProperty());
 			
-			groupsContainer.getChildren().add(group);
+			container.getChildren().add(group);
 			
 			Separator separator = new Separator(Orientation.VERTICAL);
 			separator.getStyleClass().add("ribbon-group-separator");
 			separator.setMaxHeight(getSkinnable().getContentHeight() - 6);
-			groupsContainer.getChildren().add(separator);
+			container.getChildren().add(separator);
+		}
+	}
+	
+	private void updateSeparatorsHeight(HBox container) {
+		for (Node node : container.getChildren()) {
+			if (node instanceof Separator) {
+				((Separator) node).setMaxHeight(getSkinnable().getContentHeight() - 6);
+			}
+		}
+	}
+	
+	/**
+	 * Releases the least recently used tab contents until the cache fits in the size specified by the ribbon.
+	 * The content that is being shown is never released.
+	 */
+	private void trimContentCache() {
+		int maxSize = Math.max(getSkinnable().getContentCacheSize(), 0);
+		
+		Iterator<CachedContent> it = contentCache.values().iterator();
+		while (contentCache.size() > maxSize && it.hasNext()) {
+			CachedContent content = it.next();
+			if (content != shownContent) {
+				it.remove();
+				releaseContent(content);
+			}
+		}
+	}
+	
+	private void evictContent(RibbonTab tab) {
+		CachedContent content = contentCache.remove(tab);
+		if (content != null) {
+			releaseContent(content);
+		}
+	}
+	
+	private void clearContentCache() {
+		for (CachedContent content : contentCache.values()) {
+			releaseContent(content);
+		}
+		contentCache.clear();
+	}
+	
+	private void releaseContent(CachedContent content) {
+		content.dispose();
+		cachedContentPane.getChildren().remove(content.container);
+		if (content == shownContent) {
+			shownContent = null;
+		}
+	}
+	
+	/**
+	 * The container of the groups of a tab. Before laying out the groups, it lets the ribbon resize policy
+	 * decide their tiers so that they fit in the available width.
+	 */
+	private class GroupsBox extends HBox {
+		private final List<RibbonGroup> groups = new ArrayList<RibbonGroup>();
+		
+		GroupsBox() {
+			// The groups are reduced instead
+			setMinWidth(0);
+		}
+		
+		@Override
+		protected void layoutChildren() {
+			RibbonResizePolicy policy = getSkinnable().getResizePolicy();
+			if (policy != null) {
+				double availableWidth = getWidth() - snappedLeftInset() - snappedRightInset();
+				
+				List<Node> children = getManagedChildren();
+				for (Node child : children) {
+					if (child instanceof RibbonGroup) {
+						groups.add((RibbonGroup) child);
+					}
+					else {
+						availableWidth -= child.prefWidth(-1);
+					}
+				}
+				availableWidth -= snapSpaceX(getSpacing()) * Math.max(children.size() - 1, 0);
+				
+				policy.resize(groups, availableWidth);
+				groups.clear();
+			}
+			
+			super.layoutChildren();
+		}
+	}
+	
+	/**
+	 * The content of a tab that is kept in the content cache. It keeps itself updated when the tab groups change.
+	 */
+	private class CachedContent {
+		private final RibbonTab tab;
+		private final HBox container = new GroupsBox();
+		private final InvalidationListener groupsListener = (obs) -> refill();
+		
+		CachedContent(RibbonTab tab) {
+			this.tab = tab;
+			setupGroupsContainer(container);
+			setContentShown(container, false);
+			refill();
+			
+			tab.getGroups().addListener(groupsListener);
+		}
+		
+		private void refill() {
+			fillGroupsContainer(container, tab);
+		}
+		
+		void dispose() {
+			tab.getGroups().removeListener(groupsListener);
+			// Release the groups, so they can be used in other containers
+			container.getChildren().clear();
+			container.maxHeightProperty().unbind();
 		}
 	}
 }
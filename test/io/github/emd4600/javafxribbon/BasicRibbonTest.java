@@ -4,6 +4,7 @@ import io.github.emd4600.javafxribbon.Ribbon;
 import io.github.emd4600.javafxribbon.RibbonContextMenu;
 import io.github.emd4600.javafxribbon.RibbonGroup;
 import io.github.emd4600.javafxribbon.RibbonProgramButton;
+import io.github.emd4600.javafxribbon.RibbonResizePolicy;
 import io.github.emd4600.javafxribbon.RibbonTab;
 import io.github.emd4600.javafxribbon.RibbonWindow;
 import javafx.application.Application;
@@ -26,7 +27,7 @@ public class BasicRibbonTest extends Application {
 		launch(args);
 	}
 	
-	private void addProgramButton(Ribbon ribbon) {
+	private static void addProgramButton(Ribbon ribbon) {
 		RibbonProgramButton programButton = new RibbonProgramButton("File");
 		
 		RibbonContextMenu menu = new RibbonContextMenu(ribbon);
@@ -38,7 +39,7 @@ public class BasicRibbonTest extends Application {
 		ribbon.setProgramButton(programButton);
 	}
 	
-	private RibbonTab createTab1() {
+	private static RibbonTab createTab1() {
 		RibbonGroup group1 = new RibbonGroup("Test Group 1");
 		
 		group1.getNodes().addAll(
@@ -48,7 +49,7 @@ public class BasicRibbonTest extends Application {
 		return new RibbonTab("Test", group1);
 	}
 
-	private RibbonTab createTab2() {
+	private static RibbonTab createTab2() {
 		RibbonGroup group1 = new RibbonGroup("Test Group 1");
 		group1.getNodes().addAll(
 				new Button("Example1"),
@@ -62,8 +63,10 @@ public class BasicRibbonTest extends Application {
 		return new RibbonTab("Another test", group1, group2);
 	}
 	
-	@Override
-	public void start(Stage stage) throws Exception {
+	/**
+	 * Creates the ribbon window shown by this test, without a scene. It is also used by the performance budget tests.
+	 */
+	public static RibbonWindow createRibbonWindow() {
 		RibbonWindow main = new RibbonWindow();
 		
 		// A pane with a gradient used to differenciate it from the ribbon
@@ -81,13 +84,20 @@ public class BasicRibbonTest extends Application {
 		
 		Ribbon ribbon = main.getRibbon();
 		ribbon.setContentHeight(115);
+		ribbon.setResizePolicy(RibbonResizePolicy.REDUCE_FROM_RIGHT);
+		ribbon.setKeyTipsEnabled(true);
 		ribbon.getTabs().addAll(tab1, tab2);
 		
 		addProgramButton(ribbon);
 		
 		main.setContent(pane);
 		
-		Scene scene = new Scene(main, 1000, 700);
+		return main;
+	}
+	
+	@Override
+	public void start(Stage stage) throws Exception {
+		Scene scene = new Scene(createRibbonWindow(), 1000, 700);
 		
 		stage.setScene(scene);
 		stage.show();
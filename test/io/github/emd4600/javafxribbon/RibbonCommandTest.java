@@ -0,0 +1,204 @@
+package io.github.emd4600.javafxribbon;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javafx.application.Platform;
+import javafx.event.ActionEvent;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.RadioMenuItem;
+
+/**
+ * Tests for the state of the commands. Menu items and gallery items can be created without starting JavaFX,
+ * so they are used instead of buttons; the pulses requested by the commands are only counted.
+ */
+public class RibbonCommandTest {
+
+	private int pulseRequests;
+
+	@BeforeEach
+	public void countPulseRequests() {
+		RibbonCommand.pulseRequester = () -> pulseRequests++;
+	}
+
+	@AfterEach
+	public void restorePulseRequests() {
+		RibbonCommand.pulseRequester = Platform::requestNextPulse;
+	}
+
+	/** Creates a command whose enabled predicate counts how many times it is evaluated. */
+	private static RibbonCommand countingCommand(int[] evaluations) {
+		RibbonCommand command = new RibbonCommand("Paste", null);
+		command.setEnabledPredicate(() -> {
+			evaluations[0]++;
+			return true;
+		});
+		return command;
+	}
+
+	@Test
+	public void invalidatedCommandsAreEvaluatedOnce() {
+		int[] pasteEvaluations = new int[1];
+		int[] copyEvaluations = new int[1];
+		RibbonCommand paste = countingCommand(pasteEvaluations);
+		RibbonCommand copy = countingCommand(copyEvaluations);
+
+		paste.update();
+		copy.update();
+		paste.update();
+		assertEquals(1, pasteEvaluations[0], "Commands are only evaluated when they are out of date");
+		assertEquals(1, copyEvaluations[0]);
+
+		paste.invalidate();
+		paste.update();
+		copy.update();
+		assertEquals(2, pasteEvaluations[0]);
+		assertEquals(1, copyEvaluations[0], "Invalidating a command does not affect the others");
+
+		RibbonCommand.invalidateAll();
+		RibbonCommand.invalidateAll();
+		paste.update();
+		copy.update();
+		paste.update();
+		assertEquals(3, pasteEvaluations[0], "Invalidating all the commands twice evaluates them once");
+		assertEquals(2, copyEvaluations[0]);
+	}
+
+	@Test
+	public void invalidatingAnOutOfDateCommandDoesNothing() {
+		RibbonCommand command = countingCommand(new int[1]);
+		command.update();
+
+		long modificationCount = RibbonCommand.getModificationCount();
+		int requests = pulseRequests;
+		command.invalidate();
+		assertEquals(modificationCount + 1, RibbonCommand.getModificationCount());
+		assertEquals(requests + 1, pulseRequests, "A pulse is requested to evaluate the command");
+
+		command.invalidate();
+		assertEquals(modificationCount + 1, RibbonCommand.getModificationCount(), "The command was already out of date");
+		assertEquals(requests + 1, pulseRequests);
+	}
+
+	@Test
+	public void togglesAreSelectedAgainAfterFiring() {
+		boolean[] bold = new boolean[1];
+		RibbonCommand command = new RibbonCommand("Bold", null);
+		command.setSelectedPredicate(() -> bold[0]);
+
+		RadioMenuItem item = new RadioMenuItem();
+		command.bind(item);
+		command.update();
+		assertFalse(item.isSelected());
+
+		// Clicking the toggle selects it even if the action does not change the state
+		item.setSelected(true);
+		item.fire();
+		command.update();
+		assertFalse(item.isSelected(), "The toggle takes the state of the command again");
+
+		command.setOnAction(event -> bold[0] = true);
+		item.setSelected(true);
+		item.fire();
+		command.update();
+		assertTrue(item.isSelected());
+		assertTrue(command.isSelected());
+	}
+
+	@Test
+	public void bindAndUnbind() {
+		boolean[] enabled = {true};
+		RibbonCommand paste = new RibbonCommand("Paste", null);
+		paste.setEnabledPredicate(() -> enabled[0]);
+		RibbonCommand copy = new RibbonCommand("Copy", null);
+
+		MenuItem item = new MenuItem();
+		paste.bind(item);
+		assertSame(paste, RibbonCommand.getCommand(item));
+		assertEquals("Paste", item.getText());
+		paste.setText("Paste Here");
+		assertEquals("Paste Here", item.getText());
+		assertNotNull(item.getOnAction());
+
+		enabled[0] = false;
+		RibbonCommand.invalidateAll();
+		paste.update();
+		assertTrue(item.isDisable());
+
+		assertThrows(IllegalStateException.class, () -> copy.bind(item), "The item is already bound");
+		assertThrows(IllegalStateException.class, () -> paste.bind(item));
+
+		copy.unbind(item);
+		assertSame(paste, RibbonCommand.getCommand(item), "Only the command of the item can unbind it");
+
+		paste.unbind(item);
+		assertNull(RibbonCommand.getCommand(item));
+		assertNull(item.getOnAction());
+		assertEquals("Paste Here", item.getText(), "The item keeps its text");
+		item.setText("Cut");
+
+		enabled[0] = true;
+		RibbonCommand.invalidateAll();
+		paste.update();
+		assertTrue(item.isDisable(), "The item no longer follows the state of the command");
+
+		copy.bind(item);
+		assertEquals("Copy", item.getText());
+		assertFalse(item.isDisable());
+	}
+
+	@Test
+	public void bindGalleryItems() {
+		RibbonCommand command = new RibbonCommand("Heading", null);
+		command.setEnabledPredicate(() -> false);
+
+		RibbonGalleryItem item = new RibbonGalleryItem();
+		command.bind(item);
+		assertSame(command, RibbonCommand.getCommand(item));
+		assertEquals("Heading", item.getText());
+		assertThrows(IllegalStateException.class, () -> new RibbonCommand().bind(item));
+
+		command.update();
+		assertTrue(item.isDisable());
+
+		command.unbind(item);
+		assertNull(RibbonCommand.getCommand(item));
+		item.setText("Title");
+	}
+
+	@Test
+	public void disabledCommandsAreNotExecuted() {
+		boolean[] enabled = {false};
+		ActionEvent[] events = new ActionEvent[1];
+		RibbonCommand command = new RibbonCommand("Paste", event -> events[0] = event);
+		command.setEnabledPredicate(() -> enabled[0]);
+
+		command.execute(null);
+		assertTrue(command.isDisabled(), "The command is evaluated before executing it");
+		assertNull(events[0]);
+
+		enabled[0] = true;
+		command.execute(null);
+		assertNull(events[0], "The command is still up to date, so it is still disabled");
+
+		command.invalidate();
+		command.execute(null);
+		assertFalse(command.isDisabled());
+		assertNotNull(events[0]);
+		assertSame(command, events[0].getSource());
+
+		// Executing it invalidates the command, as the action usually changes the state
+		enabled[0] = false;
+		command.execute(null);
+		assertTrue(command.isDisabled());
+	}
+}
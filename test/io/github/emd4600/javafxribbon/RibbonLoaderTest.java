@@ -0,0 +1,227 @@
+package io.github.emd4600.javafxribbon;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.emd4600.javafxribbon.RibbonDefinition.Element;
+import io.github.emd4600.javafxribbon.RibbonDefinition.Kind;
+import io.github.emd4600.javafxribbon.benchmark.FxPlatform;
+import javafx.scene.Node;
+import javafx.scene.control.MenuItem;
+
+/**
+ * Tests for reading definitions; parsing does not create any control, so they do not need JavaFX to be started.
+ * Only the tests that create the controls of the tabs start it.
+ */
+public class RibbonLoaderTest {
+
+	private static RibbonDefinition parse(String xml) throws IOException {
+		return parse(new RibbonLoader(), xml);
+	}
+
+	private static RibbonDefinition parse(RibbonLoader loader, String xml) throws IOException {
+		return loader.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), null);
+	}
+
+	private static IOException parseError(String xml) {
+		return assertThrows(IOException.class, () -> parse(xml));
+	}
+
+	@Test
+	public void readsElementsAndAttributes() throws IOException {
+		RibbonDefinition definition = parse(
+				"<ribbon>\n" +
+				"  <tab text=\"Home\" keyTip=\"H\">\n" +
+				"    <group text=\"Clipboard\">\n" +
+				"      <button text=\"Paste\" command=\"paste\"/>\n" +
+				"      <menuButton text=\"Paste Special\">\n" +
+				"        <item text=\"Keep Text Only\" command=\"pasteText\"/>\n" +
+				"        <separator/>\n" +
+				"      </menuButton>\n" +
+				"    </group>\n" +
+				"    <group text=\"Styles\">\n" +
+				"      <gallery prefWidth=\"300\">\n" +
+				"        <item text=\"Normal\" command=\"normalStyle\"/>\n" +
+				"      </gallery>\n" +
+				"    </group>\n" +
+				"  </tab>\n" +
+				"  <tab text=\"Insert\"/>\n" +
+				"</ribbon>");
+
+		assertEquals(11, definition.getElementCount());
+		assertNull(definition.getBaseURL());
+
+		List<Element> tabs = definition.getTabs();
+		assertEquals(2, tabs.size());
+		assertEquals("Home", tabs.get(0).getAttribute("text"));
+		assertEquals("H", tabs.get(0).getAttribute("keyTip"));
+		assertNull(tabs.get(1).getAttribute("keyTip"));
+		assertTrue(tabs.get(1).getChildren().isEmpty());
+
+		List<Element> clipboard = tabs.get(0).getChildren().get(0).getChildren();
+		assertEquals(Kind.BUTTON, clipboard.get(0).getKind());
+		assertEquals("paste", clipboard.get(0).getAttribute("command"));
+		assertEquals(Kind.MENU_BUTTON, clipboard.get(1).getKind());
+		assertEquals(Kind.ITEM, clipboard.get(1).getChildren().get(0).getKind());
+		assertEquals(Kind.SEPARATOR, clipboard.get(1).getChildren().get(1).getKind());
+
+		Element gallery = tabs.get(0).getChildren().get(1).getChildren().get(0);
+		assertEquals(Kind.GALLERY, gallery.getKind());
+		assertEquals("normalStyle", gallery.getChildren().get(0).getAttribute("command"));
+	}
+
+	@Test
+	public void rejectsElementsInTheWrongParent() {
+		IOException e = parseError(
+				"<ribbon>\n" +
+				"  <tab text=\"Home\">\n" +
+				"    <button text=\"Paste\"/>\n" +
+				"  </tab>\n" +
+				"</ribbon>");
+		assertTrue(e.getMessage().contains("<button> cannot be inside <tab>"), e.getMessage());
+		assertTrue(e.getMessage().contains("[3,"), "The message reports the line: " + e.getMessage());
+
+		e = parseError(
+				"<ribbon>\n" +
+				"  <tab text=\"Home\">\n" +
+				"    <group text=\"Styles\">\n" +
+				"      <gallery>\n" +
+				"        <separator/>\n" +
+				"      </gallery>\n" +
+				"    </group>\n" +
+				"  </tab>\n" +
+				"</ribbon>");
+		assertTrue(e.getMessage().contains("<separator> cannot be inside <gallery>"), e.getMessage());
+		assertTrue(e.getMessage().contains("[5,"), "The message reports the line: " + e.getMessage());
+	}
+
+	@Test
+	public void rejectsOtherRootElements() {
+		IOException e = parseError("<tab text=\"Home\"/>");
+		assertTrue(e.getMessage().contains("The root element must be <ribbon>"), e.getMessage());
+	}
+
+	@Test
+	public void rejectsUnknownElements() {
+		IOException e = parseError(
+				"<ribbon>\n" +
+				"  <tab text=\"Home\">\n" +
+				"    <group text=\"Clipboard\">\n" +
+				"      <checkBox text=\"Ruler\"/>\n" +
+				"    </group>\n" +
+				"  </tab>\n" +
+				"</ribbon>");
+		assertTrue(e.getMessage().contains("Unknown element <checkBox>"), e.getMessage());
+		assertTrue(e.getMessage().contains("[4,"), "The message reports the line: " + e.getMessage());
+	}
+
+	@Test
+	public void reportsTheColumnOfInvalidAttributes() {
+		IOException e = parseError(
+				"<ribbon>\n" +
+				"  <tab text=\"Home\">\n" +
+				"    <group text=\"Styles\"><gallery prefWidth=\"wide\"/></group>\n" +
+				"  </tab>\n" +
+				"</ribbon>");
+		assertTrue(e.getMessage().contains("Invalid prefWidth 'wide'"), e.getMessage());
+		// The location is the end of the start tag of the gallery
+		int column = "    <group text=\"Styles\"><gallery prefWidth=\"wide\"/>".length() + 1;
+		assertTrue(e.getMessage().contains("[3," + column + "]"), "The message reports the line and column: " + e.getMessage());
+	}
+
+	@Test
+	public void rejectsMenuButtonCommands() {
+		IOException e = parseError(
+				"<ribbon>\n" +
+				"  <tab text=\"Home\">\n" +
+				"    <group text=\"Clipboard\">\n" +
+				"      <menuButton text=\"Paste Special\" command=\"paste\"/>\n" +
+				"    </group>\n" +
+				"  </tab>\n" +
+				"</ribbon>");
+		assertTrue(e.getMessage().contains("<menuButton> cannot have a command"), e.getMessage());
+		assertTrue(e.getMessage().contains("[4,"), "The message reports the line: " + e.getMessage());
+	}
+
+	@Test
+	public void rejectsMalformedXml() {
+		IOException e = parseError(
+				"<ribbon>\n" +
+				"  <tab text=\"Home\">\n" +
+				"</ribbon>");
+		assertTrue(e.getMessage().contains("[3,"), "The message reports the line: " + e.getMessage());
+	}
+
+	@Test
+	public void bindsItemsToTheirCommands() throws IOException {
+		Map<String, RibbonCommand> commands = new HashMap<String, RibbonCommand>();
+		commands.put("paste", new RibbonCommand("Paste", null));
+		// Commands without text take the text of the definition
+		commands.put("pasteText", new RibbonCommand());
+		commands.put("normalStyle", new RibbonCommand());
+
+		RibbonLoader loader = new RibbonLoader(commands::get);
+		RibbonDefinition definition = parse(loader,
+				"<ribbon>\n" +
+				"  <tab text=\"Home\">\n" +
+				"    <group text=\"Clipboard\">\n" +
+				"      <button text=\"Paste Here\" command=\"paste\"/>\n" +
+				"      <menuButton text=\"Paste Special\">\n" +
+				"        <item text=\"Keep Text Only\" command=\"pasteText\"/>\n" +
+				"      </menuButton>\n" +
+				"      <gallery>\n" +
+				"        <item text=\"Normal\" command=\"normalStyle\"/>\n" +
+				"        <item text=\"Heading\"/>\n" +
+				"      </gallery>\n" +
+				"    </group>\n" +
+				"  </tab>\n" +
+				"</ribbon>");
+
+		FxPlatform.start();
+		FxPlatform.run(() -> {
+			RibbonTab tab = loader.load(definition, new Ribbon()).get(0);
+			tab.createGroups();
+			List<Node> nodes = tab.getGroups().get(0).getNodes();
+
+			RibbonButton button = (RibbonButton) nodes.get(0);
+			assertSame(commands.get("paste"), RibbonCommand.getCommand(button));
+			assertEquals("Paste", button.getText(), "The text of the command goes first");
+
+			MenuItem menuItem = ((RibbonMenuButton) nodes.get(1)).getItems().get(0);
+			RibbonCommand pasteText = commands.get("pasteText");
+			assertSame(pasteText, RibbonCommand.getCommand(menuItem));
+			assertEquals("Keep Text Only", pasteText.getText());
+			pasteText.setText("Paste Text");
+			assertEquals("Paste Text", menuItem.getText());
+			pasteText.setEnabledPredicate(() -> false);
+			pasteText.update();
+			assertTrue(menuItem.isDisable());
+
+			RibbonGallery gallery = (RibbonGallery) nodes.get(2);
+			RibbonGalleryItem galleryItem = gallery.getItems().get(0);
+			RibbonCommand normalStyle = commands.get("normalStyle");
+			assertSame(normalStyle, RibbonCommand.getCommand(galleryItem));
+			assertNull(RibbonCommand.getCommand(gallery.getItems().get(1)));
+			assertNull(gallery.getOnItemAction(), "The gallery has no command of its own");
+			normalStyle.setText("Normal Text");
+			assertEquals("Normal Text", galleryItem.getText());
+			normalStyle.setEnabledPredicate(() -> false);
+			normalStyle.update();
+			assertTrue(galleryItem.isDisable());
+			assertFalse(gallery.getItems().get(1).isDisable());
+		});
+	}
+}
@@ -0,0 +1,157 @@
+package io.github.emd4600.javafxribbon;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import io.github.emd4600.javafxribbon.benchmark.FxPlatform;
+import javafx.scene.control.Tooltip;
+
+/**
+ * Tests for the command search index. The index needs a ribbon and its controls, so JavaFX is started; the
+ * controls are never displayed, so fonts are not needed.
+ */
+public class RibbonSearchIndexTest {
+
+	@BeforeAll
+	public static void startPlatform() {
+		FxPlatform.start();
+	}
+
+	/** Creates a ribbon with a tab that has a group with a button for every text. */
+	private static Ribbon createRibbon(String... texts) {
+		RibbonGroup group = new RibbonGroup("Group");
+		for (String text : texts) {
+			group.getNodes().add(new RibbonButton(text, null));
+		}
+		Ribbon ribbon = new Ribbon();
+		ribbon.getTabs().add(new RibbonTab("Home", group));
+		return ribbon;
+	}
+
+	private static List<String> search(Ribbon ribbon, String query) {
+		return search(ribbon, query, 10);
+	}
+
+	private static List<String> search(Ribbon ribbon, String query, int maxResults) {
+		List<String> texts = new ArrayList<String>();
+		for (RibbonSearchResult result : ribbon.getSearchIndex().search(query, maxResults)) {
+			texts.add(result.getText());
+		}
+		return texts;
+	}
+
+	@Test
+	public void tokenize() {
+		assertArrayEquals(new String[] {"paste", "special"}, RibbonSearchIndex.tokenize("Paste Special..."));
+		assertArrayEquals(new String[] {"page", "2", "of"}, RibbonSearchIndex.tokenize("page 2 of PAGE"), "Words are not repeated");
+		assertArrayEquals(new String[] {"don", "t"}, RibbonSearchIndex.tokenize("  Don't "));
+		assertEquals(0, RibbonSearchIndex.tokenize(null).length);
+		assertEquals(0, RibbonSearchIndex.tokenize(" - ").length);
+	}
+
+	@Test
+	public void exactMatchesGoFirst() {
+		FxPlatform.run(() -> {
+			Ribbon ribbon = createRibbon("Parte", "Pasteboard", "Paste Special", "Paste", "Clipboard", "Copy");
+			RibbonButton clipboard = (RibbonButton) ribbon.getTabs().get(0).getGroups().get(0).getNodes().get(4);
+			clipboard.setTooltip(new Tooltip("Paste from the clipboard"));
+
+			// Exact matches (shorter texts first), prefix matches, matches in the description, and typos
+			assertEquals(Arrays.asList("Paste", "Paste Special", "Pasteboard", "Clipboard", "Parte"), search(ribbon, "paste"));
+			// All of them are prefixes, so the shorter texts go first
+			assertEquals(Arrays.asList("Paste", "Pasteboard", "Paste Special", "Clipboard", "Parte"), search(ribbon, "past"));
+			assertEquals(Arrays.asList("Paste"), search(ribbon, "PASTE", 1));
+		});
+	}
+
+	@Test
+	public void typosDependOnTheLength() {
+		FxPlatform.run(() -> {
+			Ribbon ribbon = createRibbon("Margins", "Orientation");
+
+			assertEquals(Arrays.asList("Margins"), search(ribbon, "mrg"), "Three letters tolerate one typo");
+			assertTrue(search(ribbon, "mr").isEmpty(), "Shorter terms are only matched by prefix");
+			assertTrue(search(ribbon, "mxx").isEmpty());
+
+			assertTrue(search(ribbon, "mxrxi").isEmpty(), "Five letters only tolerate one typo");
+			assertEquals(Arrays.asList("Margins"), search(ribbon, "mxrxin"), "Six letters tolerate two typos");
+			assertTrue(search(ribbon, "mxrxxn").isEmpty());
+
+			assertTrue(search(ribbon, "xargins").isEmpty(), "The first letter must be right");
+		});
+	}
+
+	@Test
+	public void allTermsMustMatch() {
+		FxPlatform.run(() -> {
+			Ribbon ribbon = createRibbon("Page Setup", "Page Color", "Line Color");
+
+			assertEquals(Arrays.asList("Line Color", "Page Color"), search(ribbon, "color"));
+			assertEquals(Arrays.asList("Page Color"), search(ribbon, "page color"));
+			assertEquals(Arrays.asList("Page Color"), search(ribbon, "col pa"));
+			assertTrue(search(ribbon, "page line").isEmpty());
+		});
+	}
+
+	@Test
+	public void changedTextsAreIndexedAgain() {
+		FxPlatform.run(() -> {
+			Ribbon ribbon = createRibbon("Paste");
+			RibbonButton button = (RibbonButton) ribbon.getTabs().get(0).getGroups().get(0).getNodes().get(0);
+			RibbonSearchIndex index = ribbon.getSearchIndex();
+			assertEquals(1, index.size());
+
+			button.setText("Cut");
+			assertTrue(search(ribbon, "paste").isEmpty());
+			assertEquals(Arrays.asList("Cut"), search(ribbon, "cut"));
+
+			Tooltip tooltip = new Tooltip("Remove the selection");
+			button.setTooltip(tooltip);
+			assertEquals(Arrays.asList("Cut"), search(ribbon, "remove"));
+
+			tooltip.setText("Move the selection to the clipboard");
+			assertTrue(search(ribbon, "remove").isEmpty());
+			assertEquals(Arrays.asList("Cut"), search(ribbon, "clipboard"));
+
+			button.setTooltip(null);
+			assertTrue(search(ribbon, "clipboard").isEmpty());
+			assertEquals(1, index.size());
+			assertEquals(1, index.getWordCount(), "The words of the old texts are removed");
+		});
+	}
+
+	@Test
+	public void searchEntriesAreReplacedByTheControls() {
+		FxPlatform.run(() -> {
+			Ribbon ribbon = new Ribbon();
+			RibbonTab tab = new RibbonTab("Insert", () -> Arrays.asList(new RibbonGroup("Tables", new RibbonButton("Table", null))));
+			tab.getSearchEntries().add(new RibbonSearchEntry("Table", "Insert a table", "Tables"));
+			ribbon.getTabs().add(tab);
+			RibbonSearchIndex index = ribbon.getSearchIndex();
+
+			List<RibbonSearchResult> results = index.search("table", 10);
+			assertEquals(1, results.size());
+			RibbonSearchResult entry = results.get(0);
+			assertFalse(entry.isMaterialized());
+			assertEquals("Tables", entry.getGroupText());
+
+			tab.createGroups();
+			results = index.search("table", 10);
+			assertEquals(1, results.size(), "The entries are no longer indexed");
+			assertTrue(results.get(0).isMaterialized());
+			assertSame(tab.getGroups().get(0).getNodes().get(0), results.get(0).getNode());
+			assertTrue(index.search("insert", 10).isEmpty(), "The description of the entry is removed");
+			assertEquals(1, index.size());
+		});
+	}
+}
@@ -0,0 +1,63 @@
+package io.github.emd4600.javafxribbon.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import io.github.emd4600.javafxribbon.RibbonSearchIndex;
+import io.github.emd4600.javafxribbon.RibbonSearchResult;
+import io.github.emd4600.javafxribbon.RibbonTab;
+import io.github.emd4600.javafxribbon.RibbonWindow;
+
+/**
+ * Budgets for the command search with 10000 commands, most of them in tabs whose groups have not been created.
+ */
+public class CommandSearchBudgetTest {
+	
+	private static final int ITERATIONS = 200;
+	private static final String[] KEYSTROKES = {"f", "fo", "for", "form", "forma", "format", "format ", "format p", "format pa"};
+	
+	@BeforeAll
+	public static void startPlatform() {
+		FxPlatform.assumeAvailable();
+	}
+	
+	@Test
+	public void keystroke() {
+		RibbonWindow window = FxPlatform.call(() -> RibbonFixtures.createSearchWindow(10000));
+		RibbonSearchIndex index = FxPlatform.call(() -> window.getRibbon().getSearchIndex());
+		assertEquals(10000, (int) FxPlatform.call(index::size), "Indexed commands");
+		
+		int[] count = new int[1];
+		OperationCost.measure("Command search keystroke", ITERATIONS, () -> {
+			index.search(KEYSTROKES[count[0]++ % KEYSTROKES.length], 8);
+		})
+			.assertTimeWithin(1.0)
+			.assertAllocationWithin(256 * 1024);
+		
+		OperationCost.measure("Command search keystroke with typo", ITERATIONS, () -> {
+			index.search("frmat", 8);
+		})
+			.assertTimeWithin(1.0);
+	}
+	
+	@Test
+	public void searchDoesNotCreateGroups() {
+		RibbonWindow window = FxPlatform.call(() -> RibbonFixtures.createSearchWindow(10000));
+		
+		List<RibbonSearchResult> results = FxPlatform.call(() -> window.getRibbon().getSearchIndex().search("format pa", 8));
+		assertFalse(results.isEmpty(), "Results for 'format pa'");
+		
+		for (RibbonSearchResult result : results) {
+			assertTrue(result.getText().toLowerCase().startsWith("format painter"), "Result " + result);
+		}
+		
+		long pendingTabs = FxPlatform.call(() -> window.getRibbon().getTabs().stream().filter(RibbonTab::isGroupsPending).count());
+		assertEquals(90, pendingTabs, "Tabs whose groups have not been created");
+	}
+}
@@ -0,0 +1,86 @@
+package io.github.emd4600.javafxribbon.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import io.github.emd4600.javafxribbon.Ribbon;
+import io.github.emd4600.javafxribbon.RibbonCommand;
+import io.github.emd4600.javafxribbon.RibbonGroup;
+import io.github.emd4600.javafxribbon.RibbonTab;
+import io.github.emd4600.javafxribbon.RibbonWindow;
+import javafx.scene.Node;
+import javafx.scene.control.ButtonBase;
+
+/**
+ * Budgets for the command state updates: only the commands of the selected tab are evaluated, once per update.
+ */
+public class CommandUpdateBudgetTest {
+	
+	private static final int ITERATIONS = 200;
+	private static final int TAB_COUNT = 20;
+	private static final int COMMANDS_PER_TAB = 100;
+	
+	@BeforeAll
+	public static void startPlatform() {
+		FxPlatform.assumeAvailable();
+	}
+	
+	/**
+	 * Creates a ribbon whose buttons are bound to commands that count how many times they are evaluated.
+	 */
+	private static RibbonWindow createWindow(int[] evaluations) {
+		return FxPlatform.call(() -> {
+			RibbonWindow window = RibbonFixtures.createRibbonWindow(TAB_COUNT, 10, 10);
+			for (RibbonTab tab : window.getRibbon().getTabs()) {
+				for (RibbonGroup group : tab.getGroups()) {
+					for (Node node : group.getNodes()) {
+						RibbonCommand command = new RibbonCommand(((ButtonBase) node).getText(), null);
+						command.setEnabledPredicate(() -> evaluations[0]++ % 2 == 0);
+						command.bind((ButtonBase) node);
+					}
+				}
+			}
+			RibbonFixtures.pulse(window);
+			return window;
+		});
+	}
+	
+	@Test
+	public void onlySelectedTabIsEvaluated() {
+		int[] evaluations = new int[1];
+		RibbonWindow window = createWindow(evaluations);
+		Ribbon ribbon = window.getRibbon();
+		
+		FxPlatform.run(() -> {
+			evaluations[0] = 0;
+			// Several invalidations before the update are evaluated once
+			for (int i = 0; i < 10; i++) {
+				RibbonCommand.invalidateAll();
+			}
+			RibbonFixtures.pulse(window);
+		});
+		assertEquals(COMMANDS_PER_TAB, evaluations[0], "Commands evaluated");
+		
+		FxPlatform.run(() -> {
+			evaluations[0] = 0;
+			ribbon.getSelectionModel().select(1);
+			RibbonFixtures.pulse(window);
+			RibbonFixtures.pulse(window);
+		});
+		assertEquals(COMMANDS_PER_TAB, evaluations[0], "Commands evaluated when selecting another tab");
+	}
+	
+	@Test
+	public void stateChange() {
+		RibbonWindow window = createWindow(new int[1]);
+		
+		OperationCost.measure("Command state change", ITERATIONS, () -> {
+			RibbonCommand.invalidateAll();
+			RibbonFixtures.pulse(window);
+		})
+			.assertTimeWithin(2.0)
+			.assertAllocationWithin(128 * 1024);
+	}
+}
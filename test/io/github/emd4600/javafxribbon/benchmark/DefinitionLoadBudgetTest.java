@@ -0,0 +1,75 @@
+package io.github.emd4600.javafxribbon.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import io.github.emd4600.javafxribbon.RibbonDefinition;
+import io.github.emd4600.javafxribbon.RibbonLoader;
+import io.github.emd4600.javafxribbon.RibbonWindow;
+import javafx.scene.Scene;
+
+/**
+ * Budgets for ribbons loaded from a definition: only the selected tab is created at startup.
+ */
+public class DefinitionLoadBudgetTest {
+	
+	private static final int ITERATIONS = 50;
+	private static final int TAB_COUNT = 30;
+	
+	@BeforeAll
+	public static void startPlatform() {
+		FxPlatform.assumeAvailable();
+	}
+	
+	private static RibbonDefinition parse(RibbonLoader loader, byte[] definition) {
+		try {
+			return loader.parse(new ByteArrayInputStream(definition), null);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	@Test
+	public void onlySelectedTabIsCreated() {
+		RibbonLoader loader = new RibbonLoader();
+		RibbonDefinition definition = parse(loader, RibbonFixtures.createDefinition(TAB_COUNT, 5, 8).getBytes(StandardCharsets.UTF_8));
+		assertEquals(1 + TAB_COUNT * (1 + 5 * (1 + 8)), definition.getElementCount(), "Parsed elements");
+		
+		RibbonWindow window = FxPlatform.call(() -> {
+			RibbonWindow w = new RibbonWindow();
+			loader.load(definition, w.getRibbon());
+			new Scene(w, RibbonFixtures.SCENE_WIDTH, RibbonFixtures.SCENE_HEIGHT);
+			RibbonFixtures.pulse(w);
+			return w;
+		});
+		assertEquals(1, loader.getMaterializedTabCount(), "Created tabs");
+		assertEquals(TAB_COUNT * 5 * 8, (int) FxPlatform.call(() -> window.getRibbon().getSearchIndex().size()), "Searchable commands");
+		
+		FxPlatform.run(() -> {
+			window.getRibbon().getSelectionModel().select(TAB_COUNT - 1);
+			RibbonFixtures.pulse(window);
+		});
+		assertEquals(2, loader.getMaterializedTabCount(), "Created tabs after selecting another tab");
+	}
+	
+	@Test
+	public void coldStart() {
+		byte[] definition = RibbonFixtures.createDefinition(TAB_COUNT, 5, 8).getBytes(StandardCharsets.UTF_8);
+		
+		OperationCost.measure("Cold start from a definition", ITERATIONS, () -> {
+			RibbonLoader loader = new RibbonLoader();
+			RibbonWindow window = new RibbonWindow();
+			loader.load(parse(loader, definition), window.getRibbon());
+			new Scene(window, RibbonFixtures.SCENE_WIDTH, RibbonFixtures.SCENE_HEIGHT);
+			RibbonFixtures.pulse(window);
+		})
+			.assertTimeWithin(20.0);
+	}
+}
@@ -0,0 +1,115 @@
+package io.github.emd4600.javafxribbon.benchmark;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+
+import javafx.application.Platform;
+import javafx.scene.text.Text;
+
+/**
+ * Starts the JavaFX platform once per JVM and runs code in the JavaFX thread, waiting for the result.
+ * The budget tests and benchmarks are meant to be run with the headless Monocle platform, which the pom configures.
+ * <p>
+ * The platform needs the native JavaFX graphics and font libraries. Where they are missing, the budget tests are
+ * skipped with a warning; with <code>-Dbudget.required=true</code>, which CI must use, they fail instead.
+ */
+public final class FxPlatform {
+	
+	/** The system property that makes the budget tests fail when the platform is not available. */
+	public static final String REQUIRED_PROPERTY = "budget.required";
+	
+	/** How long to wait for the platform to start before considering it unavailable. */
+	private static final long STARTUP_TIMEOUT_SECONDS = 30;
+	
+	private static boolean started;
+	private static Boolean available;
+	/** Why the platform is not available, or null. */
+	private static Throwable unavailableCause;
+	
+	private FxPlatform() {}
+
+	public static synchronized void start() {
+		if (started) return;
+		
+		CountDownLatch latch = new CountDownLatch(1);
+		Platform.startup(latch::countDown);
+		Platform.setImplicitExit(false);
+		try {
+			if (!latch.await(STARTUP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				throw new IllegalStateException("The JavaFX platform did not start");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+		started = true;
+	}
+	
+	/**
+	 * Starts the platform if possible, and checks that text can be measured, as most budgets depend on it.
+	 * @return Whether the platform started and fonts are available
+	 * @see #assumeAvailable()
+	 */
+	public static synchronized boolean isAvailable() {
+		if (available == null) {
+			try {
+				start();
+				available = call(() -> new Text("Paste").getLayoutBounds().getWidth() > 0);
+			}
+			catch (Throwable e) {
+				unavailableCause = e;
+				available = false;
+			}
+		}
+		return available;
+	}
+	
+	/**
+	 * Called by the budget tests before they run. If the platform is not available, the tests are aborted
+	 * with a warning in the standard error, or they fail if the <code>budget.required</code> property is true.
+	 */
+	public static void assumeAvailable() {
+		if (isAvailable()) return;
+		
+		String message = "JavaFX cannot be started, the performance budgets are NOT checked: " + unavailableCause;
+		if (Boolean.getBoolean(REQUIRED_PROPERTY)) {
+			Assertions.fail(message + " (" + REQUIRED_PROPERTY + " is true)", unavailableCause);
+		}
+		System.err.println("WARNING: " + message + ". Use -D" + REQUIRED_PROPERTY + "=true to fail instead.");
+		Assumptions.abort(message);
+	}
+	
+	public static <T> T call(Callable<T> callable) {
+		if (Platform.isFxApplicationThread()) {
+			try {
+				return callable.call();
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		}
+		
+		FutureTask<T> task = new FutureTask<T>(callable);
+		Platform.runLater(task);
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+	
+	public static void run(Runnable runnable) {
+		call(() -> {
+			runnable.run();
+			return null;
+		});
+	}
+}
@@ -0,0 +1,57 @@
+package io.github.emd4600.javafxribbon.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import io.github.emd4600.javafxribbon.RibbonGallery;
+import io.github.emd4600.javafxribbon.RibbonGalleryItem;
+
+/**
+ * Budgets for galleries with many items: the cost must depend on the visible items, not on the total.
+ */
+public class GalleryBudgetTest {
+	
+	private static final int ITERATIONS = 200;
+	
+	@BeforeAll
+	public static void startPlatform() {
+		FxPlatform.assumeAvailable();
+	}
+
+	@Test
+	public void nodeCountDoesNotDependOnItemCount() {
+		int smallNodes = FxPlatform.call(() -> OperationCost.countNodes(RibbonFixtures.createGalleryWindow(100)));
+		int largeNodes = FxPlatform.call(() -> OperationCost.countNodes(RibbonFixtures.createGalleryWindow(10000)));
+		
+		assertEquals(smallNodes, largeNodes, "Node count of a gallery with 10000 items");
+	}
+	
+	@Test
+	public void addItem() {
+		RibbonGallery gallery = FxPlatform.call(() -> RibbonFixtures.createGalleryWindow(10000));
+		
+		int[] count = new int[1];
+		OperationCost.measure("Gallery item addition", ITERATIONS, () -> {
+			RibbonGalleryItem item = new RibbonGalleryItem();
+			item.setText(RibbonFixtures.label(count[0]++));
+			gallery.getItems().add(item);
+			RibbonFixtures.pulse(gallery.getScene().getRoot());
+		})
+			.assertTimeWithin(2.0)
+			.assertAllocationWithin(128 * 1024);
+	}
+	
+	@Test
+	public void scroll() {
+		RibbonGallery gallery = FxPlatform.call(() -> RibbonFixtures.createGalleryWindow(10000));
+		
+		OperationCost.measure("Gallery scroll", ITERATIONS, () -> {
+			gallery.setDisplayedRow((gallery.getDisplayedRow() + 1) % 100);
+			RibbonFixtures.pulse(gallery.getScene().getRoot());
+		})
+			.assertTimeWithin(2.0)
+			.assertAllocationWithin(128 * 1024);
+	}
+}
@@ -0,0 +1,98 @@
+package io.github.emd4600.javafxribbon.benchmark;
+
+import java.lang.management.ManagementFactory;
+
+import io.github.emd4600.javafxribbon.RibbonMetrics;
+import javafx.scene.Node;
+
+/**
+ * The average time and memory allocated by an operation executed in the JavaFX thread, used by the
+ * performance budget tests. Time budgets can be scaled for slow machines with the
+ * <code>budget.timeScale</code> system property.
+ */
+public final class OperationCost {
+	
+	private static final com.sun.management.ThreadMXBean THREAD_BEAN = 
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+	
+	private static final double TIME_SCALE = Double.parseDouble(System.getProperty("budget.timeScale", "1"));
+	
+	private final String name;
+	private final double millisPerOperation;
+	private final long bytesPerOperation;
+	
+	private OperationCost(String name, double millisPerOperation, long bytesPerOperation) {
+		this.name = name;
+		this.millisPerOperation = millisPerOperation;
+		this.bytesPerOperation = bytesPerOperation;
+	}
+	
+	/**
+	 * Executes the operation in the JavaFX thread the specified number of times, after the same number
+	 * of warmup executions, and returns its average cost.
+	 * @param name The name used in the failure messages.
+	 * @param iterations How many times the operation is measured.
+	 * @param operation The operation, it must include the pulse if needed.
+	 */
+	public static OperationCost measure(String name, int iterations, Runnable operation) {
+		return FxPlatform.call(() -> {
+			for (int i = 0; i < iterations; i++) {
+				operation.run();
+			}
+			
+			long threadId = Thread.currentThread().getId();
+			long startBytes = THREAD_BEAN.getThreadAllocatedBytes(threadId);
+			long startTime = System.nanoTime();
+			for (int i = 0; i < iterations; i++) {
+				operation.run();
+			}
+			long elapsed = System.nanoTime() - startTime;
+			long allocated = THREAD_BEAN.getThreadAllocatedBytes(threadId) - startBytes;
+			
+			return new OperationCost(name, elapsed / 1e6 / iterations, allocated / iterations);
+		});
+	}
+	
+	/**
+	 * Counts the nodes of a scene graph, including the root.
+	 */
+	public static int countNodes(Node node) {
+		return RibbonMetrics.countNodes(node);
+	}
+	
+	public double getMillisPerOperation() {
+		return millisPerOperation;
+	}
+	
+	public long getBytesPerOperation() {
+		return bytesPerOperation;
+	}
+	
+	/**
+	 * Fails if the average time of the operation exceeds the budget, scaled by <code>budget.timeScale</code>.
+	 */
+	public OperationCost assertTimeWithin(double maxMillis) {
+		double budget = maxMillis * TIME_SCALE;
+		if (millisPerOperation > budget) {
+			throw new AssertionError(String.format("%s took %.3f ms per operation, the budget is %.3f ms", 
+					name, millisPerOperation, budget));
+		}
+		return this;
+	}
+	
+	/**
+	 * Fails if the average memory allocated by the operation exceeds the budget.
+	 */
+	public OperationCost assertAllocationWithin(long maxBytes) {
+		if (bytesPerOperation > maxBytes) {
+			throw new AssertionError(String.format("%s allocated %d bytes per operation, the budget is %d bytes", 
+					name, bytesPerOperation, maxBytes));
+		}
+		return this;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s: %.3f ms, %d bytes per operation", name, millisPerOperation, bytesPerOperation);
+	}
+}
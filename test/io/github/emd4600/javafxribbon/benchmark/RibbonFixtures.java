@@ -0,0 +1,214 @@
+package io.github.emd4600.javafxribbon.benchmark;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.github.emd4600.javafxribbon.Ribbon;
+import io.github.emd4600.javafxribbon.RibbonButton;
+import io.github.emd4600.javafxribbon.RibbonGallery;
+import io.github.emd4600.javafxribbon.RibbonGalleryItem;
+import io.github.emd4600.javafxribbon.RibbonGroup;
+import io.github.emd4600.javafxribbon.RibbonSearchEntry;
+import io.github.emd4600.javafxribbon.RibbonTab;
+import io.github.emd4600.javafxribbon.RibbonWindow;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.layout.Pane;
+
+/**
+ * Builds the ribbons used by the benchmarks. All methods must be called in the JavaFX thread.
+ */
+public final class RibbonFixtures {
+	
+	/** Typical ribbon button labels, some of them are split in multiple lines. */
+	public static final String[] LABELS = {
+			"Paste", "Cut", "Copy", "Format Painter", "Bold", "Italic", "Underline", "Find", "Replace", "Select All",
+			"Insert Table", "Pictures", "Online Pictures", "Shapes", "Smart Art", "Chart", "Screenshot", "Page Break",
+			"Header", "Footer", "Page Number", "Text Box", "Quick Parts", "Word Art", "Drop Cap", "Signature Line",
+			"Date and Time", "Object", "Equation", "Symbol", "Track Changes", "Show Markup", "Previous Comment",
+			"Next Comment", "New Comment", "Delete All Comments", "Spelling and Grammar", "Word Count", "Translate",
+			"Language", "Compare Documents", "Restrict Editing", "Print Layout", "Read Mode", "Web Layout"
+	};
+	
+	public static final double SCENE_WIDTH = 1280;
+	public static final double SCENE_HEIGHT = 800;
+	
+	/** The pulse listeners of a scene, which are only run by the toolkit for scenes that are displayed in a window. */
+	private static final Field PRE_LAYOUT_LISTENERS = getSceneField("preLayoutPulseListeners");
+	private static final Field POST_LAYOUT_LISTENERS = getSceneField("postLayoutPulseListeners");
+	
+	private RibbonFixtures() {}
+	
+	public static String label(int index) {
+		return LABELS[index % LABELS.length];
+	}
+	
+	public static RibbonTab createTab(int index, int groupCount, int buttonsPerGroup) {
+		return new RibbonTab("Tab " + index, createGroups(index, groupCount, buttonsPerGroup).toArray(new RibbonGroup[0]));
+	}
+	
+	/**
+	 * Creates a tab whose groups are only created when the tab is displayed.
+	 */
+	public static RibbonTab createLazyTab(int index, int groupCount, int buttonsPerGroup) {
+		return new RibbonTab("Tab " + index, () -> createGroups(index, groupCount, buttonsPerGroup));
+	}
+	
+	private static List<RibbonGroup> createGroups(int index, int groupCount, int buttonsPerGroup) {
+		List<RibbonGroup> groups = new ArrayList<RibbonGroup>(groupCount);
+		for (int g = 0; g < groupCount; g++) {
+			RibbonGroup group = new RibbonGroup("Group " + g);
+			for (int b = 0; b < buttonsPerGroup; b++) {
+				group.getNodes().add(new RibbonButton(label(index * 31 + g * 7 + b), null));
+			}
+			groups.add(group);
+		}
+		return groups;
+	}
+	
+	/**
+	 * Creates a ribbon window, inside a scene, with the specified number of tabs, groups and buttons.
+	 * The CSS and layout have not been applied yet.
+	 */
+	public static RibbonWindow createRibbonWindow(int tabCount, int groupCount, int buttonsPerGroup) {
+		return createRibbonWindow(tabCount, groupCount, buttonsPerGroup, false);
+	}
+	
+	/**
+	 * Creates a ribbon window, inside a scene, with the specified number of tabs, groups and buttons.
+	 * If lazyGroups is true, the groups of each tab are only created when the tab is displayed.
+	 * The CSS and layout have not been applied yet.
+	 */
+	public static RibbonWindow createRibbonWindow(int tabCount, int groupCount, int buttonsPerGroup, boolean lazyGroups) {
+		RibbonWindow window = new RibbonWindow();
+		Ribbon ribbon = window.getRibbon();
+		ribbon.setContentHeight(115);
+		for (int t = 0; t < tabCount; t++) {
+			ribbon.getTabs().add(lazyGroups ? createLazyTab(t, groupCount, buttonsPerGroup) : createTab(t, groupCount, buttonsPerGroup));
+		}
+		window.setContent(new Pane());
+		
+		new Scene(window, SCENE_WIDTH, SCENE_HEIGHT);
+		return window;
+	}
+	
+	/**
+	 * Creates a ribbon window whose only tab contains a gallery with the specified number of items.
+	 */
+	public static RibbonGallery createGalleryWindow(int itemCount) {
+		RibbonWindow window = createRibbonWindow(0, 0, 0);
+		Ribbon ribbon = window.getRibbon();
+		
+		RibbonGallery gallery = new RibbonGallery(ribbon);
+		gallery.setPrefWidth(400);
+		for (int i = 0; i < itemCount; i++) {
+			RibbonGalleryItem item = new RibbonGalleryItem();
+			item.setText(label(i) + " " + i);
+			gallery.getItems().add(item);
+		}
+		
+		ribbon.getTabs().add(new RibbonTab("Gallery", new RibbonGroup("Styles", gallery)));
+		pulse(window);
+		return gallery;
+	}
+	
+	/**
+	 * Creates a ribbon definition with the same tabs, groups and buttons as {@link #createRibbonWindow(int, int, int)}.
+	 * @return The XML of the definition
+	 */
+	public static String createDefinition(int tabCount, int groupCount, int buttonsPerGroup) {
+		StringBuilder sb = new StringBuilder("<ribbon>\n");
+		for (int t = 0; t < tabCount; t++) {
+			sb.append("  <tab text=\"Tab ").append(t).append("\">\n");
+			for (int g = 0; g < groupCount; g++) {
+				sb.append("    <group text=\"Group ").append(g).append("\">\n");
+				for (int b = 0; b < buttonsPerGroup; b++) {
+					sb.append("      <button text=\"").append(label(t * 31 + g * 7 + b)).append("\"/>\n");
+				}
+				sb.append("    </group>\n");
+			}
+			sb.append("  </tab>\n");
+		}
+		return sb.append("</ribbon>\n").toString();
+	}
+	
+	/**
+	 * Creates a ribbon window for the command search with the specified number of commands. A tenth of them are
+	 * the buttons of tabs that have been created, the rest are the search entries of lazy tabs of 100 commands each.
+	 */
+	public static RibbonWindow createSearchWindow(int commandCount) {
+		int materializedTabs = Math.max(1, commandCount / 1000);
+		RibbonWindow window = createRibbonWindow(materializedTabs, 10, 10);
+		Ribbon ribbon = window.getRibbon();
+		
+		for (int t = materializedTabs; t * 100 < commandCount; t++) {
+			RibbonTab tab = createLazyTab(t, 10, 10);
+			for (int i = 0; i < 100; i++) {
+				tab.getSearchEntries().add(new RibbonSearchEntry(label(t * 31 + i) + " " + i, "Description of command " + i, "Group " + (i / 10)));
+			}
+			ribbon.getTabs().add(tab);
+		}
+		pulse(window);
+		return window;
+	}
+	
+	/**
+	 * Does what a pulse does with the scene of the root: runs the pre-layout pulse listeners, applies the CSS,
+	 * layouts the root and runs the post-layout pulse listeners. The ribbon applies the pending skin updates and
+	 * evaluates the out of date commands in those listeners, so they are part of the measured cost. The scenes
+	 * of the fixtures are not shown in a window, so the toolkit never pulses them by itself.
+	 */
+	public static void pulse(Parent root) {
+		Scene scene = root.getScene();
+		runPulseListeners(scene, PRE_LAYOUT_LISTENERS);
+		root.applyCss();
+		root.layout();
+		runPulseListeners(scene, POST_LAYOUT_LISTENERS);
+	}
+	
+	private static void runPulseListeners(Scene scene, Field field) {
+		if (scene == null) return;
+		
+		List<?> listeners;
+		try {
+			listeners = (List<?>) field.get(scene);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+		if (listeners != null) {
+			// The scene keeps them in a copy-on-write list, listeners can remove themselves while it is iterated
+			for (Object listener : listeners) {
+				((Runnable) listener).run();
+			}
+		}
+	}
+	
+	private static Field getSceneField(String name) {
+		try {
+			Field field = Scene.class.getDeclaredField(name);
+			field.setAccessible(true);
+			return field;
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			throw new IllegalStateException("Cannot access the pulse listeners of the scene", e);
+		}
+	}
+	
+	/**
+	 * Finds the first node of the given type in the scene graph, searching depth-first.
+	 * @return The node, or null if there is none.
+	 */
+	public static <T extends Node> T findNode(Parent root, Class<T> type) {
+		for (Node child : root.getChildrenUnmodifiable()) {
+			if (type.isInstance(child)) {
+				return type.cast(child);
+			}
+			if (child instanceof Parent) {
+				T node = findNode((Parent) child, type);
+				if (node != null) return node;
+			}
+		}
+		return null;
+	}
+}
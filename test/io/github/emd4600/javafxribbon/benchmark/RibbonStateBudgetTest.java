@@ -0,0 +1,66 @@
+package io.github.emd4600.javafxribbon.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import io.github.emd4600.javafxribbon.BasicRibbonTest;
+import io.github.emd4600.javafxribbon.Ribbon;
+import io.github.emd4600.javafxribbon.Ribbon.RibbonState;
+import io.github.emd4600.javafxribbon.RibbonWindow;
+import javafx.scene.Scene;
+
+/**
+ * Budgets for minimizing, dropping down and expanding the ribbon.
+ */
+public class RibbonStateBudgetTest {
+	
+	private static final int ITERATIONS = 200;
+	
+	private static final RibbonState[] STATES = {RibbonState.MINIMIZED, RibbonState.DROPDOWN, RibbonState.EXPANDED};
+	
+	@BeforeAll
+	public static void startPlatform() {
+		FxPlatform.assumeAvailable();
+	}
+
+	private static void checkStateCycle(String name, RibbonWindow window, double maxMillis, long maxBytes) {
+		Ribbon ribbon = window.getRibbon();
+		int initialNodes = FxPlatform.call(() -> {
+			RibbonFixtures.pulse(window);
+			return OperationCost.countNodes(window);
+		});
+		
+		int[] stateIndex = new int[1];
+		OperationCost.measure(name, ITERATIONS, () -> {
+			ribbon.setRibbonState(STATES[stateIndex[0]++ % STATES.length]);
+			RibbonFixtures.pulse(window);
+		})
+			.assertTimeWithin(maxMillis)
+			.assertAllocationWithin(maxBytes);
+		
+		int nodes = FxPlatform.call(() -> {
+			ribbon.setRibbonState(RibbonState.EXPANDED);
+			RibbonFixtures.pulse(window);
+			return OperationCost.countNodes(window);
+		});
+		assertEquals(initialNodes, nodes, "Node count after cycling the ribbon states");
+	}
+	
+	@Test
+	public void basicScenario() {
+		RibbonWindow window = FxPlatform.call(() -> {
+			RibbonWindow w = BasicRibbonTest.createRibbonWindow();
+			new Scene(w, 1000, 700);
+			return w;
+		});
+		checkStateCycle("Basic scenario state change", window, 2.0, 256 * 1024);
+	}
+	
+	@Test
+	public void largeRibbon() {
+		RibbonWindow window = FxPlatform.call(() -> RibbonFixtures.createRibbonWindow(20, 5, 6));
+		checkStateCycle("Large ribbon state change", window, 10.0, 2 * 1024 * 1024);
+	}
+}
@@ -0,0 +1,103 @@
+package io.github.emd4600.javafxribbon.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import io.github.emd4600.javafxribbon.BasicRibbonTest;
+import io.github.emd4600.javafxribbon.Ribbon;
+import io.github.emd4600.javafxribbon.RibbonWindow;
+import javafx.scene.Scene;
+
+/**
+ * Budgets for selecting tabs, both in the {@link BasicRibbonTest} scenario and in a larger ribbon.
+ */
+public class TabSwitchBudgetTest {
+	
+	private static final int ITERATIONS = 200;
+	
+	@BeforeAll
+	public static void startPlatform() {
+		FxPlatform.assumeAvailable();
+	}
+	
+	private static Runnable selectNextTab(RibbonWindow window) {
+		Ribbon ribbon = window.getRibbon();
+		return () -> {
+			int index = (ribbon.getSelectionModel().getSelectedIndex() + 1) % ribbon.getTabs().size();
+			ribbon.getSelectionModel().select(index);
+			RibbonFixtures.pulse(window);
+		};
+	}
+
+	@Test
+	public void basicScenario() {
+		RibbonWindow window = FxPlatform.call(() -> {
+			RibbonWindow w = BasicRibbonTest.createRibbonWindow();
+			new Scene(w, 1000, 700);
+			RibbonFixtures.pulse(w);
+			return w;
+		});
+		
+		OperationCost.measure("Basic scenario tab switch", ITERATIONS, selectNextTab(window))
+			.assertTimeWithin(2.0)
+			.assertAllocationWithin(256 * 1024);
+	}
+	
+	@Test
+	public void uncachedContent() {
+		RibbonWindow window = FxPlatform.call(() -> {
+			RibbonWindow w = RibbonFixtures.createRibbonWindow(20, 5, 6);
+			RibbonFixtures.pulse(w);
+			return w;
+		});
+		int initialNodes = FxPlatform.call(() -> OperationCost.countNodes(window));
+		
+		OperationCost.measure("Uncached tab switch", ITERATIONS, selectNextTab(window))
+			.assertTimeWithin(10.0)
+			.assertAllocationWithin(2 * 1024 * 1024);
+		
+		// Back to the first tab, the content of the other tabs must not stay in the scene graph
+		int nodes = FxPlatform.call(() -> {
+			window.getRibbon().getSelectionModel().select(0);
+			RibbonFixtures.pulse(window);
+			return OperationCost.countNodes(window);
+		});
+		assertEquals(initialNodes, nodes, "Node count after visiting every tab");
+	}
+	
+	@Test
+	public void cachedContent() {
+		int cacheSize = 4;
+		RibbonWindow window = FxPlatform.call(() -> {
+			RibbonWindow w = RibbonFixtures.createRibbonWindow(20, 5, 6);
+			w.getRibbon().setContentCacheSize(cacheSize);
+			RibbonFixtures.pulse(w);
+			return w;
+		});
+		int initialNodes = FxPlatform.call(() -> OperationCost.countNodes(window));
+		
+		// Only switching between cached tabs must be cheap
+		Ribbon ribbon = window.getRibbon();
+		OperationCost.measure("Cached tab switch", ITERATIONS, () -> {
+			ribbon.getSelectionModel().select((ribbon.getSelectionModel().getSelectedIndex() + 1) % cacheSize);
+			RibbonFixtures.pulse(window);
+		})
+			.assertTimeWithin(2.0)
+			.assertAllocationWithin(128 * 1024);
+		
+		// Visiting every tab must not keep more than the cache size in the scene graph
+		int nodes = FxPlatform.call(() -> {
+			for (int i = 0; i < ribbon.getTabs().size(); i++) {
+				ribbon.getSelectionModel().select(i);
+				RibbonFixtures.pulse(window);
+			}
+			return OperationCost.countNodes(window);
+		});
+		// The first tab content and the ribbon chrome are less than the initial node count
+		assertTrue(nodes <= cacheSize * initialNodes, 
+				"Node count " + nodes + " after visiting every tab exceeds the content cache size");
+	}
+}
@@ -0,0 +1,106 @@
+package io.github.emd4600.javafxribbon.skin;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the keytip index and the generation of keytips from texts.
+ */
+public class KeyTipTrieTest {
+
+	/** Assigns the keytips of the texts, which are also the targets, and returns the key of every target. */
+	private static Map<String, String> assign(List<String> explicitKeys, String... texts) {
+		KeyTipTrie<String> trie = new KeyTipTrie<String>();
+		trie.assignKeyTips(Arrays.asList(texts), explicitKeys, Arrays.asList(texts));
+
+		Map<String, String> keys = new HashMap<String, String>();
+		trie.forEach("", (key, target) -> keys.put(target, key));
+		assertEquals(trie.size(), keys.size(), "Every target has a single key");
+		assertPrefixFree(trie, keys);
+		return keys;
+	}
+
+	private static Map<String, String> assign(String... texts) {
+		return assign(Collections.nCopies(texts.length, null), texts);
+	}
+
+	private static void assertPrefixFree(KeyTipTrie<String> trie, Map<String, String> keys) {
+		List<String> allKeys = new ArrayList<String>(keys.values());
+		for (String a : allKeys) {
+			for (String b : allKeys) {
+				assertTrue(a == b || !b.startsWith(a), "'" + a + "' is the start of '" + b + "'");
+			}
+			assertTrue(trie.containsPrefix(a));
+			assertEquals(a, keys.get(trie.get(a)));
+		}
+	}
+
+	@Test
+	public void keysArePrefixFree() {
+		KeyTipTrie<String> trie = new KeyTipTrie<String>();
+		assertTrue(trie.put("AB", "Bold"));
+
+		assertFalse(trie.put("A", "Align"), "A key cannot be the start of an existing key");
+		assertFalse(trie.put("ABC", "Border"), "An existing key cannot be the start of a new key");
+		assertFalse(trie.put("AB", "Bullets"), "Keys are unique");
+		assertFalse(trie.put("", "Empty"));
+		assertFalse(trie.put(null, "Null"));
+		assertTrue(trie.put("AC", "Center"));
+
+		assertEquals(2, trie.size());
+		assertEquals("Bold", trie.get("AB"));
+		assertNull(trie.get("A"), "Incomplete keys have no target");
+		assertTrue(trie.containsPrefix("A"));
+		assertFalse(trie.containsPrefix("B"));
+
+		trie.clear();
+		assertEquals(0, trie.size());
+		assertTrue(trie.put("A", "Align"));
+	}
+
+	@Test
+	public void uniqueInitialsGetOneLetter() {
+		Map<String, String> keys = assign("PASTE", "COPY", "FORMAT PAINTER");
+		assertEquals("P", keys.get("PASTE"));
+		assertEquals("C", keys.get("COPY"));
+		assertEquals("F", keys.get("FORMAT PAINTER"));
+	}
+
+	@Test
+	public void sharedInitialsGetTwoLetters() {
+		Map<String, String> keys = assign("CUT", "COPY", "CLEAR FORMAT", "PASTE");
+		// The initials of the other words go first, then the other letters
+		assertEquals("CU", keys.get("CUT"));
+		assertEquals("CO", keys.get("COPY"));
+		assertEquals("CF", keys.get("CLEAR FORMAT"));
+		assertEquals("P", keys.get("PASTE"));
+	}
+
+	@Test
+	public void explicitKeysGoFirst() {
+		Map<String, String> keys = assign(Arrays.asList("CU", null, null), "CUT", "CUSTOM", "BOLD");
+		assertEquals("CU", keys.get("CUT"));
+		assertEquals("CS", keys.get("CUSTOM"), "The second letter is taken by an explicit key");
+		assertEquals("B", keys.get("BOLD"));
+	}
+
+	@Test
+	public void digitsAreUsedWhenLettersRunOut() {
+		// Every possible second letter of the texts is taken by the first one
+		Map<String, String> keys = assign("AA", "A", "A A");
+		assertEquals("AA", keys.get("AA"));
+		assertEquals("A1", keys.get("A"));
+		assertEquals("A2", keys.get("A A"));
+	}
+}